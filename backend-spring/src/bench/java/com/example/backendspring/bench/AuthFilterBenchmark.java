@@ -0,0 +1,144 @@
+package com.example.backendspring.bench;
+
+import com.example.backendspring.config.props.JwtProperties;
+import com.example.backendspring.security.JwtAuthFilter;
+import com.example.backendspring.security.JwtService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por requisição autenticada dos filtros de segurança: a forma
+ * anterior (JwtAuthFilter com parse e HMAC a cada requisição, seguido do
+ * AuthAttributesFilter percorrendo a cadeia de wrappers), reproduzida aqui,
+ * contra o JwtAuthFilter atual (token em cache, userId publicado direto). A
+ * requisição passa por dois wrappers, como atrás do Spring Security. Rode
+ * com {@code -prof gc} para ver também as alocações.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthFilterBenchmark {
+
+    private static final FilterChain FIM = (req, res) -> {
+    };
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private FilterChain anterior;
+    private JwtAuthFilter atual;
+
+    @Setup
+    public void setup() {
+        JwtProperties props = new JwtProperties();
+        props.setSecret("dev-secret-please-change-me-0123456789-ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+        props.setExpiration(TimeUnit.HOURS.toMillis(1));
+        JwtService jwtService = new JwtService(props);
+        String token = jwtService.generateToken(Map.of("id", 7, "username", "caixa", "role", "user"));
+
+        MockHttpServletRequest mock = new MockHttpServletRequest("GET", "/api/caixa/status");
+        mock.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        request = new HttpServletRequestWrapper(new HttpServletRequestWrapper(mock));
+        response = new MockHttpServletResponse();
+
+        JwtAuthFilterAnterior jwtAnterior = new JwtAuthFilterAnterior(jwtService);
+        AuthAttributesFilterAnterior attributesAnterior = new AuthAttributesFilterAnterior();
+        anterior = (req, res) -> jwtAnterior.doFilter(req, res,
+                (req2, res2) -> attributesAnterior.doFilter(req2, res2, FIM));
+        atual = new JwtAuthFilter(jwtService, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Object filtrosAnteriores() throws IOException, ServletException {
+        anterior.doFilter(request, response);
+        return request.getAttribute("userId");
+    }
+
+    @Benchmark
+    public Object filtroAtual() throws IOException, ServletException {
+        atual.doFilter(request, response, FIM);
+        return request.getAttribute("userId");
+    }
+
+    /** JwtAuthFilter antes do cache: parse do token e autoridades novas a cada requisição. */
+    static final class JwtAuthFilterAnterior extends OncePerRequestFilter {
+        private final JwtService jwtService;
+
+        JwtAuthFilterAnterior(JwtService jwtService) {
+            this.jwtService = jwtService;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                FilterChain filterChain) throws ServletException, IOException {
+            String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+            if (header != null && header.startsWith("Bearer ")) {
+                Claims claims = jwtService.parseToken(header.substring(7));
+                Long id = ((Number) claims.get("id")).longValue();
+                String role = (String) claims.get("role");
+                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                        claims.get("username"), null,
+                        List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
+                auth.setDetails(id);
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /** AuthAttributesFilter removido: percorria a cadeia de wrappers em toda requisição. */
+    static final class AuthAttributesFilterAnterior extends OncePerRequestFilter {
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                FilterChain filterChain) throws ServletException, IOException {
+            ServletRequest cur = request;
+            Set<ServletRequest> seen = new HashSet<>();
+            int depth = 0;
+            while (cur instanceof ServletRequestWrapper wrapper && seen.add(cur) && depth++ <= 50)
+                cur = wrapper.getRequest();
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.getDetails() instanceof Long id)
+                request.setAttribute("userId", id);
+            filterChain.doFilter(request, response);
+        }
+    }
+}
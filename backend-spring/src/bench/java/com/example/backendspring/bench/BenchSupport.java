@@ -0,0 +1,135 @@
+package com.example.backendspring.bench;
+
+import com.example.backendspring.product.Product;
+import com.example.backendspring.sale.SaleItem;
+import com.example.backendspring.sale.SaleOrder;
+import com.example.backendspring.sale.SalePayment;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Utilitários compartilhados pelos benchmarks: acesso aos helpers privados dos
+ * controllers (sem alterar a visibilidade no código de produção) e dados
+ * sintéticos com a mesma forma dos que o banco devolve.
+ */
+final class BenchSupport {
+
+    static final String[] METODOS = { "dinheiro", "cartao_credito", "cartao_debito", "pix" };
+
+    private BenchSupport() {
+    }
+
+    /**
+     * Instancia um controller pelo seu único construtor passando null (ou 0) em
+     * todas as dependências; serve para helpers que não tocam os repositórios.
+     */
+    static <T> T newWithNulls(Class<T> type) {
+        try {
+            Constructor<?> c = type.getDeclaredConstructors()[0];
+            c.setAccessible(true);
+            Object[] args = new Object[c.getParameterCount()];
+            Class<?>[] types = c.getParameterTypes();
+            for (int i = 0; i < args.length; i++) {
+                if (types[i].isPrimitive())
+                    args[i] = types[i] == boolean.class ? Boolean.FALSE : 0;
+            }
+            return type.cast(c.newInstance(args));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Falha ao instanciar " + type.getSimpleName(), e);
+        }
+    }
+
+    /** Handle para um método privado (estático ou de instância) da classe. */
+    static MethodHandle privateMethod(Class<?> owner, String name, Class<?>... params) {
+        try {
+            Method m = owner.getDeclaredMethod(name, params);
+            return MethodHandles.privateLookupIn(owner, MethodHandles.lookup()).unreflect(m);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Método " + owner.getSimpleName() + "." + name + " não encontrado", e);
+        }
+    }
+
+    /**
+     * Linhas do caixa no formato usado pelo CaixaController (chaves tipo,
+     * valor, data_movimento, metodo_pagamento, caixa_status_id...): ~60%
+     * vendas, o resto entradas e retiradas, distribuídas em {@code sessoes}
+     * caixas ao longo de um dia.
+     */
+    static List<Map<String, Object>> movimentacoes(int rows, int sessoes, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        OffsetDateTime inicio = OffsetDateTime.of(2025, 3, 10, 11, 0, 0, 0, ZoneOffset.UTC);
+        List<Map<String, Object>> lista = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> m = new HashMap<>();
+            int r = rnd.nextInt(100);
+            String tipo = r < 60 ? "venda" : (r < 85 ? "entrada" : "retirada");
+            double valor = Math.round(rnd.nextDouble(1, 300) * 100) / 100.0;
+            m.put("id", (long) i + 1);
+            m.put("tipo", tipo);
+            m.put("valor", valor);
+            m.put("caixa_status_id", (long) (i % Math.max(1, sessoes)) + 1);
+            m.put("data_movimento", inicio.plusSeconds(rnd.nextLong(10 * 3600)));
+            m.put("descricao", "venda".equals(tipo) ? "Venda " + (i + 1) : "Movimentação " + (i + 1));
+            if ("venda".equals(tipo)) {
+                m.put("metodo_pagamento", METODOS[rnd.nextInt(METODOS.length)]);
+                m.put("pagamento_valor", valor);
+                m.put("total_venda", valor);
+            }
+            lista.add(m);
+        }
+        return lista;
+    }
+
+    /** Venda com {@code itens} itens e um ou dois pagamentos. */
+    static SaleOrder venda(long id, int itens, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        SaleOrder venda = SaleOrder.builder()
+                .id(id)
+                .dataVenda(OffsetDateTime.of(2025, 3, 10, 14, 30, 0, 0, ZoneOffset.UTC))
+                .customerName("Cliente Benchmark")
+                .desconto(0.0)
+                .acrescimo(0.0)
+                .build();
+        double total = 0;
+        for (int i = 0; i < itens; i++) {
+            double preco = Math.round(rnd.nextDouble(1, 80) * 100) / 100.0;
+            int qtd = 1 + rnd.nextInt(4);
+            Product p = Product.builder()
+                    .id((long) i + 1)
+                    .nome("Produto de teste número " + (i + 1))
+                    .codigoBarras(String.format("789%010d", i + 1))
+                    .precoVenda(preco)
+                    .build();
+            SaleItem it = SaleItem.builder()
+                    .id(id * 1000 + i)
+                    .venda(venda)
+                    .produto(p)
+                    .quantidade(qtd)
+                    .precoUnitario(preco)
+                    .precoTotal(preco * qtd)
+                    .build();
+            venda.getItens().add(it);
+            total += preco * qtd;
+        }
+        venda.setSubtotal(total);
+        venda.setTotalFinal(total);
+        double primeiro = itens > 1 ? Math.round(total * 50) / 100.0 : total;
+        venda.getPagamentos().add(SalePayment.builder().id(id * 10).venda(venda)
+                .metodo("pix").valor(primeiro).build());
+        if (primeiro < total) {
+            venda.getPagamentos().add(SalePayment.builder().id(id * 10 + 1).venda(venda)
+                    .metodo("dinheiro").valor(total - primeiro).troco(0.0).build());
+        }
+        return venda;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.backendspring.bench;
+
+import com.example.backendspring.caixa.CaixaController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helpers de agregação do CaixaController que ainda rodam na JVM: o filtro
+ * em memória (tipo, método, faixa de horário) e as somas do dia com a
+ * deduplicação de vendas em dinheiro. Os totais por período já são
+ * calculados no Postgres e entram no teste de carga, não aqui.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CaixaAggregationBenchmark {
+
+    @Param({ "100", "2000", "20000" })
+    int rows;
+
+    private List<Map<String, Object>> lista;
+    private CaixaController controller;
+    private MethodHandle applyFilters;
+    private MethodHandle daySums;
+
+    @Setup
+    public void setup() {
+        lista = BenchSupport.movimentacoes(rows, 3, 42L);
+        controller = BenchSupport.newWithNulls(CaixaController.class);
+        applyFilters = BenchSupport.privateMethod(CaixaController.class, "applyFilters",
+                List.class, String.class, String.class, LocalTime.class, LocalTime.class);
+        daySums = BenchSupport.privateMethod(CaixaController.class, "calculateDayMovimentacoesSums", List.class);
+    }
+
+    @Benchmark
+    public Object filtroSemCriterios() throws Throwable {
+        return applyFilters.invoke(lista, null, null, null, null);
+    }
+
+    @Benchmark
+    public Object filtroTipoMetodoHorario() throws Throwable {
+        return applyFilters.invoke(lista, "venda", "dinheiro", LocalTime.of(9, 0), LocalTime.of(15, 0));
+    }
+
+    @Benchmark
+    public Object somasDoDia() throws Throwable {
+        return daySums.invoke(controller, lista);
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.backendspring.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teste de carga multi-thread contra a aplicação rodando localmente (com o
+ * Postgres de desenvolvimento, de preferência populado pelo
+ * {@link SyntheticDataGenerator}).
+ *
+ * Cada thread sorteia, por peso, um dos cenários: checkout concorrente
+ * (POST /api/checkout com 1–4 produtos BENCH-*), listagem do caixa (GET
+ * /api/caixa/movimentacoes de um dia aleatório, com e sem aggs) e relatórios
+ * (/api/vendas/relatorios/dia|mes|total). Depois do aquecimento mede pela
+ * duração pedida e imprime, por endpoint, requisições, erros, vazão e
+ * latências p50/p90/p99/máx.
+ *
+ * <pre>
+ * --base http://localhost:3000/api --user admin --password admin123
+ * --threads 8 --duration 60 --warmup 10 --mix checkout=4,movimentacoes=3,relatorios=3
+ * --days 365 --seed 1
+ * </pre>
+ *
+ * O checkout exige caixa aberto: se não houver, o driver tenta abrir um
+ * (POST /api/caixa/abrir) com o usuário informado.
+ */
+public final class LoadDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient http;
+    private final String base;
+    private final String token;
+    private final int days;
+    private final List<double[]> produtos;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    private LoadDriver(HttpClient http, String base, String token, int days, List<double[]> produtos) {
+        this.http = http;
+        this.base = base;
+        this.token = token;
+        this.days = days;
+        this.produtos = produtos;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String base = opts.getOrDefault("base", "http://localhost:3000/api");
+        int threads = Integer.parseInt(opts.getOrDefault("threads", "8"));
+        int duration = Integer.parseInt(opts.getOrDefault("duration", "60"));
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", "10"));
+        int days = Integer.parseInt(opts.getOrDefault("days", "365"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "1"));
+        Map<String, Integer> mix = parseMix(opts.getOrDefault("mix", "checkout=4,movimentacoes=3,relatorios=3"));
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String token = login(http, base, opts.getOrDefault("user", "admin"),
+                opts.getOrDefault("password", "admin123"));
+        List<double[]> produtos = mix.getOrDefault("checkout", 0) > 0 ? loadProducts(http, base, token) : List.of();
+        if (!produtos.isEmpty()) {
+            ensureCaixaAberto(http, base, token);
+        }
+
+        LoadDriver driver = new LoadDriver(http, base, token, days, produtos);
+        driver.run(threads, mix, warmup, duration, seed);
+    }
+
+    private void run(int threads, Map<String, Integer> mix, int warmupSec, int durationSec, long seed)
+            throws InterruptedException {
+        List<String> roleta = new ArrayList<>();
+        mix.forEach((cenario, peso) -> {
+            for (int i = 0; i < peso; i++)
+                roleta.add(cenario);
+        });
+        if (roleta.isEmpty())
+            throw new IllegalArgumentException("mix vazio");
+
+        long warmupEnd = System.nanoTime() + warmupSec * 1_000_000_000L;
+        long end = warmupEnd + durationSec * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom rnd = new SplittableRandom(seed + t);
+            Thread th = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        execute(roleta.get(rnd.nextInt(roleta.size())), rnd);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + t);
+            th.start();
+        }
+        System.out.printf("Aquecendo %ds com %d threads...%n", warmupSec, threads);
+        Thread.sleep(Math.max(0, (warmupEnd - System.nanoTime()) / 1_000_000));
+        recording = true;
+        long inicio = System.nanoTime();
+        System.out.printf("Medindo por %ds...%n", durationSec);
+        done.await();
+        report((System.nanoTime() - inicio) / 1e9);
+    }
+
+    private void execute(String cenario, SplittableRandom rnd) {
+        switch (cenario) {
+            case "checkout" -> checkout(rnd);
+            case "movimentacoes" -> {
+                String data = LocalDate.now().minusDays(rnd.nextInt(Math.max(1, days))).toString();
+                boolean aggs = rnd.nextBoolean();
+                timed(aggs ? "GET /caixa/movimentacoes?aggs" : "GET /caixa/movimentacoes",
+                        get("/caixa/movimentacoes?data=" + data + "&page=1&size=20" + (aggs ? "&aggs=true" : "")));
+            }
+            case "relatorios" -> {
+                switch (rnd.nextInt(3)) {
+                    case 0 -> timed("GET /vendas/relatorios/dia", get("/vendas/relatorios/dia?data="
+                            + LocalDate.now().minusDays(rnd.nextInt(Math.max(1, days)))));
+                    case 1 -> timed("GET /vendas/relatorios/mes", get("/vendas/relatorios/mes"));
+                    default -> timed("GET /vendas/relatorios/total", get("/vendas/relatorios/total"));
+                }
+            }
+            default -> throw new IllegalArgumentException("cenário desconhecido: " + cenario);
+        }
+    }
+
+    private void checkout(SplittableRandom rnd) {
+        if (produtos.isEmpty())
+            return;
+        ObjectNode body = MAPPER.createObjectNode();
+        ArrayNode itens = body.putArray("itens");
+        double total = 0;
+        int n = 1 + rnd.nextInt(4);
+        for (int i = 0; i < n; i++) {
+            double[] p = produtos.get(rnd.nextInt(produtos.size()));
+            itens.addObject().put("produtoId", (long) p[0]).put("quantidade", 1).put("precoUnitario", p[1]);
+            total += p[1];
+        }
+        String metodo = BenchSupport.METODOS[rnd.nextInt(BenchSupport.METODOS.length)];
+        body.putArray("pagamentos").addObject().put("metodo", metodo).put("valor", Math.round(total * 100) / 100.0);
+        timed("POST /checkout", request("/checkout").POST(HttpRequest.BodyPublishers.ofString(body.toString())));
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(base + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json");
+    }
+
+    private void timed(String nome, HttpRequest.Builder req) {
+        long t0 = System.nanoTime();
+        boolean ok;
+        try {
+            HttpResponse<Void> resp = http.send(req.build(), HttpResponse.BodyHandlers.discarding());
+            ok = resp.statusCode() < 400;
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long elapsed = System.nanoTime() - t0;
+        if (recording) {
+            stats.computeIfAbsent(nome, k -> new Stats()).record(elapsed, ok);
+        }
+    }
+
+    private void report(double segundos) {
+        System.out.printf("%n%-34s %9s %7s %9s %9s %9s %9s %9s%n", "endpoint", "req", "erros", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "máx ms");
+        long totalReq = 0;
+        for (var e : new java.util.TreeMap<>(stats).entrySet()) {
+            long[] lat = e.getValue().snapshot();
+            Arrays.sort(lat);
+            totalReq += lat.length;
+            System.out.printf("%-34s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", e.getKey(), lat.length,
+                    e.getValue().errors.get(), lat.length / segundos, percentile(lat, 50), percentile(lat, 90),
+                    percentile(lat, 99), lat.length == 0 ? 0 : lat[lat.length - 1] / 1e6);
+        }
+        System.out.printf("%ntotal: %d req em %.1fs (%.1f req/s)%n", totalReq, segundos, totalReq / segundos);
+    }
+
+    /** Percentil por posição (nearest-rank) em ms sobre latências já ordenadas. */
+    static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0)
+            return 0;
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))] / 1e6;
+    }
+
+    private static String login(HttpClient http, String base, String user, String password)
+            throws IOException, InterruptedException {
+        ObjectNode body = MAPPER.createObjectNode().put("username", user).put("password", password);
+        HttpResponse<String> resp = http.send(HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() != 200)
+            throw new IllegalStateException("Login falhou (" + resp.statusCode() + "): " + resp.body());
+        return MAPPER.readTree(resp.body()).path("token").asText();
+    }
+
+    /** Produtos com estoque folgado (os BENCH-* do gerador) como pares {id, preço}. */
+    private static List<double[]> loadProducts(HttpClient http, String base, String token)
+            throws IOException, InterruptedException {
+        HttpResponse<String> resp = http.send(HttpRequest.newBuilder(URI.create(base + "/produtos"))
+                .header("Authorization", "Bearer " + token).GET().build(), HttpResponse.BodyHandlers.ofString());
+        List<double[]> lista = new ArrayList<>();
+        for (JsonNode p : MAPPER.readTree(resp.body())) {
+            if (p.path("quantidade_estoque").asInt() >= 10_000) {
+                lista.add(new double[] { p.path("id").asLong(), p.path("preco_venda").asDouble() });
+            }
+        }
+        if (lista.isEmpty())
+            System.out.println("Aviso: nenhum produto com estoque >= 10000; rode o SyntheticDataGenerator antes.");
+        return lista;
+    }
+
+    private static void ensureCaixaAberto(HttpClient http, String base, String token)
+            throws IOException, InterruptedException {
+        HttpResponse<String> resp = http.send(HttpRequest.newBuilder(URI.create(base + "/caixa/abrir"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"saldo_inicial\":100}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() >= 400)
+            System.out.println("Caixa não aberto pelo driver (" + resp.statusCode() + "): " + resp.body());
+    }
+
+    /** {@code --chave valor} para mapa; também usado pelo SyntheticDataGenerator. */
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--"))
+                throw new IllegalArgumentException("argumento inesperado: " + args[i]);
+            String key = args[i].substring(2);
+            int eq = key.indexOf('=');
+            if (eq >= 0) {
+                opts.put(key.substring(0, eq), key.substring(eq + 1));
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                opts.put(key, args[++i]);
+            } else {
+                opts.put(key, "true");
+            }
+        }
+        return opts;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            pesos.put(kv[0], kv.length > 1 ? Integer.parseInt(kv[1]) : 1);
+        }
+        return pesos;
+    }
+
+    /** Latências (ns) de um endpoint; gravação sincronizada é barata perto do HTTP. */
+    private static final class Stats {
+        private long[] values = new long[1024];
+        private int size;
+        private final AtomicLong errors = new AtomicLong();
+
+        synchronized void record(long nanos, boolean ok) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+            if (!ok)
+                errors.incrementAndGet();
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.backendspring.bench;
+
+import com.example.backendspring.sale.EmailOutboxService;
+import com.example.backendspring.sale.NotaController;
+import com.example.backendspring.sale.NotaPdfRenderer;
+import com.example.backendspring.sale.SaleOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Montagem do HTML da nota (NotaController.buildHtmlForVenda) nas duas
+ * variantes: navegador/Puppeteer (SVG inline) e PDF na JVM (ícones PNG).
+ * Não inclui a renderização do PDF em si.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotaHtmlBenchmark {
+
+    @Param({ "3", "30", "150" })
+    int itens;
+
+    private SaleOrder venda;
+    private NotaController controller;
+    private MethodHandle buildHtml;
+
+    @Setup
+    public void setup() throws Throwable {
+        venda = BenchSupport.venda(1L, itens, 7L);
+        NotaPdfRenderer renderer = new NotaPdfRenderer("openhtmltopdf", false, "");
+        BenchSupport.privateMethod(NotaPdfRenderer.class, "preload").invoke(renderer);
+        EmailOutboxService outbox = new EmailOutboxService(null, null, null, 1, 1, 1);
+        controller = new NotaController(null, null, outbox, renderer, null, null);
+        buildHtml = BenchSupport.privateMethod(NotaController.class, "buildHtmlForVenda",
+                SaleOrder.class, boolean.class);
+    }
+
+    @Benchmark
+    public Object htmlNavegador() throws Throwable {
+        return buildHtml.invoke(controller, venda, false);
+    }
+
+    @Benchmark
+    public Object htmlPdfNaJvm() throws Throwable {
+        return buildHtml.invoke(controller, venda, true);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.backendspring.bench;
+
+import com.example.backendspring.sale.SaleReportService;
+import com.example.backendspring.utils.DateTimeUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Compara o resumo do dia do SaleReportService nas duas formas: uma consulta
+ * por métrica (implementação anterior, reproduzida aqui) e o CTE único
+ * atual. Roda contra o Postgres populado pelo SyntheticDataGenerator, para
+ * cada dia de um mês, e imprime comandos SQL por chamada e latências. Os
+ * resultados das duas formas são conferidos entre si.
+ *
+ * <pre>
+ * --url jdbc:postgresql://localhost:5432/postgres --user postgres --password ...
+ * --mes 2026-09 --repeticoes 100 --aquecimento 20
+ * </pre>
+ *
+ * Sem --mes usa o mês da venda mais recente.
+ */
+public final class ReportQueryBenchmark {
+
+    private static final String FILTRO = "(vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND vc.data_venda >= ? AND vc.data_venda < ?";
+
+    private ReportQueryBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = LoadDriver.parseArgs(args);
+        String url = opts.getOrDefault("url", SyntheticDataGenerator.envOr("DB_URL", "jdbc:postgresql://localhost:5432/postgres"));
+        String user = opts.getOrDefault("user", SyntheticDataGenerator.envOr("DB_USERNAME", "postgres"));
+        String password = opts.getOrDefault("password", SyntheticDataGenerator.envOr("DB_PASSWORD", ""));
+        int repeticoes = Integer.parseInt(opts.getOrDefault("repeticoes", "20"));
+        int aquecimento = Integer.parseInt(opts.getOrDefault("aquecimento", "5"));
+
+        SingleConnectionDataSource single = new SingleConnectionDataSource(url, user, password, true);
+        AtomicLong comandos = new AtomicLong();
+        JdbcTemplate jdbc = new JdbcTemplate(counting(single, comandos));
+        try {
+            YearMonth mes = opts.containsKey("mes") ? YearMonth.parse(opts.get("mes")) : ultimoMes(jdbc);
+            List<LocalDate> dias = new ArrayList<>();
+            for (int d = 1; d <= mes.lengthOfMonth(); d++)
+                dias.add(mes.atDay(d));
+
+            SaleReportService service = new SaleReportService(jdbc);
+            Map<String, Function<LocalDate, Map<String, Object>>> formas = new LinkedHashMap<>();
+            formas.put("por metrica (anterior)", dia -> resumoPorMetrica(jdbc, dia));
+            formas.put("cte unico", service::getResumoDia);
+
+            int divergencias = 0;
+            for (LocalDate dia : dias) {
+                Map<String, Object> a = normalizar(resumoPorMetrica(jdbc, dia));
+                Map<String, Object> b = normalizar(service.getResumoDia(dia));
+                if (!a.equals(b)) {
+                    divergencias++;
+                    System.out.printf("DIVERGENCIA %s%n  anterior: %s%n  cte:      %s%n", dia, a, b);
+                }
+            }
+
+            for (int i = 0; i < aquecimento; i++)
+                for (var forma : formas.values())
+                    dias.forEach(forma::apply);
+
+            System.out.printf("%nMês %s, %d dias x %d repetições%n", mes, dias.size(), repeticoes);
+            System.out.printf("%-24s %9s %12s %9s %9s %9s %9s%n", "forma", "chamadas", "cmd/chamada", "p50 ms",
+                    "p90 ms", "p99 ms", "total ms");
+            for (var forma : formas.entrySet()) {
+                long[] lat = new long[dias.size() * repeticoes];
+                int n = 0;
+                long cmd0 = comandos.get();
+                for (int r = 0; r < repeticoes; r++) {
+                    for (LocalDate dia : dias) {
+                        long t0 = System.nanoTime();
+                        forma.getValue().apply(dia);
+                        lat[n++] = System.nanoTime() - t0;
+                    }
+                }
+                double porChamada = (double) (comandos.get() - cmd0) / lat.length;
+                long total = Arrays.stream(lat).sum();
+                Arrays.sort(lat);
+                System.out.printf("%-24s %9d %12.1f %9.3f %9.3f %9.3f %9.1f%n", forma.getKey(), lat.length,
+                        porChamada, LoadDriver.percentile(lat, 50), LoadDriver.percentile(lat, 90),
+                        LoadDriver.percentile(lat, 99), total / 1e6);
+            }
+            System.out.printf("%ndivergências entre as formas: %d%n", divergencias);
+        } finally {
+            single.destroy();
+        }
+    }
+
+    /** As consultas separadas de getResumoDia antes do CTE (5 idas ao banco). */
+    static Map<String, Object> resumoPorMetrica(JdbcTemplate jdbc, LocalDate dia) {
+        OffsetDateTime inicio = DateTimeUtils.startOfDay(dia);
+        OffsetDateTime fim = DateTimeUtils.startOfNextDay(dia);
+        Long vendas = jdbc.queryForObject("SELECT COUNT(*) FROM venda_cabecalho vc WHERE " + FILTRO, Long.class,
+                inicio, fim);
+        Long quantidade = jdbc.queryForObject(
+                "SELECT COALESCE(SUM(GREATEST(vi.quantidade - vi.quantidade_devolvida,0)),0) FROM venda_itens vi "
+                        + "JOIN venda_cabecalho vc ON vc.id = vi.venda_id WHERE " + FILTRO,
+                Long.class, inicio, fim);
+        Double receita = jdbc.queryForObject(
+                "SELECT COALESCE(SUM(GREATEST(vi.quantidade - vi.quantidade_devolvida,0) * vi.preco_unitario),0) "
+                        + "FROM venda_itens vi JOIN venda_cabecalho vc ON vc.id = vi.venda_id WHERE " + FILTRO,
+                Double.class, inicio, fim);
+        Map<String, Double> porPagamento = new HashMap<>();
+        porPagamento.put("dinheiro", 0.0);
+        porPagamento.put("cartao_credito", 0.0);
+        porPagamento.put("cartao_debito", 0.0);
+        porPagamento.put("pix", 0.0);
+        jdbc.query("SELECT vp.metodo, COALESCE(SUM(vp.valor),0) AS valor FROM venda_pagamentos vp "
+                + "JOIN venda_cabecalho vc ON vc.id = vp.venda_id WHERE " + FILTRO + " GROUP BY vp.metodo",
+                rs -> {
+                    porPagamento.merge(rs.getString("metodo"), rs.getDouble("valor"), Double::sum);
+                }, inicio, fim);
+        Long multiplo = jdbc.queryForObject("SELECT COUNT(*) FROM (SELECT vp.venda_id FROM venda_pagamentos vp "
+                + "JOIN venda_cabecalho vc ON vc.id = vp.venda_id WHERE " + FILTRO
+                + " GROUP BY vp.venda_id HAVING COUNT(*) > 1) t", Long.class, inicio, fim);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("data", dia.toString());
+        result.put("total_vendas", vendas);
+        result.put("quantidade_vendida", quantidade);
+        result.put("receita_total", receita);
+        result.put("por_pagamento", porPagamento);
+        result.put("vendas_com_multiplo_pagamento", multiplo);
+        return result;
+    }
+
+    /** Arredonda valores em reais para comparar somas feitas em ordens diferentes. */
+    private static Map<String, Object> normalizar(Map<String, Object> resumo) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        resumo.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> {
+            Object v = e.getValue();
+            if (v instanceof Double d) {
+                v = Math.round(d * 100) / 100.0;
+            } else if (v instanceof Number n) {
+                v = n.longValue();
+            } else if (v instanceof Map<?, ?> m) {
+                Map<String, Object> inner = new LinkedHashMap<>();
+                m.entrySet().stream().sorted(Map.Entry.comparingByKey((x, y) -> String.valueOf(x)
+                        .compareTo(String.valueOf(y))))
+                        .forEach(ie -> inner.put(String.valueOf(ie.getKey()),
+                                Math.round(((Number) ie.getValue()).doubleValue() * 100) / 100.0));
+                v = inner;
+            }
+            out.put(e.getKey(), v);
+        });
+        return out;
+    }
+
+    private static YearMonth ultimoMes(JdbcTemplate jdbc) {
+        OffsetDateTime ultima = jdbc.queryForObject("SELECT max(data_venda) FROM venda_cabecalho",
+                OffsetDateTime.class);
+        if (ultima == null)
+            throw new IllegalStateException("Nenhuma venda; rode o SyntheticDataGenerator antes.");
+        return YearMonth.from(DateTimeUtils.businessDay(ultima));
+    }
+
+    /** DataSource que conta os comandos preparados/criados (uma ida ao banco cada). */
+    private static DataSource counting(DataSource target, AtomicLong comandos) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (result instanceof Connection conn) {
+                        return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                new Class<?>[] { Connection.class }, (p2, m2, a2) -> {
+                                    String nome = m2.getName();
+                                    if (nome.equals("prepareStatement") || nome.equals("createStatement")
+                                            || nome.equals("prepareCall"))
+                                        comandos.incrementAndGet();
+                                    return invoke(conn, m2, a2);
+                                });
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
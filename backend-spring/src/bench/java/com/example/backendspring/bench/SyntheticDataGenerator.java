@@ -0,0 +1,245 @@
+package com.example.backendspring.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Popula um Postgres local com anos de vendas sintéticas para os testes de
+ * carga (equivalente em Java do scripts/seed-complete.js, porém com volume de
+ * anos). Para cada dia cria uma sessão de caixa fechada, vendas em horário
+ * comercial com 1–5 itens e um ou dois pagamentos, a entrada em dinheiro de
+ * cada venda à vista e algumas entradas/retiradas manuais.
+ *
+ * Usa os produtos com código de barras BENCH-* (criados se não existirem,
+ * com estoque alto para o checkout do LoadDriver). As tabelas devem existir,
+ * ou seja, a aplicação já deve ter subido uma vez contra o banco. Após gerar,
+ * reinicie a aplicação para reconstruir os resumos diários do caixa.
+ *
+ * <pre>
+ * --url jdbc:postgresql://localhost:5432/postgres --user postgres --password ...
+ * --years 3 --vendas-dia 40 --produtos 300 --seed 1
+ * </pre>
+ */
+public final class SyntheticDataGenerator {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Sao_Paulo");
+    private static final String BARCODE_PREFIX = "BENCH-";
+
+    private final SplittableRandom rnd;
+    private final int vendasPorDia;
+
+    private SyntheticDataGenerator(long seed, int vendasPorDia) {
+        this.rnd = new SplittableRandom(seed);
+        this.vendasPorDia = vendasPorDia;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        Map<String, String> opts = LoadDriver.parseArgs(args);
+        String url = opts.getOrDefault("url", envOr("DB_URL", "jdbc:postgresql://localhost:5432/postgres"));
+        String user = opts.getOrDefault("user", envOr("DB_USERNAME", "postgres"));
+        String password = opts.getOrDefault("password", envOr("DB_PASSWORD", ""));
+        int years = Integer.parseInt(opts.getOrDefault("years", "3"));
+        int vendasDia = Integer.parseInt(opts.getOrDefault("vendas-dia", "40"));
+        int produtos = Integer.parseInt(opts.getOrDefault("produtos", "300"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "1"));
+
+        SyntheticDataGenerator gen = new SyntheticDataGenerator(seed, vendasDia);
+        try (Connection conn = DriverManager.getConnection(url, user, password)) {
+            conn.setAutoCommit(false);
+            List<double[]> catalogo = gen.ensureProducts(conn, produtos);
+            conn.commit();
+
+            LocalDate hoje = LocalDate.now(ZONE);
+            LocalDate dia = hoje.minusYears(years);
+            long inicio = System.nanoTime();
+            int dias = 0;
+            long vendas = 0;
+            // o dia de hoje fica livre para o caixa aberto do teste de carga
+            while (dia.isBefore(hoje)) {
+                vendas += gen.generateDay(conn, dia, catalogo);
+                conn.commit();
+                dia = dia.plusDays(1);
+                if (++dias % 30 == 0) {
+                    System.out.printf("%s: %d dias, %d vendas%n", dia, dias, vendas);
+                }
+            }
+            System.out.printf("Concluído: %d dias, %d vendas em %.1fs%n", dias, vendas,
+                    (System.nanoTime() - inicio) / 1e9);
+        }
+    }
+
+    /** Garante {@code n} produtos BENCH-*; devolve pares {id, preço}. */
+    private List<double[]> ensureProducts(Connection conn, int n) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO produtos (nome, codigo_barras, preco_venda, quantidade_estoque) VALUES (?, ?, ?, ?) "
+                        + "ON CONFLICT (codigo_barras) DO NOTHING")) {
+            for (int i = 1; i <= n; i++) {
+                ps.setString(1, "Produto Benchmark " + i);
+                ps.setString(2, String.format("%s%06d", BARCODE_PREFIX, i));
+                ps.setDouble(3, Math.round(rnd.nextDouble(1.5, 120) * 100) / 100.0);
+                ps.setInt(4, 1_000_000);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        List<double[]> catalogo = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT id, preco_venda FROM produtos WHERE codigo_barras LIKE ? ORDER BY id")) {
+            ps.setString(1, BARCODE_PREFIX + "%");
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    catalogo.add(new double[] { rs.getLong(1), rs.getDouble(2) });
+                }
+            }
+        }
+        return catalogo;
+    }
+
+    private long generateDay(Connection conn, LocalDate dia, List<double[]> catalogo) throws SQLException {
+        boolean fimDeSemana = dia.getDayOfWeek() == DayOfWeek.SATURDAY || dia.getDayOfWeek() == DayOfWeek.SUNDAY;
+        int horaFim = fimDeSemana ? 12 : 18;
+        OffsetDateTime abertura = dia.atTime(8, 0).atZone(ZONE).toOffsetDateTime();
+        OffsetDateTime fechamento = dia.atTime(horaFim, 30).atZone(ZONE).toOffsetDateTime();
+        int quantidade = fimDeSemana ? Math.max(1, vendasPorDia / 2) : vendasPorDia;
+        double saldoInicial = 100.0;
+
+        long caixaId;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO status_caixa (aberto, data_abertura, data_fechamento, saldo_inicial, version, "
+                        + "criado_em, atualizado_em) VALUES (false, ?, ?, ?, 0, ?, ?) RETURNING id")) {
+            ps.setObject(1, abertura);
+            ps.setObject(2, fechamento);
+            ps.setDouble(3, saldoInicial);
+            ps.setObject(4, abertura);
+            ps.setObject(5, fechamento);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                caixaId = rs.getLong(1);
+            }
+        }
+
+        double dinheiro = 0;
+        try (PreparedStatement venda = conn.prepareStatement(
+                "INSERT INTO venda_cabecalho (data_venda, subtotal, desconto, acrescimo, total_final, caixa_status_id) "
+                        + "VALUES (?, ?, 0, 0, ?, ?) RETURNING id");
+                PreparedStatement item = conn.prepareStatement(
+                        "INSERT INTO venda_itens (venda_id, produto_id, quantidade, preco_unitario, preco_total) "
+                                + "VALUES (?, ?, ?, ?, ?)");
+                PreparedStatement pagamento = conn.prepareStatement(
+                        "INSERT INTO venda_pagamentos (venda_id, metodo, valor, troco, caixa_status_id) "
+                                + "VALUES (?, ?, ?, ?, ?)");
+                PreparedStatement mov = conn.prepareStatement(
+                        "INSERT INTO caixa_movimentacoes (tipo, valor, descricao, caixa_status_id, data_movimento, "
+                                + "criado_em) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int v = 0; v < quantidade; v++) {
+                OffsetDateTime quando = abertura.plusSeconds(rnd.nextLong((horaFim - 8) * 3600L));
+                int nItens = 1 + rnd.nextInt(5);
+                long[] ids = new long[nItens];
+                int[] qtds = new int[nItens];
+                double[] precos = new double[nItens];
+                double total = 0;
+                for (int i = 0; i < nItens; i++) {
+                    double[] p = catalogo.get(rnd.nextInt(catalogo.size()));
+                    ids[i] = (long) p[0];
+                    qtds[i] = 1 + rnd.nextInt(3);
+                    precos[i] = p[1];
+                    total += p[1] * qtds[i];
+                }
+                total = Math.round(total * 100) / 100.0;
+
+                venda.setObject(1, quando);
+                venda.setDouble(2, total);
+                venda.setDouble(3, total);
+                venda.setLong(4, caixaId);
+                long vendaId;
+                try (ResultSet rs = venda.executeQuery()) {
+                    rs.next();
+                    vendaId = rs.getLong(1);
+                }
+                for (int i = 0; i < nItens; i++) {
+                    item.setLong(1, vendaId);
+                    item.setLong(2, ids[i]);
+                    item.setInt(3, qtds[i]);
+                    item.setDouble(4, precos[i]);
+                    item.setDouble(5, precos[i] * qtds[i]);
+                    item.addBatch();
+                }
+
+                // 60% das vendas com dois métodos, como no seed-complete.js
+                String metodo1 = BenchSupport.METODOS[rnd.nextInt(BenchSupport.METODOS.length)];
+                double valor1 = total;
+                if (rnd.nextInt(100) < 60 && total > 2) {
+                    valor1 = Math.round(total * rnd.nextDouble(0.3, 0.7) * 100) / 100.0;
+                    String metodo2 = "dinheiro".equals(metodo1) ? "pix" : "dinheiro";
+                    dinheiro += addPagamento(pagamento, mov, vendaId, caixaId, metodo2,
+                            Math.round((total - valor1) * 100) / 100.0, quando);
+                }
+                dinheiro += addPagamento(pagamento, mov, vendaId, caixaId, metodo1, valor1, quando);
+            }
+
+            // movimentações manuais do dia
+            int manuais = rnd.nextInt(4);
+            for (int i = 0; i < manuais; i++) {
+                boolean entrada = rnd.nextBoolean();
+                double valor = Math.round(rnd.nextDouble(5, 80) * 100) / 100.0;
+                OffsetDateTime quando = abertura.plusSeconds(rnd.nextLong((horaFim - 8) * 3600L));
+                mov.setString(1, entrada ? "entrada" : "retirada");
+                mov.setDouble(2, valor);
+                mov.setString(3, entrada ? "Reforço de troco" : "Sangria");
+                mov.setLong(4, caixaId);
+                mov.setObject(5, quando);
+                mov.setObject(6, quando);
+                mov.addBatch();
+                dinheiro += entrada ? valor : -valor;
+            }
+            item.executeBatch();
+            pagamento.executeBatch();
+            mov.executeBatch();
+        }
+
+        double esperado = Math.round((saldoInicial + dinheiro) * 100) / 100.0;
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("UPDATE status_caixa SET saldo_esperado = " + esperado + ", saldo_contado = " + esperado
+                    + ", variacao = 0 WHERE id = " + caixaId);
+        }
+        return quantidade;
+    }
+
+    /** Registra o pagamento; à vista gera a entrada no caixa. Devolve o dinheiro recebido. */
+    private static double addPagamento(PreparedStatement pagamento, PreparedStatement mov, long vendaId, long caixaId,
+            String metodo, double valor, OffsetDateTime quando) throws SQLException {
+        pagamento.setLong(1, vendaId);
+        pagamento.setString(2, metodo);
+        pagamento.setDouble(3, valor);
+        pagamento.setDouble(4, 0.0);
+        pagamento.setLong(5, caixaId);
+        pagamento.addBatch();
+        if (!"dinheiro".equals(metodo))
+            return 0;
+        mov.setString(1, "entrada");
+        mov.setDouble(2, valor);
+        mov.setString(3, "Venda " + vendaId);
+        mov.setLong(4, caixaId);
+        mov.setObject(5, quando);
+        mov.setObject(6, quando);
+        mov.addBatch();
+        return valor;
+    }
+
+    static String envOr(String name, String def) {
+        String v = System.getenv(name);
+        return v == null || v.isBlank() ? def : v;
+    }
+}
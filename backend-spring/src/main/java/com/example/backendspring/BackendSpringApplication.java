@@ -5,11 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ConfigurationPropertiesScan
 @EntityScan("com.example.backendspring")
 @EnableJpaRepositories("com.example.backendspring")
+@EnableScheduling
 public class BackendSpringApplication {
     public static void main(String[] args) {
         SpringApplication.run(BackendSpringApplication.class, args);
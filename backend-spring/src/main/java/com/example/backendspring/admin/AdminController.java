@@ -1,5 +1,7 @@
 package com.example.backendspring.admin;
 
+import com.example.backendspring.config.DataSourcePoolMetrics;
+import com.example.backendspring.security.JwtService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
@@ -20,6 +22,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 public class AdminController {
 
     private final AdminService adminService;
+    private final DataSourcePoolMetrics dataSourcePoolMetrics;
+    private final JwtService jwtService;
 
     private static final String ROLE_ADMIN = "hasRole('ADMIN')";
     private static final String KEY_MESSAGE = "message";
@@ -295,4 +299,16 @@ public class AdminController {
     public ResponseEntity<Map<String, Object>> toolsStatus() {
         return ResponseEntity.ok(adminService.checkToolStatus());
     }
+
+    @GetMapping("/db-pool")
+    @PreAuthorize(ROLE_ADMIN)
+    public ResponseEntity<Map<String, Object>> dbPoolStatus() {
+        return ResponseEntity.ok(dataSourcePoolMetrics.snapshot());
+    }
+
+    @GetMapping("/jwt-cache")
+    @PreAuthorize(ROLE_ADMIN)
+    public ResponseEntity<Map<String, Object>> jwtCacheStatus() {
+        return ResponseEntity.ok(jwtService.cacheStats());
+    }
 }
@@ -1,5 +1,7 @@
 package com.example.backendspring.admin;
 
+import com.example.backendspring.product.ProductCatalogCache;
+import com.example.backendspring.sale.SaleDailyRollup;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +29,8 @@ public class AdminService {
     private static final Logger log = LoggerFactory.getLogger(AdminService.class);
 
     private final JdbcTemplate jdbcTemplate;
+    private final ProductCatalogCache catalogCache;
+    private final SaleDailyRollup saleDailyRollup;
 
     @Value("${app.backupDir:backups}")
     private String backupDirConfig;
@@ -503,6 +507,7 @@ public class AdminService {
                 log.warn("⚠️ pg_restore teve warnings de extensões, mas continuando (código {})", code);
                 log.warn("📋 Detalhes: {}", procOut);
                 log.info("✅ Restore do backup concluído com warnings de extensões");
+                aposSubstituirDados();
                 return;
             }
 
@@ -533,6 +538,26 @@ public class AdminService {
         }
 
         log.info("✅ Restore do backup concluído com sucesso");
+        aposSubstituirDados();
+    }
+
+    /**
+     * Restore e reset trocam os dados por baixo da aplicação: descarta os
+     * caches montados a partir das tabelas e reconstrói venda_resumo_dia, que
+     * o restore não substitui (dumps antigos não têm a tabela). Dentro de
+     * transação (reset) tudo vale após o commit; no restore, que roda fora
+     * dela, na hora. Se a reconstrução falhar depois de um restore, a
+     * próxima subida a refaz (SaleDailyRollup.rebuildOnStartup detecta o
+     * resumo divergente).
+     */
+    private void aposSubstituirDados() {
+        catalogCache.invalidateAll();
+        try {
+            int dias = saleDailyRollup.rebuild();
+            log.info("Resumo diário de vendas reconstruído: {} dias", dias);
+        } catch (Exception e) {
+            log.warn("Falha ao reconstruir resumo diário de vendas: {}", e.getMessage());
+        }
     }
 
     @Transactional
@@ -681,6 +706,7 @@ public class AdminService {
         } catch (Exception e) {
             log.warn("Falha ao garantir admin pós-reset: {}", e.getMessage());
         }
+        aposSubstituirDados();
     }
 
     private String resolveEffectiveJdbcUrl() {
@@ -0,0 +1,74 @@
+package com.example.backendspring.caixa;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Totais de movimentações do caixa calculados no Postgres em uma única
+ * agregação, sem materializar as linhas na JVM.
+ *
+ * Mantém a semântica do cálculo em memória do CaixaController:
+ * <ul>
+ * <li>venda em dinheiro vinculada a uma sessão cujo valor (2 casas) coincide
+ * com uma entrada da mesma sessão não é somada em sum_vendas (entradaCashKeys);</li>
+ * <li>entradas automáticas são as entradas cuja descrição contém "venda";</li>
+ * <li>com intervalo informado, pagamentos repetidos (mesma venda, método e
+ * valor) contam uma única vez, como na deduplicação por id composto.</li>
+ * </ul>
+ * Pagamentos negativos (devoluções, rotulados "(devolvido)") entram com o
+ * próprio sinal.
+ */
+@Service
+@RequiredArgsConstructor
+public class CaixaAggregationService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Totais totalizar(MovimentacoesFiltro filtro) {
+        List<Object> args = new ArrayList<>();
+        String sql = "WITH " + filtro.toCte(args) + ", "
+                + "chaves_entrada AS (SELECT DISTINCT caixa_status_id, ROUND(CAST(valor AS NUMERIC), 2) AS valor_key "
+                + "FROM filtradas WHERE tipo = 'entrada' AND caixa_status_id IS NOT NULL AND valor IS NOT NULL) "
+                + "SELECT COALESCE(SUM(f.valor) FILTER (WHERE f.tipo = 'entrada'), 0) AS sum_entradas, "
+                + "COALESCE(SUM(f.valor) FILTER (WHERE f.tipo = 'retirada'), 0) AS sum_retiradas, "
+                + "COALESCE(SUM(f.valor) FILTER (WHERE f.tipo = 'venda' AND k.caixa_status_id IS NULL), 0) AS sum_vendas, "
+                + "COALESCE(SUM(f.valor) FILTER (WHERE f.tipo = 'venda'), 0) AS sum_vendas_net, "
+                + "COALESCE(SUM(f.valor) FILTER (WHERE f.tipo = 'entrada' AND LOWER(f.descricao) LIKE '%venda%'), 0) AS sum_entradas_auto, "
+                + "COUNT(*) AS total "
+                + "FROM filtradas f LEFT JOIN chaves_entrada k ON f.tipo = 'venda' AND f.metodo = 'dinheiro' "
+                + "AND k.caixa_status_id = f.caixa_status_id AND k.valor_key = ROUND(CAST(f.valor AS NUMERIC), 2)";
+
+        return jdbcTemplate.queryForObject(sql, (rs, i) -> new Totais(
+                rs.getDouble("sum_entradas"),
+                rs.getDouble("sum_retiradas"),
+                rs.getDouble("sum_vendas"),
+                rs.getDouble("sum_vendas_net"),
+                rs.getDouble("sum_entradas_auto"),
+                rs.getLong("total")), args.toArray());
+    }
+
+    public static class Totais {
+        public final double sumEntradas;
+        public final double sumRetiradas;
+        public final double sumVendas;
+        public final double sumVendasNet;
+        public final double sumEntradasAuto;
+        public final double sumEntradasManuais;
+        public final long total;
+
+        Totais(double sumEntradas, double sumRetiradas, double sumVendas, double sumVendasNet,
+                double sumEntradasAuto, long total) {
+            this.sumEntradas = sumEntradas;
+            this.sumRetiradas = sumRetiradas;
+            this.sumVendas = sumVendas;
+            this.sumVendasNet = sumVendasNet;
+            this.sumEntradasAuto = sumEntradasAuto;
+            this.sumEntradasManuais = Math.max(0.0, sumEntradas - sumEntradasAuto);
+            this.total = total;
+        }
+    }
+}
@@ -28,6 +28,9 @@ public class CaixaController {
     private final UserRepository userRepository;
     // legacy saleRepository removed from active use
     private final com.example.backendspring.sale.SaleOrderRepository saleOrderRepository;
+    private final CaixaSessionLedger sessionLedger;
+    private final CaixaAggregationService aggregationService;
+    private final CaixaPaginacaoService paginacaoService;
     @PersistenceContext
     private EntityManager em;
 
@@ -167,7 +170,8 @@ public class CaixaController {
             @RequestParam(value = "hora_inicio", required = false) String horaInicio,
             @RequestParam(value = "hora_fim", required = false) String horaFim,
             @RequestParam(value = "page", required = false) Integer page,
-            @RequestParam(value = "size", required = false) Integer size) {
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         try {
             MovimentacoesRequest request = MovimentacoesRequest.builder()
                     .data(data).periodoInicio(periodoInicio).periodoFim(periodoFim)
@@ -176,10 +180,22 @@ public class CaixaController {
                     .horaFim(horaFim).page(page).size(size).build();
             MovimentacoesQueryParams params = buildQueryParams(request);
 
+            // Totais calculados no banco; não é preciso montar as linhas
+            if (Boolean.TRUE.equals(params.aggs)) {
+                return buildAggregationsResponse(params);
+            }
+
+            // Página ordenada e cortada no banco (keyset com cursor, offset com page)
+            if (!Boolean.TRUE.equals(params.all)) {
+                return buildPaginatedResponse(params, cursor);
+            }
+
             java.util.List<java.util.Map<String, Object>> lista = fetchMovimentacoesList(params);
             var filtrada = applyFilters(lista, params.tipo, params.metodoPagamento, params.tIni, params.tFim);
 
-            return buildMovimentacoesResponse(params, filtrada);
+            return buildAllItemsResponse(params, filtrada);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(KEY_ERROR, e.getMessage()));
         } catch (Exception e) {
             return buildErrorResponse();
         }
@@ -485,7 +501,7 @@ public class CaixaController {
                 java.util.Map<String, Object> row = buildMovimentacaoRow(m);
                 lista.add(row);
             }
-        }, () -> lista.addAll(buildManualMovRows(null, null, null)));
+        }, () -> lista.addAll(buildManualMovRows(null, toLocalDateSaoPaulo(fromTs), toLocalDateSaoPaulo(toTs))));
 
         return lista;
     }
@@ -512,7 +528,7 @@ public class CaixaController {
             for (var vo : orders) {
                 lista.addAll(buildSaleOrderPaymentRows(vo));
             }
-        }, () -> lista.addAll(buildSaleOrderRows(null, null, null)));
+        }, () -> lista.addAll(buildSaleOrderRows(null, toLocalDateSaoPaulo(fromTs), toLocalDateSaoPaulo(toTs))));
 
         return lista;
     }
@@ -522,22 +538,26 @@ public class CaixaController {
         java.util.List<java.util.Map<String, Object>> rows = new java.util.ArrayList<>();
 
         for (var pg : vo.getPagamentos()) {
-            java.util.Map<String, Object> row = new java.util.LinkedHashMap<>();
-            row.put("id", vo.getId());
-            row.put("tipo", TIPO_VENDA);
-            row.put(KEY_VALOR, pg.getValor());
-            row.put(KEY_PAGAMENTO_VALOR, pg.getValor());
-            row.put(KEY_TOTAL_VENDA, vo.getTotalFinal());
-
-            addSaleDescriptionToRow(row, vo, pg);
-            addSaleDetailsToRow(row, vo, pg);
-
-            rows.add(row);
+            rows.add(buildSaleOrderPaymentRow(vo, pg));
         }
 
         return rows;
     }
 
+    private java.util.Map<String, Object> buildSaleOrderPaymentRow(com.example.backendspring.sale.SaleOrder vo,
+            com.example.backendspring.sale.SalePayment pg) {
+        java.util.Map<String, Object> row = new java.util.LinkedHashMap<>();
+        row.put("id", vo.getId());
+        row.put("tipo", TIPO_VENDA);
+        row.put(KEY_VALOR, pg.getValor());
+        row.put(KEY_PAGAMENTO_VALOR, pg.getValor());
+        row.put(KEY_TOTAL_VENDA, vo.getTotalFinal());
+
+        addSaleDescriptionToRow(row, vo, pg);
+        addSaleDetailsToRow(row, vo, pg);
+        return row;
+    }
+
     private void addSaleDescriptionToRow(java.util.Map<String, Object> row,
             com.example.backendspring.sale.SaleOrder vo, com.example.backendspring.sale.SalePayment pg) {
         var nf = java.text.NumberFormat.getCurrencyInstance(java.util.Locale.forLanguageTag(LOCALE_PT_BR));
@@ -693,71 +713,14 @@ public class CaixaController {
         session.setAtualizadoEm(agora);
     }
 
-    private void calculateAndSetCumulativeValues(CaixaStatus currentSession) {
+    private void calculateAndSetCumulativeValues(CaixaStatus currentSession, Double variacaoAnterior) {
         try {
-            var allSessions = caixaStatusRepository.findAll().stream()
-                    .filter(s -> s.getId() != null)
-                    .sorted(java.util.Comparator.comparing(CaixaStatus::getId))
-                    .toList();
-
-            CumulativeCalculationResult result = calculateCumulativeValues(allSessions, currentSession);
-            currentSession.setVariacaoAcumulada(result.runningTotal);
-            currentSession.setDeficitNaoRepostoAcumulada(result.deficit);
+            sessionLedger.onSessionClosed(currentSession, variacaoAnterior);
         } catch (Exception e) {
             log.warn("Error calculating cumulative values for session {}: {}", currentSession.getId(), e.getMessage());
         }
     }
 
-    private CumulativeCalculationResult calculateCumulativeValues(java.util.List<CaixaStatus> allSessions,
-            CaixaStatus currentSession) {
-        CumulativeAccumulator accumulator = new CumulativeAccumulator();
-
-        for (var session : allSessions) {
-            if (session.getId().equals(currentSession.getId())) {
-                processCurrentSessionValues(currentSession, accumulator);
-                break;
-            } else {
-                processOtherSessionValues(session, accumulator);
-            }
-        }
-
-        double deficit = Math.max(0.0, accumulator.totalNeg - accumulator.totalPos);
-        return new CumulativeCalculationResult(accumulator.running, deficit);
-    }
-
-    private void processCurrentSessionValues(CaixaStatus currentSession, CumulativeAccumulator accumulator) {
-        double variacao = currentSession.getVariacao() == null ? 0.0 : currentSession.getVariacao();
-        accumulator.running += variacao;
-
-        if (currentSession.getVariacao() != null) {
-            updatePositiveNegativeTotals(currentSession.getVariacao(), accumulator);
-        }
-    }
-
-    private void processOtherSessionValues(CaixaStatus session, CumulativeAccumulator accumulator) {
-        double variacao = session.getVariacao() == null ? 0.0 : session.getVariacao();
-        accumulator.running += variacao;
-
-        if (session.getVariacao() != null) {
-            updatePositiveNegativeTotals(session.getVariacao(), accumulator);
-        }
-    }
-
-    private void updatePositiveNegativeTotals(Double variacao, CumulativeAccumulator accumulator) {
-        if (variacao > 0) {
-            accumulator.totalPos += variacao;
-        } else {
-            accumulator.totalNeg += -variacao;
-        }
-    }
-
-    // Helper class for cumulative calculations
-    private static class CumulativeAccumulator {
-        double running = 0.0;
-        double totalPos = 0.0;
-        double totalNeg = 0.0;
-    }
-
     private Map<String, Object> buildClosingResponse(CaixaStatus session) {
         java.util.Map<String, Object> resp = new java.util.LinkedHashMap<>();
         resp.put("id", session.getId());
@@ -773,17 +736,6 @@ public class CaixaController {
         return resp;
     }
 
-    // Helper class for cumulative calculation results
-    private static class CumulativeCalculationResult {
-        final double runningTotal;
-        final double deficit;
-
-        CumulativeCalculationResult(double runningTotal, double deficit) {
-            this.runningTotal = runningTotal;
-            this.deficit = deficit;
-        }
-    }
-
     // =================
     // FIM DOS MÉTODOS AUXILIARES PARA FECHAMENTO
     // =================
@@ -865,24 +817,10 @@ public class CaixaController {
     // FIM DOS MÉTODOS AUXILIARES PARA DIAGNÓSTICO
     // =================
 
-    private ResponseEntity<java.util.Map<String, Object>> buildMovimentacoesResponse(
-            MovimentacoesQueryParams params, java.util.List<java.util.Map<String, Object>> filtrada) {
-
-        if (Boolean.TRUE.equals(params.aggs)) {
-            return buildAggregationsResponse(params, filtrada);
-        }
-
-        if (Boolean.TRUE.equals(params.all)) {
-            return buildAllItemsResponse(filtrada);
-        }
-
-        return buildPaginatedResponse(params, filtrada);
-    }
-
     private ResponseEntity<java.util.Map<String, Object>> buildAggregationsResponse(
-            MovimentacoesQueryParams params, java.util.List<java.util.Map<String, Object>> filtrada) {
+            MovimentacoesQueryParams params) {
 
-        MovimentacoesSums sums = calculateMovimentacoesSums(filtrada);
+        CaixaAggregationService.Totais sums = aggregationService.totalizar(toFiltro(params));
 
         java.util.Map<String, Object> aggsMap = new java.util.LinkedHashMap<>();
         aggsMap.put(KEY_SUM_ENTRADAS, sums.sumEntradas);
@@ -891,123 +829,26 @@ public class CaixaController {
         aggsMap.put("sum_vendas_net", sums.sumVendasNet);
         aggsMap.put(KEY_SUM_ENTRADAS_AUTOMATICAS, sums.sumEntradasAuto);
         aggsMap.put(KEY_SUM_ENTRADAS_MANUAIS, sums.sumEntradasManuais);
-        aggsMap.put(KEY_TOTAL, filtrada.size());
+        aggsMap.put(KEY_TOTAL, sums.total);
 
-        logDiagnosticAggs(params, sums, filtrada.size());
+        logDiagnosticAggs(params, sums);
 
         return ResponseEntity.ok(aggsMap);
     }
 
-    private static class MovimentacoesSums {
-        double sumEntradas;
-        double sumRetiradas;
-        double sumVendas;
-        double sumVendasNet;
-        double sumEntradasAuto;
-        double sumEntradasManuais;
-    }
-
-    private MovimentacoesSums calculateMovimentacoesSums(java.util.List<java.util.Map<String, Object>> filtrada) {
-        MovimentacoesSums sums = new MovimentacoesSums();
-
-        sums.sumEntradas = calculateSumByType(filtrada, TIPO_ENTRADA);
-        sums.sumRetiradas = calculateSumByType(filtrada, TIPO_RETIRADA);
-
-        java.util.Set<String> entradaCashKeys = buildEntradaCashKeys(filtrada);
-        sums.sumVendas = calculateVendasSum(filtrada, entradaCashKeys);
-        sums.sumVendasNet = calculateVendasNetSum(filtrada);
-        sums.sumEntradasAuto = calculateEntradasAutoSum(filtrada);
-        sums.sumEntradasManuais = Math.max(0.0, sums.sumEntradas - sums.sumEntradasAuto);
-
-        return sums;
-    }
-
-    private double calculateSumByType(java.util.List<java.util.Map<String, Object>> filtrada, String tipo) {
-        return filtrada.stream()
-                .filter(m -> tipo.equals(m.get("tipo")))
-                .mapToDouble(m -> ((Number) m.get(KEY_VALOR)).doubleValue())
-                .sum();
-    }
-
-    private java.util.Set<String> buildEntradaCashKeys(java.util.List<java.util.Map<String, Object>> filtrada) {
-        return filtrada.stream()
-                .filter(m -> TIPO_ENTRADA.equals(m.get("tipo")))
-                .filter(m -> m.get(KEY_CAIXA_STATUS_ID) != null && m.get(KEY_VALOR) != null)
-                .map(m -> {
-                    String caixaId = m.get(KEY_CAIXA_STATUS_ID).toString();
-                    double valor = ((Number) m.get(KEY_VALOR)).doubleValue();
-                    String key = caixaId + "|" + String.format("%.2f", valor);
-                    log.debug("DEDUP: Criando chave entrada em dinheiro - caixa_id: {}, valor: {}, key: {}", caixaId,
-                            valor, key);
-                    return key;
-                })
-                .collect(java.util.stream.Collectors.toSet());
-    }
-
-    private double calculateVendasSum(java.util.List<java.util.Map<String, Object>> filtrada,
-            java.util.Set<String> entradaCashKeys) {
-        return filtrada.stream()
-                .filter(m -> TIPO_VENDA.equals(m.get("tipo")))
-                .mapToDouble(m -> calculateVendaValue(m, entradaCashKeys))
-                .sum();
-    }
-
-    private double calculateVendaValue(java.util.Map<String, Object> m, java.util.Set<String> entradaCashKeys) {
-        try {
-            Object metodo = m.get(KEY_METODO_PAGAMENTO);
-            Object caixaId = m.get(KEY_CAIXA_STATUS_ID);
-            double val = ((Number) m.get(KEY_VALOR)).doubleValue();
-
-            // Para vendas em dinheiro, verificar se já existe uma entrada correspondente no
-            // caixa
-            if (VALOR_DINHEIRO.equals(metodo) && caixaId != null) {
-                String key = caixaId.toString() + "|" + String.format("%.2f", val);
-                if (entradaCashKeys.contains(key)) {
-                    log.debug("DEDUP: Excluindo venda em dinheiro duplicada - caixa_id: {}, valor: {}", caixaId, val);
-                    return 0.0; // skip duplicate - dinheiro já contado como entrada
-                }
-            }
-            return val;
-        } catch (Exception e) {
-            log.warn("Erro ao calcular valor da venda: {}", e.getMessage());
-            return 0.0;
-        }
-    }
-
-    private double calculateVendasNetSum(java.util.List<java.util.Map<String, Object>> filtrada) {
-        return safeCalculate(() -> filtrada.stream()
-                .filter(m -> TIPO_VENDA.equals(m.get("tipo")))
-                .mapToDouble(m -> {
-                    Object adj = m.get("adjusted_total");
-                    if (adj instanceof Number number) {
-                        return number.doubleValue();
-                    }
-                    return ((Number) m.get(KEY_VALOR)).doubleValue();
-                })
-                .sum(), 0.0);
-    }
-
-    private double calculateEntradasAutoSum(java.util.List<java.util.Map<String, Object>> filtrada) {
-        return safeCalculate(() -> filtrada.stream()
-                .filter(m -> TIPO_ENTRADA.equals(m.get("tipo")))
-                .filter(this::isEntradaAuto)
-                .mapToDouble(m -> ((Number) m.get(KEY_VALOR)).doubleValue())
-                .sum(), 0.0);
-    }
-
-    private boolean isEntradaAuto(java.util.Map<String, Object> m) {
-        try {
-            Object d = m.get(KEY_DESCRICAO);
-            if (d == null)
-                return false;
-            String s = d.toString().toLowerCase();
-            return s.contains(TIPO_VENDA);
-        } catch (Exception e) {
-            return false;
-        }
+    private static MovimentacoesFiltro toFiltro(MovimentacoesQueryParams params) {
+        return MovimentacoesFiltro.builder()
+                .fromTs(params.fromTs)
+                .toTs(params.toTs)
+                .tipo(params.tipo)
+                .metodoPagamento(params.metodoPagamento)
+                .horaInicio(params.tIni)
+                .horaFim(params.tFim)
+                .build();
     }
 
-    private void logDiagnosticAggs(MovimentacoesQueryParams params, MovimentacoesSums sums, int totalItems) {
+    private void logDiagnosticAggs(MovimentacoesQueryParams params, CaixaAggregationService.Totais sums) {
+        long totalItems = sums.total;
         log.debug(
                 "DIAG_CAIXA_AGGS: periodoInicio={} periodoFim={} tipo={} metodo_pagamento={} -> sums: entradas={} retiradas={} vendas={} totalItems={}",
                 params.inicio, params.fim, params.tipo, params.metodoPagamento,
@@ -1020,9 +861,9 @@ public class CaixaController {
     }
 
     private ResponseEntity<java.util.Map<String, Object>> buildAllItemsResponse(
-            java.util.List<java.util.Map<String, Object>> filtrada) {
+            MovimentacoesQueryParams params, java.util.List<java.util.Map<String, Object>> filtrada) {
 
-        MovimentacoesSums sums = calculateMovimentacoesSums(filtrada);
+        CaixaAggregationService.Totais sums = aggregationService.totalizar(toFiltro(params));
 
         java.util.Map<String, Object> bodyAll = new java.util.LinkedHashMap<>();
         bodyAll.put(KEY_ITEMS, filtrada);
@@ -1040,28 +881,23 @@ public class CaixaController {
     }
 
     private ResponseEntity<java.util.Map<String, Object>> buildPaginatedResponse(
-            MovimentacoesQueryParams params, java.util.List<java.util.Map<String, Object>> filtrada) {
+            MovimentacoesQueryParams params, String cursor) {
 
-        MovimentacoesSums sums = calculateMovimentacoesSums(filtrada);
+        MovimentacoesFiltro filtro = toFiltro(params);
+        CaixaAggregationService.Totais sums = aggregationService.totalizar(filtro);
 
         int pageNum = (params.page == null || params.page < 1) ? 1 : params.page;
         int pageSize = (params.size == null || params.size < 1) ? 20 : params.size;
-        int fromIndex = (pageNum - 1) * pageSize;
-
-        if (fromIndex >= filtrada.size()) {
-            return buildEmptyPageResponse(pageNum, pageSize, filtrada.size(), sums);
-        }
-
-        int toIndex = Math.min(fromIndex + pageSize, filtrada.size());
-        var paged = filtrada.subList(fromIndex, toIndex);
-        boolean hasNext = toIndex < filtrada.size();
+        CaixaPaginacaoService.Pagina pagina = paginacaoService.buscar(filtro, cursor, (pageNum - 1) * pageSize,
+                pageSize);
 
         java.util.Map<String, Object> body = new java.util.LinkedHashMap<>();
-        body.put(KEY_ITEMS, paged);
-        body.put(KEY_TOTAL, filtrada.size());
-        body.put(KEY_HAS_NEXT, hasNext);
+        body.put(KEY_ITEMS, loadPageRows(pagina.linhas));
+        body.put(KEY_TOTAL, sums.total);
+        body.put(KEY_HAS_NEXT, pagina.hasNext);
         body.put(KEY_PAGE, pageNum);
         body.put(KEY_SIZE, pageSize);
+        body.put("nextCursor", pagina.nextCursor);
         body.put(KEY_SUM_ENTRADAS, sums.sumEntradas);
         body.put(KEY_SUM_RETIRADAS, sums.sumRetiradas);
         body.put(KEY_SUM_VENDAS, sums.sumVendas);
@@ -1069,17 +905,39 @@ public class CaixaController {
         return ResponseEntity.ok(body);
     }
 
-    private ResponseEntity<java.util.Map<String, Object>> buildEmptyPageResponse(
-            int pageNum, int pageSize, int totalSize, MovimentacoesSums sums) {
-        return ResponseEntity.ok(java.util.Map.of(
-                KEY_ITEMS, java.util.List.of(),
-                KEY_TOTAL, totalSize,
-                KEY_HAS_NEXT, false,
-                KEY_PAGE, pageNum,
-                KEY_SIZE, pageSize,
-                KEY_SUM_ENTRADAS, sums.sumEntradas,
-                KEY_SUM_RETIRADAS, sums.sumRetiradas,
-                KEY_SUM_VENDAS, sums.sumVendas));
+    /**
+     * Carrega apenas as movimentações e vendas da página, preservando a ordem
+     * devolvida pelo banco.
+     */
+    private java.util.List<java.util.Map<String, Object>> loadPageRows(
+            java.util.List<CaixaPaginacaoService.Linha> linhas) {
+        java.util.Set<Long> movIds = new java.util.HashSet<>();
+        java.util.Set<Long> vendaIds = new java.util.HashSet<>();
+        for (var l : linhas) {
+            (l.isVenda() ? vendaIds : movIds).add(l.id);
+        }
+        java.util.Map<Long, CaixaMovimentacao> movs = new java.util.HashMap<>();
+        movimentacaoRepository.findAllById(movIds).forEach(m -> movs.put(m.getId(), m));
+        java.util.Map<Long, com.example.backendspring.sale.SaleOrder> vendas = new java.util.HashMap<>();
+        saleOrderRepository.findAllById(vendaIds).forEach(vo -> vendas.put(vo.getId(), vo));
+
+        java.util.List<java.util.Map<String, Object>> rows = new java.util.ArrayList<>(linhas.size());
+        for (var l : linhas) {
+            if (l.isVenda()) {
+                var vo = vendas.get(l.id);
+                if (vo == null)
+                    continue;
+                vo.getPagamentos().stream()
+                        .filter(pg -> pg.getId() != null && pg.getId() == l.pagamentoId)
+                        .findFirst()
+                        .ifPresent(pg -> rows.add(buildSaleOrderPaymentRow(vo, pg)));
+            } else {
+                var m = movs.get(l.id);
+                if (m != null)
+                    rows.add(buildMovimentacaoRow(m));
+            }
+        }
+        return rows;
     }
 
     private ResponseEntity<java.util.Map<String, Object>> buildErrorResponse() {
@@ -1104,15 +962,6 @@ public class CaixaController {
         }
     }
 
-    private double safeCalculate(java.util.function.DoubleSupplier calculation, double defaultValue) {
-        try {
-            return calculation.getAsDouble();
-        } catch (Exception e) {
-            log.debug("Calculation failed, using default value", e);
-            return defaultValue;
-        }
-    }
-
     /**
      * Endpoint helper: retorna todas movimentações + vendas para uma data (no
      * timezone America/Sao_Paulo).
@@ -1560,8 +1409,8 @@ public class CaixaController {
                     org.springframework.data.domain.Sort.by("id").descending());
             var pg = caixaStatusRepository.findAll(pageable);
 
-            // Calculate metrics for all sessions
-            SessionMetrics metrics = calculateSessionMetrics();
+            // Cumulative/day metrics for the sessions on this page only
+            SessionMetrics metrics = calculateSessionMetrics(pg.getContent());
 
             // Build response items
             var items = buildSessionResponseItems(pg.getContent(), metrics);
@@ -1573,68 +1422,28 @@ public class CaixaController {
         }
     }
 
-    private SessionMetrics calculateSessionMetrics() {
-        // Load all sessions for cumulative/historical calculations
-        var allSessoes = caixaStatusRepository.findAll().stream()
-                .sorted(java.util.Comparator.comparing(CaixaStatus::getId))
-                .toList();
-
-        return new SessionMetrics(
-                calculateCumulativeMap(allSessoes),
-                calculateCumulativeTotal(allSessoes),
-                calculateDayVariacaoMap(allSessoes),
-                calculateDaySaldoInicialMap(allSessoes));
-    }
-
-    private java.util.Map<Long, Double> calculateCumulativeMap(java.util.List<CaixaStatus> allSessoes) {
+    private SessionMetrics calculateSessionMetrics(java.util.List<CaixaStatus> pageSessoes) {
+        // Acumulados vêm do ledger (status_caixa.variacao_acumulada e
+        // caixa_resumo_dia), sem carregar todas as sessões
         java.util.Map<Long, Double> cumulativeBeforeMap = new java.util.HashMap<>();
-        double running = 0.0;
-        for (var s : allSessoes) {
-            if (s.getId() != null) {
-                cumulativeBeforeMap.put(s.getId(), running);
-                running += (s.getVariacao() == null ? 0.0 : s.getVariacao());
-            }
+        java.util.Set<java.time.LocalDate> dias = new java.util.HashSet<>();
+        for (var s : pageSessoes) {
+            if (s.getId() != null)
+                cumulativeBeforeMap.put(s.getId(), CaixaSessionLedger.cumulativeBefore(s));
+            java.time.LocalDate d = CaixaSessionLedger.sessionDay(s);
+            if (d != null)
+                dias.add(d);
         }
-        return cumulativeBeforeMap;
-    }
-
-    private double calculateCumulativeTotal(java.util.List<CaixaStatus> allSessoes) {
-        return allSessoes.stream()
-                .mapToDouble(s -> s.getVariacao() == null ? 0.0 : s.getVariacao())
-                .sum();
-    }
 
-    private java.util.Map<java.time.LocalDate, Double> calculateDayVariacaoMap(java.util.List<CaixaStatus> allSessoes) {
         java.util.Map<java.time.LocalDate, Double> dayVariacaoMap = new java.util.HashMap<>();
-        for (var s : allSessoes) {
-            java.time.LocalDate d = extractSessionDate(s);
-            if (d != null) {
-                dayVariacaoMap.put(d,
-                        dayVariacaoMap.getOrDefault(d, 0.0) + (s.getVariacao() == null ? 0.0 : s.getVariacao()));
-            }
-        }
-        return dayVariacaoMap;
-    }
-
-    private java.util.Map<java.time.LocalDate, Double> calculateDaySaldoInicialMap(
-            java.util.List<CaixaStatus> allSessoes) {
         java.util.Map<java.time.LocalDate, Double> daySaldoInicialMap = new java.util.HashMap<>();
-        for (var s : allSessoes) {
-            java.time.LocalDate d = extractSessionDate(s);
-            if (d != null) {
-                daySaldoInicialMap.put(d, daySaldoInicialMap.getOrDefault(d, 0.0)
-                        + (s.getSaldoInicial() == null ? 0.0 : s.getSaldoInicial()));
-            }
-        }
-        return daySaldoInicialMap;
-    }
+        sessionLedger.resumoDosDias(dias).forEach((d, r) -> {
+            dayVariacaoMap.put(d, r.getVariacaoTotal());
+            daySaldoInicialMap.put(d, r.getSaldoInicialTotal());
+        });
 
-    private java.time.LocalDate extractSessionDate(CaixaStatus s) {
-        if (s.getDataAbertura() != null)
-            return s.getDataAbertura().toLocalDate();
-        else if (s.getDataFechamento() != null)
-            return s.getDataFechamento().toLocalDate();
-        return null;
+        return new SessionMetrics(cumulativeBeforeMap, sessionLedger.cumulativeAll(), dayVariacaoMap,
+                daySaldoInicialMap);
     }
 
     private java.util.List<java.util.Map<String, Object>> buildSessionResponseItems(
@@ -1674,7 +1483,7 @@ public class CaixaController {
     }
 
     private void addDayAggregates(java.util.Map<String, Object> m, CaixaStatus cs, SessionMetrics metrics) {
-        java.time.LocalDate d = extractSessionDate(cs);
+        java.time.LocalDate d = CaixaSessionLedger.sessionDay(cs);
         if (d != null) {
             m.put(KEY_DAY_VARIACAO_TOTAL, metrics.dayVariacaoMap.getOrDefault(d, 0.0));
             m.put(KEY_DAY_SALDO_INICIAL_TOTAL, metrics.daySaldoInicialMap.getOrDefault(d, 0.0));
@@ -1756,10 +1565,24 @@ public class CaixaController {
         TimestampBounds bounds = calculateTimestampBounds(dateContext.dia, dateContext.inicio, dateContext.fim,
                 dateContext.tIni, dateContext.tFim, params.from, params.to);
 
-        java.util.List<java.util.Map<String, Object>> lista = collectMovimentacoesData(bounds, dateContext);
-        var filtrada = applyFilters(lista, params.tipo, params.metodoPagamento, dateContext.tIni, dateContext.tFim);
+        CaixaAggregationService.Totais sums = aggregationService.totalizar(MovimentacoesFiltro.builder()
+                .fromTs(bounds.fromTs)
+                .toTs(bounds.toTs)
+                .tipo(params.tipo)
+                .metodoPagamento(params.metodoPagamento)
+                .horaInicio(dateContext.tIni)
+                .horaFim(dateContext.tFim)
+                .build());
 
-        return ResponseEntity.ok(calculateSummaryAggregates(filtrada));
+        log.debug("DEDUP_SUMMARY: agregados com deduplicação - entradas: {}, retiradas: {}, vendas: {}",
+                sums.sumEntradas, sums.sumRetiradas, sums.sumVendas);
+
+        java.util.Map<String, Object> aggsMap = new java.util.LinkedHashMap<>();
+        aggsMap.put(KEY_SUM_ENTRADAS, sums.sumEntradas);
+        aggsMap.put(KEY_SUM_RETIRADAS, sums.sumRetiradas);
+        aggsMap.put(KEY_SUM_VENDAS, sums.sumVendas);
+        aggsMap.put(KEY_TOTAL, sums.total);
+        return ResponseEntity.ok(aggsMap);
     }
 
     private DateTimeContext parseDateTimeContext(MovimentacoesFilterParams params) {
@@ -1779,98 +1602,6 @@ public class CaixaController {
         return new DateTimeContext(dia, inicio, fim, tIni, tFim);
     }
 
-    private java.util.List<java.util.Map<String, Object>> collectMovimentacoesData(
-            TimestampBounds bounds, DateTimeContext dateContext) {
-        java.util.List<java.util.Map<String, Object>> lista = new java.util.ArrayList<>();
-
-        if (bounds.fromTs != null || bounds.toTs != null) {
-            lista.addAll(collectTimestampBasedData(bounds));
-        } else {
-            lista.addAll(buildManualMovRows(dateContext.dia, dateContext.inicio, dateContext.fim));
-            lista.addAll(buildSaleOrderRows(dateContext.dia, dateContext.inicio, dateContext.fim));
-        }
-
-        return lista;
-    }
-
-    private java.util.List<java.util.Map<String, Object>> collectTimestampBasedData(TimestampBounds bounds) {
-        java.util.Map<Object, java.util.Map<String, Object>> byId = new java.util.LinkedHashMap<>();
-        addMovimentacoesToCollection(byId, bounds);
-        addSaleOrdersToCollection(byId, bounds);
-        return new java.util.ArrayList<>(byId.values());
-    }
-
-    private void addMovimentacoesToCollection(java.util.Map<Object, java.util.Map<String, Object>> byId,
-            TimestampBounds bounds) {
-        try {
-            var movs = movimentacaoRepository.findByPeriodoTimestamps(bounds.fromTs, bounds.toTs);
-            for (var m : movs) {
-                java.util.Map<String, Object> row = new java.util.LinkedHashMap<>();
-                row.put("id", m.getId());
-                row.put(KEY_CAIXA_STATUS_ID, m.getCaixaStatus() != null ? m.getCaixaStatus().getId() : null);
-                row.put("tipo", m.getTipo());
-                row.put(KEY_VALOR, m.getValor());
-                row.put(KEY_DESCRICAO, m.getDescricao());
-                row.put(KEY_DATA_MOVIMENTO, m.getDataMovimento());
-                row.put(KEY_METODO_PAGAMENTO, null); // Manual movements don't have payment method
-                byId.put(m.getId(), row);
-            }
-        } catch (Exception e) {
-            log.warn("getMovimentacoesSummaryData: movs query failed", e);
-        }
-    }
-
-    private void addSaleOrdersToCollection(java.util.Map<Object, java.util.Map<String, Object>> byId,
-            TimestampBounds bounds) {
-        try {
-            var orders = saleOrderRepository.findByPeriodoTimestampsRaw(bounds.fromTs, bounds.toTs);
-            for (var vo : orders) {
-                for (var pg : vo.getPagamentos()) {
-                    java.util.Map<String, Object> row = new java.util.LinkedHashMap<>();
-                    String compositeId = vo.getId() + "|" + pg.getMetodo() + "|" + pg.getValor();
-                    row.put("id", vo.getId());
-                    row.put("tipo", TIPO_VENDA);
-                    row.put(KEY_VALOR, pg.getValor());
-                    row.put(KEY_METODO_PAGAMENTO, pg.getMetodo());
-                    row.put(KEY_DATA_MOVIMENTO, vo.getDataVenda());
-                    row.put(KEY_CAIXA_STATUS_ID, vo.getCaixaStatus() != null ? vo.getCaixaStatus().getId() : null);
-                    byId.put(compositeId, row);
-                }
-            }
-        } catch (Exception e) {
-            log.warn("getMovimentacoesSummaryData: orders query failed", e);
-        }
-    }
-
-    private java.util.Map<String, Object> calculateSummaryAggregates(
-            java.util.List<java.util.Map<String, Object>> filtrada) {
-        double sumEntradasAgg = filtrada.stream()
-                .filter(m -> TIPO_ENTRADA.equals(m.get("tipo")))
-                .mapToDouble(m -> ((Number) m.get(KEY_VALOR)).doubleValue())
-                .sum();
-        double sumRetiradasAgg = filtrada.stream()
-                .filter(m -> TIPO_RETIRADA.equals(m.get("tipo")))
-                .mapToDouble(m -> ((Number) m.get(KEY_VALOR)).doubleValue())
-                .sum();
-
-        // Aplicar lógica de deduplicação para vendas em dinheiro
-        java.util.Set<String> entradaCashKeys = buildEntradaCashKeys(filtrada);
-        double sumVendasAgg = filtrada.stream()
-                .filter(m -> TIPO_VENDA.equals(m.get("tipo")))
-                .mapToDouble(m -> calculateVendaValue(m, entradaCashKeys))
-                .sum();
-
-        log.debug("DEDUP_SUMMARY: Calculando agregados com deduplicação - entradas: {}, retiradas: {}, vendas: {}",
-                sumEntradasAgg, sumRetiradasAgg, sumVendasAgg);
-
-        java.util.Map<String, Object> aggsMap = new java.util.LinkedHashMap<>();
-        aggsMap.put(KEY_SUM_ENTRADAS, sumEntradasAgg);
-        aggsMap.put(KEY_SUM_RETIRADAS, sumRetiradasAgg);
-        aggsMap.put(KEY_SUM_VENDAS, sumVendasAgg);
-        aggsMap.put(KEY_TOTAL, filtrada.size());
-        return aggsMap;
-    }
-
     private static class DateTimeContext {
         final java.time.LocalDate dia;
         final java.time.LocalDate inicio;
@@ -1999,10 +1730,8 @@ public class CaixaController {
                 return ResponseEntity.badRequest().body(Map.of(KEY_ERROR, "Não é possível excluir sessão aberta"));
 
             // verificar dependências: movimentações e ordens vinculadas
-            long movCount = movimentacaoRepository.findAllOrderByData().stream()
-                    .filter(m -> m.getCaixaStatus() != null && id.equals(m.getCaixaStatus().getId())).count();
-            long orderCount = saleOrderRepository.findAllOrderByData().stream()
-                    .filter(o -> o.getCaixaStatus() != null && id.equals(o.getCaixaStatus().getId())).count();
+            long movCount = movimentacaoRepository.countByCaixaStatusId(id);
+            long orderCount = saleOrderRepository.countByCaixaStatusId(id);
             if (movCount > 0 || orderCount > 0) {
                 return ResponseEntity.badRequest().body(Map.of(KEY_ERROR,
                         String.format(
@@ -2011,6 +1740,7 @@ public class CaixaController {
             }
 
             // remove via entity to ensure proper JPA lifecycle handling
+            sessionLedger.onSessionDeleted(sess);
             caixaStatusRepository.delete(sess);
             return handleSessionDeletion(id);
         } catch (Exception e) {
@@ -2034,6 +1764,10 @@ public class CaixaController {
         return ResponseEntity.ok(Map.of(KEY_MESSAGE, "Sessão excluída com sucesso"));
     }
 
+    private static java.time.LocalDate toLocalDateSaoPaulo(java.time.OffsetDateTime ts) {
+        return ts == null ? null : ts.atZoneSameInstant(java.time.ZoneId.of(TIMEZONE_SAO_PAULO)).toLocalDate();
+    }
+
     private java.util.List<java.util.Map<String, Object>> buildManualMovRows(java.time.LocalDate dia,
             java.time.LocalDate inicio, java.time.LocalDate fim) {
         java.util.List<CaixaMovimentacao> base;
@@ -2360,6 +2094,7 @@ public class CaixaController {
         CaixaStatus status = buildNewCashStatus(opener, agora, payload);
 
         try {
+            sessionLedger.onSessionOpened(status);
             caixaStatusRepository.save(status);
         } catch (org.springframework.orm.ObjectOptimisticLockingFailureException e) {
             return ResponseEntity.status(409)
@@ -2448,10 +2183,11 @@ public class CaixaController {
         calculateAndSetExpectedBalance(status);
 
         // Set session closing data
+        Double variacaoAnterior = status.getVariacao();
         setSessionClosingData(status, body, userId, agora);
 
         // Calculate cumulative values
-        calculateAndSetCumulativeValues(status);
+        calculateAndSetCumulativeValues(status, variacaoAnterior);
 
         // Save and return response
         caixaStatusRepository.save(status);
@@ -2524,8 +2260,7 @@ public class CaixaController {
     }
 
     private java.util.List<java.util.Map<String, Object>> buildSessionMovimentacoes(CaixaStatus status) {
-        return movimentacaoRepository.findAllOrderByData().stream()
-                .filter(m -> m.getCaixaStatus() != null && status.getId().equals(m.getCaixaStatus().getId()))
+        return movimentacaoRepository.findByCaixaStatusId(status.getId()).stream()
                 .map(m -> {
                     java.util.Map<String, Object> row = new java.util.LinkedHashMap<>();
                     row.put("id", m.getId());
@@ -2539,9 +2274,7 @@ public class CaixaController {
     }
 
     private java.util.List<com.example.backendspring.sale.SaleOrder> getSessionOrders(CaixaStatus status) {
-        return saleOrderRepository.findAllOrderByData().stream()
-                .filter(o -> o.getCaixaStatus() != null && status.getId().equals(o.getCaixaStatus().getId()))
-                .toList();
+        return saleOrderRepository.findByCaixaStatusId(status.getId());
     }
 
     private java.util.List<java.util.Map<String, Object>> buildSessionVendas(
@@ -2643,40 +2376,17 @@ public class CaixaController {
     }
 
     /**
-     * Calculates and adds daily session metrics to the response.
+     * Adds the day totals (variação and saldo inicial) kept by the session ledger.
      */
     private void addDailySessionMetrics(CaixaStatus status, java.util.Map<String, Object> resp) {
-        final java.time.LocalDate sessionDay;
-        if (status.getDataAbertura() != null) {
-            sessionDay = status.getDataAbertura().toLocalDate();
-        } else if (status.getDataFechamento() != null) {
-            sessionDay = status.getDataFechamento().toLocalDate();
-        } else {
-            sessionDay = null;
-        }
-
+        final java.time.LocalDate sessionDay = CaixaSessionLedger.sessionDay(status);
         if (sessionDay != null) {
-            double dayVariacao = caixaStatusRepository.findAll().stream()
-                    .filter(s -> isSessionOnDay(s, sessionDay))
-                    .mapToDouble(s -> s.getVariacao() == null ? 0.0 : s.getVariacao())
-                    .sum();
-            double daySaldoInicial = caixaStatusRepository.findAll().stream()
-                    .filter(s -> isSessionOnDay(s, sessionDay))
-                    .mapToDouble(s -> s.getSaldoInicial() == null ? 0.0 : s.getSaldoInicial())
-                    .sum();
-            resp.put(KEY_DAY_VARIACAO_TOTAL, dayVariacao);
-            resp.put(KEY_DAY_SALDO_INICIAL_TOTAL, daySaldoInicial);
+            var resumo = sessionLedger.resumoDosDias(java.util.List.of(sessionDay)).get(sessionDay);
+            resp.put(KEY_DAY_VARIACAO_TOTAL, resumo != null ? resumo.getVariacaoTotal() : 0.0);
+            resp.put(KEY_DAY_SALDO_INICIAL_TOTAL, resumo != null ? resumo.getSaldoInicialTotal() : 0.0);
         }
     }
 
-    /**
-     * Checks if a CaixaStatus session occurred on the specified day.
-     */
-    private boolean isSessionOnDay(CaixaStatus s, java.time.LocalDate sessionDay) {
-        return (s.getDataAbertura() != null && s.getDataAbertura().toLocalDate().equals(sessionDay))
-                || (s.getDataFechamento() != null && s.getDataFechamento().toLocalDate().equals(sessionDay));
-    }
-
     /**
      * Calculates the expected balance for a session.
      */
@@ -2684,14 +2394,10 @@ public class CaixaController {
         final Long sessionId = sess.getId();
         double movimentacoesSessao = 0.0;
         try {
-            movimentacoesSessao = movimentacaoRepository.findAllOrderByData().stream()
-                    .filter(m -> m.getCaixaStatus() != null && sessionId != null
-                            && sessionId.equals(m.getCaixaStatus().getId()))
-                    .mapToDouble(m -> {
-                        double valor = m.getValor() == null ? 0.0 : m.getValor();
-                        return TIPO_ENTRADA.equals(m.getTipo()) ? valor : -valor;
-                    })
-                    .sum();
+            if (sessionId != null) {
+                Double saldo = movimentacaoRepository.saldoDaSessao(sessionId);
+                movimentacoesSessao = saldo == null ? 0.0 : saldo;
+            }
         } catch (Exception ignored) {
             // Expected: Database or processing errors should not interrupt session
             // calculation
@@ -2706,20 +2412,13 @@ public class CaixaController {
     }
 
     /**
-     * Calcula métricas históricas (cumulativos e agregados por dia) usando datas.
+     * Calcula métricas históricas (cumulativos) a partir do ledger de sessões.
      */
     private java.util.Map<String, Double> computeHistoricalMetrics(CaixaStatus sess) {
         java.util.Map<String, Double> m = new java.util.LinkedHashMap<>();
         try {
-            var all = caixaStatusRepository.findAll().stream().toList();
-            final Long currentId = sess.getId();
-            double beforeSum = all.stream()
-                    .filter(s -> s.getId() != null && currentId != null && s.getId() < currentId)
-                    .mapToDouble(s -> s.getVariacao() == null ? 0.0 : s.getVariacao())
-                    .sum();
-            double allSum = all.stream().mapToDouble(s -> s.getVariacao() == null ? 0.0 : s.getVariacao()).sum();
-            m.put("cumulative_before", beforeSum);
-            m.put("cumulative_all", allSum);
+            m.put("cumulative_before", CaixaSessionLedger.cumulativeBefore(sess));
+            m.put("cumulative_all", sessionLedger.cumulativeAll());
         } catch (Exception ignored) {
             // Expected: Database or computation errors should return empty metrics
         }
@@ -2813,6 +2512,7 @@ public class CaixaController {
                             "unlinked_mov=" + movUnlinked + ", unlinked_orders=" + ordersUnlinked)
                     .executeUpdate();
 
+            sessionLedger.onSessionDeleted(sess);
             caixaStatusRepository.deleteById(id);
             em.flush();
             if (caixaStatusRepository.existsById(id)) {
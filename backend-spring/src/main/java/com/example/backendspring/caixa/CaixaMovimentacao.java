@@ -12,7 +12,10 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "caixa_movimentacoes")
+@Table(name = "caixa_movimentacoes", indexes = {
+        @Index(name = "idx_caixa_mov_data_movimento", columnList = "data_movimento"),
+        @Index(name = "idx_caixa_mov_caixa_status", columnList = "caixa_status_id")
+})
 public class CaixaMovimentacao {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
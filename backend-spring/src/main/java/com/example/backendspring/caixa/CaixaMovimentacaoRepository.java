@@ -1,25 +1,38 @@
 package com.example.backendspring.caixa;
 
+import com.example.backendspring.utils.DateTimeUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 public interface CaixaMovimentacaoRepository extends JpaRepository<CaixaMovimentacao, Long> {
     /*
-     * Use explicit timezone normalization to 'America/Sao_Paulo' when comparing by
-     * date to avoid mismatches caused by stored OffsetDateTime values.
+     * Consultas por dia/período usam o dia de negócio em 'America/Sao_Paulo'
+     * convertido para um intervalo [inicio, fim) sobre data_movimento, o que
+     * permite usar o índice idx_caixa_mov_data_movimento (uma expressão ::date na
+     * coluna forçaria leitura sequencial da tabela).
      */
-    @Query(value = "SELECT * FROM caixa_movimentacoes WHERE (data_movimento AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date = :dia ORDER BY data_movimento DESC", nativeQuery = true)
-    List<CaixaMovimentacao> findByDia(@Param("dia") LocalDate dia);
+    default List<CaixaMovimentacao> findByDia(LocalDate dia) {
+        return findByIntervalo(DateTimeUtils.startOfDay(dia), DateTimeUtils.startOfNextDay(dia));
+    }
 
-    @Query(value = "SELECT COALESCE(SUM(CASE WHEN tipo = 'entrada' THEN valor ELSE -valor END),0) FROM caixa_movimentacoes WHERE (data_movimento AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date = :dia", nativeQuery = true)
-    Double saldoDoDia(@Param("dia") LocalDate dia);
+    default Double saldoDoDia(LocalDate dia) {
+        return saldoDoIntervalo(DateTimeUtils.startOfDay(dia), DateTimeUtils.startOfNextDay(dia));
+    }
 
-    @Query(value = "SELECT * FROM caixa_movimentacoes WHERE (data_movimento AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN :inicio AND :fim ORDER BY data_movimento DESC", nativeQuery = true)
-    List<CaixaMovimentacao> findByPeriodo(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+    default List<CaixaMovimentacao> findByPeriodo(LocalDate inicio, LocalDate fim) {
+        return findByIntervalo(DateTimeUtils.startOfDay(inicio), DateTimeUtils.startOfNextDay(fim));
+    }
+
+    @Query(value = "SELECT * FROM caixa_movimentacoes WHERE data_movimento >= :inicio AND data_movimento < :fim ORDER BY data_movimento DESC", nativeQuery = true)
+    List<CaixaMovimentacao> findByIntervalo(@Param("inicio") OffsetDateTime inicio, @Param("fim") OffsetDateTime fim);
+
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN tipo = 'entrada' THEN valor ELSE -valor END),0) FROM caixa_movimentacoes WHERE data_movimento >= :inicio AND data_movimento < :fim", nativeQuery = true)
+    Double saldoDoIntervalo(@Param("inicio") OffsetDateTime inicio, @Param("fim") OffsetDateTime fim);
 
     @Query(value = "SELECT * FROM caixa_movimentacoes ORDER BY data_movimento DESC", nativeQuery = true)
     List<CaixaMovimentacao> findAllOrderByData();
@@ -28,6 +41,22 @@ public interface CaixaMovimentacaoRepository extends JpaRepository<CaixaMoviment
     List<CaixaMovimentacao> findByPeriodoTimestamps(@Param("from") java.time.OffsetDateTime from,
             @Param("to") java.time.OffsetDateTime to);
 
-    @Query(value = "SELECT * FROM caixa_movimentacoes WHERE caixa_status_id IS NULL AND (data_movimento AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date = :dia ORDER BY data_movimento DESC", nativeQuery = true)
-    List<CaixaMovimentacao> findByDiaUnassigned(@Param("dia") LocalDate dia);
+    // Movimentações de uma sessão específica (reconciliação/fechamento) sem carregar
+    // o histórico completo na JVM
+    @Query(value = "SELECT * FROM caixa_movimentacoes WHERE caixa_status_id = :caixaStatusId ORDER BY data_movimento DESC", nativeQuery = true)
+    List<CaixaMovimentacao> findByCaixaStatusId(@Param("caixaStatusId") Long caixaStatusId);
+
+    @Query(value = "SELECT COUNT(*) FROM caixa_movimentacoes WHERE caixa_status_id = :caixaStatusId", nativeQuery = true)
+    long countByCaixaStatusId(@Param("caixaStatusId") Long caixaStatusId);
+
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN tipo = 'entrada' THEN valor ELSE -valor END),0) FROM caixa_movimentacoes WHERE caixa_status_id = :caixaStatusId", nativeQuery = true)
+    Double saldoDaSessao(@Param("caixaStatusId") Long caixaStatusId);
+
+    default List<CaixaMovimentacao> findByDiaUnassigned(LocalDate dia) {
+        return findByIntervaloUnassigned(DateTimeUtils.startOfDay(dia), DateTimeUtils.startOfNextDay(dia));
+    }
+
+    @Query(value = "SELECT * FROM caixa_movimentacoes WHERE caixa_status_id IS NULL AND data_movimento >= :inicio AND data_movimento < :fim ORDER BY data_movimento DESC", nativeQuery = true)
+    List<CaixaMovimentacao> findByIntervaloUnassigned(@Param("inicio") OffsetDateTime inicio,
+            @Param("fim") OffsetDateTime fim);
 }
@@ -0,0 +1,94 @@
+package com.example.backendspring.caixa;
+
+import com.example.backendspring.utils.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Página de linhas do caixa (movimentações + pagamentos de vendas) ordenada e
+ * cortada no Postgres por (data_movimento, kind, id, pagamento_id) desc.
+ *
+ * Com cursor a consulta parte da última linha da página anterior (keyset), de
+ * modo que páginas profundas custam o mesmo que a primeira. Sem cursor usa
+ * LIMIT/OFFSET, mantendo o parâmetro {@code page} existente. Retorna apenas as
+ * chaves; o controller carrega as entidades da página.
+ */
+@Service
+@RequiredArgsConstructor
+public class CaixaPaginacaoService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Pagina buscar(MovimentacoesFiltro filtro, String cursor, int offset, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 3);
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("WITH ").append(filtro.toCte(args))
+                .append(" SELECT kind, id, pagamento_id, data_movimento FROM filtradas");
+        if (after != null) {
+            sql.append(" WHERE (data_movimento, kind, id, pagamento_id) < (?, ?, ?, ?)");
+            args.add(after.getData());
+            args.add((int) after.getId(0));
+            args.add(after.getId(1));
+            args.add(after.getId(2));
+        }
+        // uma linha a mais para saber se há próxima página
+        sql.append(" ORDER BY data_movimento DESC, kind DESC, id DESC, pagamento_id DESC LIMIT ?");
+        args.add(size + 1);
+        if (after == null && offset > 0) {
+            sql.append(" OFFSET ?");
+            args.add(offset);
+        }
+
+        List<Linha> linhas = jdbcTemplate.query(sql.toString(), (rs, i) -> new Linha(
+                rs.getInt("kind"),
+                rs.getLong("id"),
+                rs.getLong("pagamento_id"),
+                rs.getObject("data_movimento", OffsetDateTime.class)), args.toArray());
+
+        boolean hasNext = linhas.size() > size;
+        if (hasNext)
+            linhas = linhas.subList(0, size);
+        String nextCursor = null;
+        if (hasNext && !linhas.isEmpty()) {
+            Linha last = linhas.get(linhas.size() - 1);
+            nextCursor = KeysetCursor.of(last.dataMovimento, last.kind, last.id, last.pagamentoId).encode();
+        }
+        return new Pagina(linhas, hasNext, nextCursor);
+    }
+
+    public static class Linha {
+        public final int kind;
+        public final long id;
+        // id do pagamento para linhas de venda (0 para movimentações)
+        public final long pagamentoId;
+        public final OffsetDateTime dataMovimento;
+
+        Linha(int kind, long id, long pagamentoId, OffsetDateTime dataMovimento) {
+            this.kind = kind;
+            this.id = id;
+            this.pagamentoId = pagamentoId;
+            this.dataMovimento = dataMovimento;
+        }
+
+        public boolean isVenda() {
+            return kind == MovimentacoesFiltro.KIND_VENDA;
+        }
+    }
+
+    public static class Pagina {
+        public final List<Linha> linhas;
+        public final boolean hasNext;
+        public final String nextCursor;
+
+        Pagina(List<Linha> linhas, boolean hasNext, String nextCursor) {
+            this.linhas = linhas;
+            this.hasNext = hasNext;
+            this.nextCursor = nextCursor;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.backendspring.caixa;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Totais por dia (America/Sao_Paulo) das sessões de caixa, mantidos pelo
+ * {@link CaixaSessionLedger} na abertura, fechamento e exclusão de sessões.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "caixa_resumo_dia")
+public class CaixaResumoDia {
+    @Id
+    @Column(name = "dia")
+    private LocalDate dia;
+
+    // Soma das variações das sessões do dia
+    @Column(name = "variacao_total", nullable = false)
+    @lombok.Builder.Default
+    private Double variacaoTotal = 0.0;
+
+    // Soma dos saldos iniciais das sessões do dia
+    @Column(name = "saldo_inicial_total", nullable = false)
+    @lombok.Builder.Default
+    private Double saldoInicialTotal = 0.0;
+}
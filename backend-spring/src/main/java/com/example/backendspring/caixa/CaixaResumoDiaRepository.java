@@ -0,0 +1,45 @@
+package com.example.backendspring.caixa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface CaixaResumoDiaRepository extends JpaRepository<CaixaResumoDia, LocalDate> {
+
+    @Modifying
+    @Query(value = "INSERT INTO caixa_resumo_dia (dia, variacao_total, saldo_inicial_total) VALUES (:dia, :variacao, :saldoInicial) "
+            + "ON CONFLICT (dia) DO UPDATE SET variacao_total = caixa_resumo_dia.variacao_total + EXCLUDED.variacao_total, "
+            + "saldo_inicial_total = caixa_resumo_dia.saldo_inicial_total + EXCLUDED.saldo_inicial_total", nativeQuery = true)
+    int addToDia(@Param("dia") LocalDate dia, @Param("variacao") double variacao,
+            @Param("saldoInicial") double saldoInicial);
+
+    @Modifying
+    @Query(value = "DELETE FROM caixa_resumo_dia", nativeQuery = true)
+    int deleteAllRows();
+
+    // Recalcula todos os dias a partir de status_caixa (usado apenas na
+    // reconstrução do ledger)
+    @Modifying
+    @Query(value = "INSERT INTO caixa_resumo_dia (dia, variacao_total, saldo_inicial_total) "
+            + "SELECT (COALESCE(data_abertura, data_fechamento) AT TIME ZONE 'America/Sao_Paulo')::date, "
+            + "COALESCE(SUM(variacao),0), COALESCE(SUM(saldo_inicial),0) FROM status_caixa "
+            + "WHERE COALESCE(data_abertura, data_fechamento) IS NOT NULL "
+            + "GROUP BY (COALESCE(data_abertura, data_fechamento) AT TIME ZONE 'America/Sao_Paulo')::date", nativeQuery = true)
+    int insertFromSessions();
+
+    // Dias cujo resumo difere (em pelo menos um centavo) do recalculado a partir
+    // de status_caixa, incluindo dias sem linha; 0 quando a tabela está em dia
+    @Query(value = "SELECT COUNT(*) FROM ("
+            + "SELECT (COALESCE(data_abertura, data_fechamento) AT TIME ZONE 'America/Sao_Paulo')::date AS dia, "
+            + "COALESCE(SUM(variacao),0) AS variacao, COALESCE(SUM(saldo_inicial),0) AS saldo_inicial FROM status_caixa "
+            + "WHERE COALESCE(data_abertura, data_fechamento) IS NOT NULL "
+            + "GROUP BY (COALESCE(data_abertura, data_fechamento) AT TIME ZONE 'America/Sao_Paulo')::date) s "
+            + "FULL JOIN caixa_resumo_dia r ON r.dia = s.dia "
+            + "WHERE (s.dia IS NOT NULL AND r.dia IS NULL) "
+            + "OR ABS(COALESCE(s.variacao,0) - COALESCE(r.variacao_total,0)) >= 0.005 "
+            + "OR ABS(COALESCE(s.saldo_inicial,0) - COALESCE(r.saldo_inicial_total,0)) >= 0.005", nativeQuery = true)
+    long countDivergentDays();
+}
@@ -0,0 +1,141 @@
+package com.example.backendspring.caixa;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mantém de forma incremental os acumulados das sessões de caixa:
+ * variacao_acumulada / deficit_nao_reposto_acumulada em status_caixa (soma das
+ * variações até a sessão, por ordem de id) e os totais por dia em
+ * caixa_resumo_dia. Assim a listagem de sessões e a reconciliação leem apenas
+ * as sessões exibidas, sem percorrer todo o histórico.
+ */
+@Service
+@RequiredArgsConstructor
+public class CaixaSessionLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(CaixaSessionLedger.class);
+    private static final ZoneId ZONE_SAO_PAULO = ZoneId.of("America/Sao_Paulo");
+
+    private final CaixaStatusRepository caixaStatusRepository;
+    private final CaixaResumoDiaRepository resumoDiaRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Confere o ledger na inicialização (bases antigas e alterações feitas fora
+     * da aplicação): corrige os acumulados divergentes e reconstrói
+     * caixa_resumo_dia só se algum dia não bater com status_caixa. Cada etapa
+     * roda em transação própria; uma falha é logada sem impedir a subida.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            Integer sessoes = transactionTemplate.execute(tx -> caixaStatusRepository.rebuildAcumulado());
+            if (sessoes != null && sessoes > 0)
+                log.info("Ledger de caixa: acumulado recalculado em {} sessões", sessoes);
+        } catch (Exception e) {
+            log.warn("Falha ao recalcular acumulados do caixa: {}", e.getMessage());
+        }
+        try {
+            long divergentes = resumoDiaRepository.countDivergentDays();
+            if (divergentes == 0)
+                return;
+            Integer dias = transactionTemplate.execute(tx -> {
+                resumoDiaRepository.deleteAllRows();
+                return resumoDiaRepository.insertFromSessions();
+            });
+            log.info("Ledger de caixa: {} dias divergentes, resumo diário reconstruído ({} dias)", divergentes, dias);
+        } catch (Exception e) {
+            log.warn("Falha ao reconstruir resumo diário do caixa: {}", e.getMessage());
+        }
+    }
+
+    /** Nova sessão: herda o acumulado da sessão anterior e soma o saldo inicial do dia. */
+    public void onSessionOpened(CaixaStatus session) {
+        double before = caixaStatusRepository.findTopByOrderByIdDesc()
+                .map(CaixaSessionLedger::acumulado)
+                .orElse(0.0);
+        session.setVariacaoAcumulada(before);
+        session.setDeficitNaoRepostoAcumulada(Math.max(0.0, -before));
+        LocalDate dia = sessionDay(session);
+        if (dia != null)
+            resumoDiaRepository.addToDia(dia, 0.0, valueOrZero(session.getSaldoInicial()));
+    }
+
+    /**
+     * Sessão fechada: deve ser chamado após definir a nova variação.
+     * {@code variacaoAnterior} é a variação antes do fechamento (normalmente null).
+     */
+    public void onSessionClosed(CaixaStatus session, Double variacaoAnterior) {
+        double before = session.getId() == null ? 0.0
+                : caixaStatusRepository.findTopByIdLessThanOrderByIdDesc(session.getId())
+                        .map(CaixaSessionLedger::acumulado)
+                        .orElse(0.0);
+        double acumulado = before + valueOrZero(session.getVariacao());
+        session.setVariacaoAcumulada(acumulado);
+        session.setDeficitNaoRepostoAcumulada(Math.max(0.0, -acumulado));
+
+        double delta = valueOrZero(session.getVariacao()) - valueOrZero(variacaoAnterior);
+        if (delta != 0.0) {
+            if (session.getId() != null)
+                caixaStatusRepository.shiftAcumuladoAfter(session.getId(), delta);
+            LocalDate dia = sessionDay(session);
+            if (dia != null)
+                resumoDiaRepository.addToDia(dia, delta, 0.0);
+        }
+    }
+
+    /** Sessão excluída: remove sua contribuição das posteriores e do dia. */
+    public void onSessionDeleted(CaixaStatus session) {
+        double variacao = valueOrZero(session.getVariacao());
+        if (variacao != 0.0 && session.getId() != null)
+            caixaStatusRepository.shiftAcumuladoAfter(session.getId(), -variacao);
+        LocalDate dia = sessionDay(session);
+        if (dia != null && (variacao != 0.0 || session.getSaldoInicial() != null))
+            resumoDiaRepository.addToDia(dia, -variacao, -valueOrZero(session.getSaldoInicial()));
+    }
+
+    /** Acumulado de todas as sessões (o da sessão mais recente). */
+    public double cumulativeAll() {
+        return caixaStatusRepository.findTopByOrderByIdDesc()
+                .map(CaixaSessionLedger::acumulado)
+                .orElse(0.0);
+    }
+
+    /** Acumulado anterior à sessão (exclui a própria variação). */
+    public static double cumulativeBefore(CaixaStatus session) {
+        return acumulado(session) - valueOrZero(session.getVariacao());
+    }
+
+    public Map<LocalDate, CaixaResumoDia> resumoDosDias(Collection<LocalDate> dias) {
+        Map<LocalDate, CaixaResumoDia> out = new HashMap<>();
+        resumoDiaRepository.findAllById(dias).forEach(r -> out.put(r.getDia(), r));
+        return out;
+    }
+
+    /** Dia de negócio da sessão: data de abertura (ou fechamento) em America/Sao_Paulo. */
+    public static LocalDate sessionDay(CaixaStatus s) {
+        OffsetDateTime ts = s.getDataAbertura() != null ? s.getDataAbertura() : s.getDataFechamento();
+        return ts == null ? null : ts.atZoneSameInstant(ZONE_SAO_PAULO).toLocalDate();
+    }
+
+    private static double acumulado(CaixaStatus s) {
+        return valueOrZero(s.getVariacaoAcumulada());
+    }
+
+    private static double valueOrZero(Double v) {
+        return v == null ? 0.0 : v;
+    }
+}
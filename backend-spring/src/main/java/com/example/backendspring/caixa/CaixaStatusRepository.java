@@ -2,6 +2,7 @@ package com.example.backendspring.caixa;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import jakarta.persistence.LockModeType;
@@ -19,4 +20,25 @@ public interface CaixaStatusRepository extends JpaRepository<CaixaStatus, Long>
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select cs from CaixaStatus cs where cs.id = :id")
     Optional<CaixaStatus> findByIdForUpdate(@Param("id") Long id);
+
+    // Sessão imediatamente anterior (por id), base do acumulado da sessão atual
+    Optional<CaixaStatus> findTopByIdLessThanOrderByIdDesc(Long id);
+
+    // Desloca o acumulado de todas as sessões posteriores quando a variação de uma
+    // sessão muda (fechamento) ou deixa de existir (exclusão)
+    @Modifying
+    @Query(value = "UPDATE status_caixa SET variacao_acumulada = COALESCE(variacao_acumulada,0) + :delta, "
+            + "deficit_nao_reposto_acumulada = GREATEST(0, -(COALESCE(variacao_acumulada,0) + :delta)) WHERE id > :id", nativeQuery = true)
+    int shiftAcumuladoAfter(@Param("id") Long id, @Param("delta") double delta);
+
+    // Recalcula o acumulado de todas as sessões em uma única passada (window
+    // function); só altera linhas que divergem em pelo menos um centavo, para
+    // não regravar diferenças de arredondamento dos deslocamentos incrementais
+    @Modifying
+    @Query(value = "UPDATE status_caixa s SET variacao_acumulada = t.acc, deficit_nao_reposto_acumulada = GREATEST(0, -t.acc) "
+            + "FROM (SELECT id, SUM(COALESCE(variacao,0)) OVER (ORDER BY id) AS acc FROM status_caixa) t "
+            + "WHERE s.id = t.id AND (s.variacao_acumulada IS NULL OR s.deficit_nao_reposto_acumulada IS NULL "
+            + "OR ABS(s.variacao_acumulada - t.acc) >= 0.005 "
+            + "OR ABS(s.deficit_nao_reposto_acumulada - GREATEST(0, -t.acc)) >= 0.005)", nativeQuery = true)
+    int rebuildAcumulado();
 }
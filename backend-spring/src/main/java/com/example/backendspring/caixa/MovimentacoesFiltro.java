@@ -0,0 +1,90 @@
+package com.example.backendspring.caixa;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Filtros aplicados às linhas de movimentação do caixa (movimentações manuais +
+ * pagamentos de vendas). Intervalo {@code [fromTs, toTs]} inclusivo; quando
+ * ambos são nulos consulta todo o histórico.
+ */
+@Getter
+@Builder
+public class MovimentacoesFiltro {
+    // Discriminador das linhas: ids de movimentação e de venda não são únicos
+    // entre si
+    static final int KIND_MOVIMENTACAO = 0;
+    static final int KIND_VENDA = 1;
+
+    private final OffsetDateTime fromTs;
+    private final OffsetDateTime toTs;
+    private final String tipo;
+    private final String metodoPagamento;
+    // Faixa de horário (America/Sao_Paulo) aplicada a cada linha
+    private final LocalTime horaInicio;
+    private final LocalTime horaFim;
+
+    public boolean isBounded() {
+        return fromTs != null || toTs != null;
+    }
+
+    /**
+     * CTEs {@code linhas} (movimentações + pagamentos de vendas) e
+     * {@code filtradas} (tipo, método e faixa de horário), compartilhadas pelas
+     * consultas de totais e de listagem. Os parâmetros são adicionados a
+     * {@code args} na ordem em que aparecem.
+     */
+    String toCte(List<Object> args) {
+        StringBuilder sql = new StringBuilder("linhas AS (")
+                .append("SELECT ").append(KIND_MOVIMENTACAO).append(" AS kind, m.id AS id, ")
+                .append("CAST(0 AS BIGINT) AS pagamento_id, m.tipo AS tipo, m.valor AS valor, ")
+                .append("m.descricao AS descricao, m.caixa_status_id AS caixa_status_id, ")
+                .append("CAST(NULL AS VARCHAR) AS metodo, m.data_movimento AS data_movimento ")
+                .append("FROM caixa_movimentacoes m WHERE 1=1");
+        appendRange(sql, "m.data_movimento", args);
+
+        // com intervalo, pagamentos idênticos da mesma venda colapsam em uma linha
+        boolean colapsar = isBounded();
+        sql.append(" UNION ALL SELECT ").append(KIND_VENDA).append(", v.id, ")
+                .append(colapsar ? "MIN(p.id)" : "p.id")
+                .append(", 'venda', p.valor, CAST(NULL AS VARCHAR), v.caixa_status_id, p.metodo, v.data_venda ")
+                .append("FROM venda_pagamentos p JOIN venda_cabecalho v ON v.id = p.venda_id WHERE 1=1");
+        appendRange(sql, "v.data_venda", args);
+        if (colapsar)
+            sql.append(" GROUP BY v.id, p.metodo, p.valor, v.caixa_status_id, v.data_venda");
+        sql.append("), filtradas AS (SELECT * FROM linhas WHERE 1=1");
+
+        if (tipo != null && !tipo.isBlank()) {
+            sql.append(" AND tipo = ?");
+            args.add(tipo);
+        }
+        if (metodoPagamento != null && !metodoPagamento.isBlank()) {
+            sql.append(" AND metodo = ?");
+            args.add(metodoPagamento);
+        }
+        if (horaInicio != null) {
+            sql.append(" AND CAST(data_movimento AT TIME ZONE 'America/Sao_Paulo' AS TIME) >= ?");
+            args.add(horaInicio);
+        }
+        if (horaFim != null) {
+            sql.append(" AND CAST(data_movimento AT TIME ZONE 'America/Sao_Paulo' AS TIME) <= ?");
+            args.add(horaFim);
+        }
+        return sql.append(")").toString();
+    }
+
+    private void appendRange(StringBuilder sql, String column, List<Object> args) {
+        if (fromTs != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            args.add(fromTs);
+        }
+        if (toTs != null) {
+            sql.append(" AND ").append(column).append(" <= ?");
+            args.add(toTs);
+        }
+    }
+}
@@ -10,7 +10,7 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "clientes")
+@Table(name = "clientes", indexes = @Index(name = "idx_clientes_telefone", columnList = "telefone"))
 public class Client {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
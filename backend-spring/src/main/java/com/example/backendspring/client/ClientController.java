@@ -20,6 +20,9 @@ public class ClientController {
     private static final Logger logger = LoggerFactory.getLogger(ClientController.class);
     private final ClientRepository clientRepository;
     private final SaleOrderRepository saleOrderRepository;
+    private final ClientSearchService clientSearchService;
+
+    private static final int BUSCA_MAX_SIZE = 200;
 
     @GetMapping
     public ResponseEntity<java.util.Map<String, Object>> list(
@@ -27,14 +30,16 @@ public class ClientController {
             @RequestParam(value = "page", required = false, defaultValue = "0") int page,
             @RequestParam(value = "size", required = false, defaultValue = "20") int size) {
         if (q != null && !q.isBlank()) {
-            String term = q.toLowerCase();
-            var filtered = clientRepository.findAll().stream()
-                    .filter(c -> (c.getNome() != null && c.getNome().toLowerCase().contains(term)) ||
-                            (c.getEmail() != null && c.getEmail().toLowerCase().contains(term)) ||
-                            (c.getTelefone() != null && c.getTelefone().toLowerCase().contains(term)))
-                    .toList();
-            return ResponseEntity.ok(java.util.Map.of("items", filtered, "total", filtered.size(), "hasNext", false,
-                    "page", 0, "size", filtered.size()));
+            int pageNum = Math.max(0, page);
+            int pageSize = Math.max(1, Math.min(size, BUSCA_MAX_SIZE));
+            var pg = clientSearchService.buscar(q, pageNum, pageSize);
+            var resp = new java.util.LinkedHashMap<String, Object>();
+            resp.put("items", pg.items);
+            resp.put("total", pg.total);
+            resp.put("hasNext", (long) (pageNum + 1) * pageSize < pg.total);
+            resp.put("page", pageNum);
+            resp.put("size", pageSize);
+            return ResponseEntity.ok(resp);
         }
         var pg = clientRepository.findAll(org.springframework.data.domain.PageRequest.of(page, size));
         var items = pg.getContent();
@@ -1,12 +1,17 @@
 package com.example.backendspring.client;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.Optional;
 
 public interface ClientRepository extends JpaRepository<Client, Long> {
     Optional<Client> findByEmail(String email);
 
-    Optional<Client> findByEmailIgnoreCase(String email);
+    // lower() explícito (o derivado usaria upper()) para usar idx_clientes_email_lower
+    @Query("SELECT c FROM Client c WHERE lower(c.email) = lower(:email)")
+    Optional<Client> findByEmailIgnoreCase(@Param("email") String email);
 
     Optional<Client> findByTelefone(String telefone);
 
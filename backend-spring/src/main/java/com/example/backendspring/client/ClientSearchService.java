@@ -0,0 +1,86 @@
+package com.example.backendspring.client;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Busca paginada de clientes no Postgres (lista de clientes e busca de
+ * cliente no checkout).
+ *
+ * O termo casa com trecho de nome ou email sem diferenciar maiúsculas e, se
+ * tiver dígitos, com trecho do telefone comparando só os dígitos (então
+ * "11 9876" encontra "(11) 98765-4321"). As expressões usadas aqui são as
+ * mesmas dos índices criados pelo SearchIndexInitializer (lower(...) e
+ * {@value #TELEFONE_DIGITOS}); não alterar uma sem a outra.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClientSearchService {
+
+    public static final String TELEFONE_DIGITOS = "regexp_replace(telefone, '[^0-9]', '', 'g')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Pagina buscar(String q, int page, int size) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder();
+        if (q != null && !q.isBlank()) {
+            String termo = "%" + escapeLike(q.trim().toLowerCase(Locale.ROOT)) + "%";
+            where.append(" WHERE (lower(nome) LIKE ? OR lower(email) LIKE ?");
+            args.add(termo);
+            args.add(termo);
+            String digitos = q.replaceAll("[^0-9]", "");
+            if (!digitos.isEmpty()) {
+                where.append(" OR ").append(TELEFONE_DIGITOS).append(" LIKE ?");
+                args.add("%" + digitos + "%");
+            }
+            where.append(')');
+        }
+
+        List<Object> pageArgs = new ArrayList<>(args);
+        pageArgs.add(size);
+        pageArgs.add((long) page * size);
+        long[] total = { -1 };
+        List<Client> items = jdbcTemplate.query(
+                "SELECT id, nome, email, telefone, documento, created_at, count(*) OVER () AS total FROM clientes"
+                        + where + " ORDER BY lower(nome), id LIMIT ? OFFSET ?",
+                (rs, i) -> {
+                    total[0] = rs.getLong("total");
+                    return Client.builder()
+                            .id(rs.getLong("id"))
+                            .nome(rs.getString("nome"))
+                            .email(rs.getString("email"))
+                            .telefone(rs.getString("telefone"))
+                            .documento(rs.getString("documento"))
+                            .createdAt(rs.getObject("created_at", OffsetDateTime.class))
+                            .build();
+                }, pageArgs.toArray());
+        if (total[0] < 0) {
+            // página vazia (ou além do fim): o total vem de uma contagem separada
+            Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM clientes" + where, Long.class,
+                    args.toArray());
+            total[0] = count == null ? 0 : count;
+        }
+        return new Pagina(items, total[0]);
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public static class Pagina {
+        public final List<Client> items;
+        public final long total;
+
+        Pagina(List<Client> items, long total) {
+            this.items = items;
+            this.total = total;
+        }
+    }
+}
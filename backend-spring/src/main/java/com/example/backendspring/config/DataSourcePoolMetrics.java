@@ -0,0 +1,89 @@
+package com.example.backendspring.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coletor leve de métricas do pool Hikari (sem micrometer/actuator).
+ * Registra ocupação do pool (ativas, ociosas, aguardando) e a latência de
+ * aquisição de conexões, exposta em /api/admin/db-pool.
+ */
+public class DataSourcePoolMetrics implements MetricsTrackerFactory {
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireTotalNanos = new LongAdder();
+    private final AtomicLong acquireMaxNanos = new AtomicLong();
+    private final LongAdder usageCount = new LongAdder();
+    private final LongAdder usageTotalMillis = new LongAdder();
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new Tracker();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        PoolStats stats = this.poolStats;
+        out.put("pool", poolName);
+        out.put("started", stats != null);
+        if (stats != null) {
+            out.put("active", stats.getActiveConnections());
+            out.put("idle", stats.getIdleConnections());
+            out.put("waiting", stats.getPendingThreads());
+            out.put("total", stats.getTotalConnections());
+            out.put("max", stats.getMaxConnections());
+            out.put("min", stats.getMinConnections());
+        }
+        long acquires = acquireCount.sum();
+        out.put("acquire_count", acquires);
+        out.put("acquire_avg_ms", acquires == 0 ? 0.0 : nanosToMillis(acquireTotalNanos.sum() / (double) acquires));
+        out.put("acquire_max_ms", nanosToMillis(acquireMaxNanos.get()));
+        long usages = usageCount.sum();
+        out.put("usage_avg_ms", usages == 0 ? 0.0 : usageTotalMillis.sum() / (double) usages);
+        out.put("connections_created", connectionsCreated.sum());
+        out.put("timeouts", timeouts.sum());
+        return out;
+    }
+
+    private static double nanosToMillis(double nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private class Tracker implements IMetricsTracker {
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            connectionsCreated.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireCount.increment();
+            acquireTotalNanos.add(elapsedAcquiredNanos);
+            acquireMaxNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageCount.increment();
+            usageTotalMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
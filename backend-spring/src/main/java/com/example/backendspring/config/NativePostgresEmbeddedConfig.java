@@ -2,13 +2,16 @@ package com.example.backendspring.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
-import javax.sql.DataSource;
-import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import com.zaxxer.hikari.HikariDataSource;
 import java.io.IOException;
 import java.io.File;
 import java.nio.file.Files;
@@ -42,21 +45,46 @@ public class NativePostgresEmbeddedConfig {
     private Path dataDirectory;
     private Path binariesDirectory;
 
+    // Lazy: só sobe quando spring.datasource.url (DB_URL) não aponta para um
+    // Postgres externo (testes de integração/CI fora do Windows)
     @Bean(destroyMethod = "shutdown")
+    @Lazy
     public NativeEmbeddedPostgres nativeEmbeddedPostgres() throws IOException {
         return new NativeEmbeddedPostgres();
     }
 
     @Bean
-    public DataSource dataSource(NativeEmbeddedPostgres postgres) {
-        String jdbcUrl = postgres.getJdbcUrl();
-        log.info("🎯 Conectando ao PostgreSQL nativo: {}", jdbcUrl);
-
-        SimpleDriverDataSource dataSource = new SimpleDriverDataSource();
-        dataSource.setDriverClass(org.postgresql.Driver.class);
-        dataSource.setUrl(jdbcUrl);
-        dataSource.setUsername(POSTGRES_USER);
-        dataSource.setPassword("");
+    public DataSourcePoolMetrics dataSourcePoolMetrics() {
+        return new DataSourcePoolMetrics();
+    }
+
+    /**
+     * Pool Hikari sobre o PostgreSQL embarcado. O bean depende de
+     * {@link NativeEmbeddedPostgres}, cujo construtor só retorna após
+     * waitForServerReady(); as propriedades spring.datasource.hikari.* (incluindo
+     * as do perfil slow-pc) são aplicadas pelo binding abaixo. Com
+     * spring.datasource.url preenchida usa esse banco e não sobe o embarcado.
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource dataSource(ObjectProvider<NativeEmbeddedPostgres> postgres,
+            DataSourceProperties properties, DataSourcePoolMetrics poolMetrics) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("mercearia-pg");
+        dataSource.setDriverClassName(org.postgresql.Driver.class.getName());
+        if (properties.getUrl() != null && !properties.getUrl().isBlank()) {
+            log.info("🎯 Conectando ao PostgreSQL externo: {}", properties.getUrl());
+            dataSource.setJdbcUrl(properties.getUrl());
+            dataSource.setUsername(properties.getUsername());
+            dataSource.setPassword(properties.getPassword());
+        } else {
+            String jdbcUrl = postgres.getObject().getJdbcUrl();
+            log.info("🎯 Conectando ao PostgreSQL nativo: {}", jdbcUrl);
+            dataSource.setJdbcUrl(jdbcUrl);
+            dataSource.setUsername(POSTGRES_USER);
+            dataSource.setPassword("");
+        }
+        dataSource.setMetricsTrackerFactory(poolMetrics);
 
         return dataSource;
     }
@@ -10,6 +10,8 @@ public class JwtProperties {
     @NotBlank
     private String secret;
     private long expiration;
+    // máximo de tokens verificados mantidos em memória pelo JwtService
+    private int cacheSize = 1024;
 
     public String getSecret() {
         return secret;
@@ -26,4 +28,12 @@ public class JwtProperties {
     public void setExpiration(long expiration) {
         this.expiration = expiration;
     }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
 }
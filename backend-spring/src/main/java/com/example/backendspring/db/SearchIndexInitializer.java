@@ -0,0 +1,80 @@
+package com.example.backendspring.db;
+
+import com.example.backendspring.client.ClientSearchService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Índices de expressão usados pelas buscas paginadas, que o Hibernate
+ * (ddl-auto) não sabe criar e que o changelog do Liquibase não aplica por
+ * estar desligado. Cada comando é idempotente (IF NOT EXISTS) e roda
+ * isolado: uma falha, como pg_trgm indisponível, só deixa a busca sem aquele
+ * índice.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexInitializer.class);
+
+    /**
+     * Índices btree: ordenação por nome e prefixo do código de barras
+     * (ProductSearchService), ordenação de clientes e busca de cliente por
+     * email no checkout (ClientRepository.findByEmailIgnoreCase).
+     */
+    static final List<String> INDICES = List.of(
+            "CREATE INDEX IF NOT EXISTS idx_produtos_nome_lower ON produtos (lower(nome), id)",
+            "CREATE INDEX IF NOT EXISTS idx_produtos_codigo_barras_prefix ON produtos (codigo_barras varchar_pattern_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_clientes_nome_lower ON clientes (lower(nome), id)",
+            "CREATE INDEX IF NOT EXISTS idx_clientes_email_lower ON clientes (lower(email))");
+
+    /**
+     * Índices trigram para LIKE '%termo%' (ProductSearchService e
+     * ClientSearchService); dependem da extensão pg_trgm.
+     */
+    static final List<String> INDICES_TRGM = List.of(
+            "CREATE INDEX IF NOT EXISTS idx_produtos_nome_trgm ON produtos USING gin (lower(nome) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_clientes_nome_trgm ON clientes USING gin (lower(nome) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_clientes_email_trgm ON clientes USING gin (lower(email) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_clientes_telefone_digitos_trgm ON clientes USING gin ("
+                    + ClientSearchService.TELEFONE_DIGITOS + " gin_trgm_ops)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void criarIndices() {
+        int criados = 0;
+        for (String sql : INDICES) {
+            if (executar(sql))
+                criados++;
+        }
+        if (executar("CREATE EXTENSION IF NOT EXISTS pg_trgm")) {
+            for (String sql : INDICES_TRGM) {
+                if (executar(sql))
+                    criados++;
+            }
+        } else {
+            log.warn("pg_trgm indisponível: buscas por trecho seguirão sem índice trigram");
+        }
+        log.info("Índices de busca verificados: {} de {}", criados, INDICES.size() + INDICES_TRGM.size());
+    }
+
+    private boolean executar(String sql) {
+        try {
+            jdbcTemplate.execute(sql);
+            return true;
+        } catch (Exception e) {
+            log.warn("Falha ao criar índice ({}): {}", sql, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -10,7 +10,7 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "produtos")
+@Table(name = "produtos", indexes = @Index(name = "idx_produtos_quantidade_estoque", columnList = "quantidade_estoque"))
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,191 @@
+package com.example.backendspring.product;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catálogo de produtos em memória para o caminho do leitor de código de barras
+ * e para a listagem completa.
+ *
+ * Mantém um snapshot imutável com índice por codigo_barras, por id e a lista
+ * já ordenada por nome. Alterações em produtos (cadastro, edição, exclusão,
+ * estoque) chamam {@link #invalidate}: os ids ficam marcados como
+ * desatualizados após o commit da transação corrente e são recarregados do
+ * banco na próxima leitura, sem reler o catálogo inteiro. Os produtos
+ * guardados são cópias desanexadas, nunca entidades gerenciadas.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalogCache.class);
+
+    private static final Comparator<Product> POR_NOME = (a, b) -> a.getNome().compareToIgnoreCase(b.getNome());
+
+    private final ProductRepository productRepository;
+
+    private volatile Snapshot snapshot;
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+    private volatile boolean reloadAll = true;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong fullLoads = new AtomicLong();
+    private final AtomicLong partialRefreshes = new AtomicLong();
+
+    public ProductCatalogCache(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /** Produto pelo código de barras; consulta o banco só se não estiver no catálogo. */
+    public Optional<Product> findByCodigoBarras(String codigo) {
+        if (codigo == null)
+            return Optional.empty();
+        Product p = current().byCodigo.get(codigo);
+        if (p != null) {
+            hits.incrementAndGet();
+            return Optional.of(p);
+        }
+        misses.incrementAndGet();
+        // inserido por fora da API (scripts/importação): recarrega o catálogo
+        return productRepository.findByCodigoBarras(codigo).map(found -> {
+            reloadAll = true;
+            return copy(found);
+        });
+    }
+
+    public Optional<Product> findById(Long id) {
+        return Optional.ofNullable(current().byId.get(id));
+    }
+
+    /** Todos os produtos ordenados por nome (lista imutável). */
+    public List<Product> findAllSorted() {
+        return current().sorted;
+    }
+
+    /** Marca os produtos como alterados; vale após o commit da transação corrente. */
+    public void invalidate(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty())
+            return;
+        List<Long> copia = List.copyOf(ids);
+        afterCommit(() -> stale.addAll(copia));
+    }
+
+    public void invalidate(Long id) {
+        if (id != null)
+            invalidate(List.of(id));
+    }
+
+    public void invalidateAll() {
+        afterCommit(() -> reloadAll = true);
+    }
+
+    public Map<String, Object> stats() {
+        Snapshot s = snapshot;
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("produtos", s == null ? 0 : s.byId.size());
+        body.put("hits", h);
+        body.put("misses", m);
+        body.put("hit_ratio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        body.put("full_loads", fullLoads.get());
+        body.put("partial_refreshes", partialRefreshes.get());
+        body.put("pendentes", stale.size());
+        body.put("atualizado_em", s == null ? null : s.loadedAt);
+        return body;
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null && !reloadAll && stale.isEmpty())
+            return s;
+        return refresh();
+    }
+
+    private synchronized Snapshot refresh() {
+        if (snapshot == null || reloadAll) {
+            // limpa antes de ler: invalidações durante a carga geram nova recarga
+            reloadAll = false;
+            stale.clear();
+            long t0 = System.nanoTime();
+            List<Product> todos = productRepository.findAll();
+            Map<Long, Product> byId = new HashMap<>(todos.size() * 2);
+            for (Product p : todos)
+                byId.put(p.getId(), copy(p));
+            snapshot = new Snapshot(byId);
+            fullLoads.incrementAndGet();
+            log.debug("Catálogo de produtos carregado: {} produtos em {} ms", byId.size(),
+                    (System.nanoTime() - t0) / 1_000_000);
+            return snapshot;
+        }
+        if (stale.isEmpty())
+            return snapshot;
+        List<Long> ids = new ArrayList<>(stale);
+        stale.removeAll(ids);
+        Map<Long, Product> byId = new HashMap<>(snapshot.byId);
+        ids.forEach(byId::remove);
+        for (Product p : productRepository.findAllById(ids))
+            byId.put(p.getId(), copy(p));
+        snapshot = new Snapshot(byId);
+        partialRefreshes.incrementAndGet();
+        return snapshot;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static Product copy(Product p) {
+        return Product.builder()
+                .id(p.getId())
+                .nome(p.getNome())
+                .codigoBarras(p.getCodigoBarras())
+                .precoVenda(p.getPrecoVenda())
+                .quantidadeEstoque(p.getQuantidadeEstoque())
+                .imagem(p.getImagem())
+                .build();
+    }
+
+    private static final class Snapshot {
+        final Map<Long, Product> byId;
+        final Map<String, Product> byCodigo;
+        final List<Product> sorted;
+        final java.time.OffsetDateTime loadedAt = java.time.OffsetDateTime.now();
+
+        Snapshot(Map<Long, Product> byId) {
+            this.byId = byId;
+            this.byCodigo = new HashMap<>(byId.size() * 2);
+            for (Product p : byId.values()) {
+                if (p.getCodigoBarras() != null)
+                    byCodigo.put(p.getCodigoBarras(), p);
+            }
+            List<Product> lista = new ArrayList<>(byId.values());
+            lista.sort(POR_NOME);
+            this.sorted = List.copyOf(lista);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.backendspring.product;
 
 import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -17,6 +24,10 @@ import java.util.Map;
 public class ProductController {
 
     private final ProductRepository productRepository;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchService searchService;
+    private final ProductImageStore imageStore;
+    private final ProductImageProcessor imageProcessor;
 
     private static final String KEY_ERROR = "error";
     private static final String KEY_MESSAGE = "message";
@@ -27,15 +38,50 @@ public class ProductController {
     private static final String KEY_PRECO_VENDA = "preco_venda";
     private static final String KEY_IMAGEM = "imagem";
     private static final String MSG_PRODUTO_NAO_ENCONTRADO = "Produto não encontrado";
-    private static final String DEFAULT_IMAGE = "padrao.png";
-    private static final String UPLOADS_DIR = "uploads";
-    private static final String PRODUTOS_DIR = "produtos";
+    private static final String DEFAULT_IMAGE = ProductImageStore.DEFAULT_IMAGE;
     private static final String DATA_IMAGE_PREFIX = "data:image/";
+    private static final int BUSCA_MAX_SIZE = 200;
+    private static final long MAX_UPLOAD_BYTES = 10L * 1024 * 1024;
+    private static final CacheControl CACHE_REVALIDAR = CacheControl.noCache().cachePublic();
+    private static final CacheControl CACHE_PADRAO = CacheControl.maxAge(java.time.Duration.ofDays(1)).cachePublic();
+    private static final CacheControl CACHE_VERSIONADA = CacheControl.maxAge(java.time.Duration.ofDays(365))
+            .cachePublic().immutable();
 
     @GetMapping
     public List<Product> getAll() {
-        return productRepository.findAll().stream().sorted((a, b) -> a.getNome().compareToIgnoreCase(b.getNome()))
-                .toList();
+        return catalogCache.findAllSorted();
+    }
+
+    // Busca paginada por nome/código de barras, com filtro de estoque baixo
+    @GetMapping("/busca")
+    public ResponseEntity<Map<String, Object>> search(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "estoque_abaixo_de", required = false) Integer estoqueAbaixoDe,
+            @RequestParam(value = "sort", required = false, defaultValue = "nome") String sort,
+            @RequestParam(value = "order", required = false, defaultValue = "asc") String order,
+            @RequestParam(value = "page", required = false, defaultValue = "0") int page,
+            @RequestParam(value = "size", required = false, defaultValue = "50") int size) {
+        int pageNum = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, BUSCA_MAX_SIZE));
+        ProductSearchService.Pagina pg;
+        try {
+            pg = searchService.buscar(q, estoqueAbaixoDe, sort, order, pageNum, pageSize);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(KEY_ERROR, e.getMessage()));
+        }
+        java.util.Map<String, Object> resp = new java.util.LinkedHashMap<>();
+        resp.put("items", pg.items);
+        resp.put("total", pg.total);
+        resp.put("hasNext", (long) (pageNum + 1) * pageSize < pg.total);
+        resp.put("page", pageNum);
+        resp.put("size", pageSize);
+        return ResponseEntity.ok(resp);
+    }
+
+    // Métricas do catálogo em memória (leitor de código de barras)
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        return catalogCache.stats();
     }
 
     @GetMapping("/{id}")
@@ -56,7 +102,7 @@ public class ProductController {
 
     @GetMapping("/codigo/{codigo}")
     public ResponseEntity<Map<String, Object>> getByCodigo(@PathVariable("codigo") String codigo) {
-        return productRepository.findByCodigoBarras(codigo)
+        return catalogCache.findByCodigoBarras(codigo)
                 .<ResponseEntity<Map<String, Object>>>map(p -> {
                     java.util.Map<String, Object> body = new java.util.LinkedHashMap<>();
                     body.put(KEY_ID, p.getId());
@@ -86,12 +132,16 @@ public class ProductController {
                 .quantidadeEstoque(req.getQuantidadeEstoque() == null ? 0 : req.getQuantidadeEstoque())
                 .build());
 
-        String nomeImagem = null;
-        if (req.getImagem() != null && req.getImagem().startsWith(DATA_IMAGE_PREFIX)) {
-            nomeImagem = processImage(req.getImagem(), p.getId());
-            p.setImagem(nomeImagem);
+        byte[] foto = req.getImagem() != null && req.getImagem().startsWith(DATA_IMAGE_PREFIX)
+                ? decodeImage(req.getImagem())
+                : null;
+        if (foto != null) {
+            // referência gravada antes do job: uma foto inválida pode limpá-la
+            p.setImagem(ProductImageProcessor.Rendicao.DETALHE.fileName(p.getId()));
             productRepository.save(p);
+            imageProcessor.enqueue(p.getId(), foto);
         }
+        catalogCache.invalidate(p.getId());
         java.util.Map<String, Object> body = new java.util.LinkedHashMap<>();
         body.put(KEY_ID, p.getId());
         body.put(KEY_NOME, p.getNome());
@@ -110,7 +160,12 @@ public class ProductController {
                 return validationError;
             }
 
-            String novaImagem = computeUpdatedImage(existing.getImagem(), req.getImagem(), id);
+            byte[] foto = req.getImagem() != null && req.getImagem().startsWith(DATA_IMAGE_PREFIX)
+                    ? decodeImage(req.getImagem())
+                    : null;
+            String novaImagem = foto != null
+                    ? ProductImageProcessor.Rendicao.DETALHE.fileName(id)
+                    : computeUpdatedImage(existing.getImagem(), req.getImagem(), id);
 
             existing.setNome(req.getNome());
             existing.setCodigoBarras(req.getCodigoBarras());
@@ -118,6 +173,10 @@ public class ProductController {
             existing.setQuantidadeEstoque(req.getQuantidadeEstoque() == null ? 0 : req.getQuantidadeEstoque());
             existing.setImagem(novaImagem);
             productRepository.save(existing);
+            // a foto anterior continua servida até as novas rendições ficarem prontas
+            if (foto != null)
+                imageProcessor.enqueue(id, foto);
+            catalogCache.invalidate(id);
             return ResponseEntity.ok(Map.<String, Object>of(KEY_MESSAGE, "Produto atualizado com sucesso"));
         }).orElse(ResponseEntity.status(404).body(Map.<String, Object>of(KEY_ERROR, MSG_PRODUTO_NAO_ENCONTRADO)));
     }
@@ -133,6 +192,7 @@ public class ProductController {
         return productRepository.findById(id).map(p -> {
             p.setQuantidadeEstoque(qtd.intValue());
             productRepository.save(p);
+            catalogCache.invalidate(id);
             return ResponseEntity.ok(Map.<String, Object>of(KEY_MESSAGE, "Estoque atualizado com sucesso"));
         }).orElse(ResponseEntity.status(404).body(Map.<String, Object>of(KEY_ERROR, MSG_PRODUTO_NAO_ENCONTRADO)));
     }
@@ -140,40 +200,75 @@ public class ProductController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> delete(@PathVariable Long id) {
         return productRepository.findById(id).map(p -> {
-            if (p.getImagem() != null)
-                deleteImage(p.getImagem());
+            imageProcessor.remove(id);
             productRepository.deleteById(id);
+            catalogCache.invalidate(id);
             return ResponseEntity.ok(Map.<String, Object>of(KEY_MESSAGE, "Produto deletado com sucesso"));
         }).orElse(ResponseEntity.status(404).body(Map.<String, Object>of(KEY_ERROR, MSG_PRODUTO_NAO_ENCONTRADO)));
     }
 
-    // Servir imagens
+    // Upload da foto em binário (multipart, campo "imagem"), sem base64 no JSON
+    @PostMapping(value = "/{id}/imagem", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> uploadImage(@PathVariable Long id,
+            @RequestPart("imagem") MultipartFile arquivo) throws IOException {
+        try (InputStream in = arquivo.getInputStream()) {
+            return storeUploadedImage(id, in);
+        }
+    }
+
+    // Mesmo upload com o corpo da requisição sendo a própria imagem
+    @PutMapping(value = "/{id}/imagem", consumes = { MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE,
+            MediaType.IMAGE_GIF_VALUE, "image/webp", MediaType.APPLICATION_OCTET_STREAM_VALUE })
+    public ResponseEntity<Map<String, Object>> uploadImageRaw(@PathVariable Long id, HttpServletRequest request)
+            throws IOException {
+        try (InputStream in = request.getInputStream()) {
+            return storeUploadedImage(id, in);
+        }
+    }
+
+    // Servir imagens: arquivo em streaming com ETag/Last-Modified; requisições
+    // condicionais (If-None-Match / If-Modified-Since) recebem 304 sem corpo
     @GetMapping(value = "/imagem/{fileName}")
-    public ResponseEntity<byte[]> getImage(@PathVariable("fileName") String fileName) throws IOException {
+    public ResponseEntity<Resource> getImage(@PathVariable("fileName") String fileName,
+            @RequestParam(value = "v", required = false) String versao) throws IOException {
         if (DEFAULT_IMAGE.equals(fileName)) {
-            Path defaultPath = Paths.get(UPLOADS_DIR, PRODUTOS_DIR, DEFAULT_IMAGE);
-            if (!Files.exists(defaultPath)) {
-                return ResponseEntity.status(404).build();
-            }
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_PNG)
-                    .body(Files.readAllBytes(defaultPath));
+            return imageStore.padrao()
+                    .map(img -> imageResponse(img, CACHE_PADRAO))
+                    .orElse(ResponseEntity.status(404).build());
         }
-        if (!fileName.matches("produto_\\d+\\.(png|jpeg|jpg|gif|webp)")) {
+        if (!fileName.matches("produto_\\d+(_thumb)?\\.(png|jpeg|jpg|gif|webp)")) {
             return ResponseEntity.badRequest().build();
         }
-        Path path = Paths.get(UPLOADS_DIR, PRODUTOS_DIR, fileName);
-        if (!Files.exists(path)) {
-            Path defaultPath = Paths.get(UPLOADS_DIR, PRODUTOS_DIR, DEFAULT_IMAGE);
-            if (Files.exists(defaultPath)) {
-                return ResponseEntity.ok().contentType(MediaType.IMAGE_PNG).body(Files.readAllBytes(defaultPath));
-            }
-            return ResponseEntity.status(404).build();
+        var imagem = imageStore.find(fileName);
+        if (imagem.isEmpty() && fileName.contains("_thumb")) {
+            // miniatura ainda não gerada (foto anterior ao pipeline): usa a de detalhe
+            imagem = imageStore.find(fileName.substring(0, fileName.indexOf("_thumb")) + ".png");
         }
-        return ResponseEntity.ok().contentType(resolveMediaType(fileName)).body(Files.readAllBytes(path));
+        if (imagem.isEmpty()) {
+            // sem cache longo: a foto pode ser enviada depois com o mesmo nome
+            return imageStore.padrao()
+                    .map(img -> imageResponse(img, CACHE_REVALIDAR))
+                    .orElse(ResponseEntity.status(404).build());
+        }
+        // O nome do arquivo não muda quando a foto é trocada: sem ?v= o navegador
+        // revalida (304 pelo ETag); com ?v= a URL identifica a versão e pode ficar em cache
+        CacheControl cache = versao == null ? CACHE_REVALIDAR : CACHE_VERSIONADA;
+        return imageResponse(imagem.get(), cache);
+    }
+
+    private static ResponseEntity<Resource> imageResponse(ProductImageStore.Imagem img, CacheControl cache) {
+        return ResponseEntity.ok()
+                .contentType(img.mediaType())
+                .eTag(img.etag())
+                .lastModified(img.lastModified())
+                .cacheControl(cache)
+                .body(img.resource());
     }
 
-    private String processImage(String base64, Long produtoId) {
+    // Valida e decodifica o data-URI; o redimensionamento roda em segundo plano
+    // (ProductImageProcessor), enfileirado depois de gravar a referência no
+    // produto. Retorna os bytes da imagem ou null se inválido.
+    private byte[] decodeImage(String base64) {
         try {
             String[] parts = base64.split(",", 2);
             String meta = parts[0];
@@ -186,132 +281,12 @@ public class ProductController {
             }
 
             // Decodificar base64
-            byte[] bytes = java.util.Base64.getDecoder().decode(data);
-
-            // Redimensionar para 300x300px
-            byte[] resizedBytes = resizeImageTo300x300(bytes);
-
-            String fileName = "produto_" + produtoId + ".png"; // Sempre salvar como PNG para qualidade
-            Path dir = Paths.get(UPLOADS_DIR, PRODUTOS_DIR);
-            Files.createDirectories(dir);
-            Path file = dir.resolve(fileName);
-            Files.write(file, resizedBytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            return fileName;
+            return java.util.Base64.getDecoder().decode(data);
         } catch (Exception e) {
             return null;
         }
     }
 
-    private byte[] resizeImageTo300x300(byte[] originalImageBytes) throws IOException {
-        // Ler imagem original
-        java.io.ByteArrayInputStream bais = new java.io.ByteArrayInputStream(originalImageBytes);
-        java.awt.image.BufferedImage originalImage = javax.imageio.ImageIO.read(bais);
-
-        if (originalImage == null) {
-            throw new IOException("Não foi possível ler a imagem");
-        }
-
-        // Criar nova imagem 300x300
-        java.awt.image.BufferedImage resizedImage = new java.awt.image.BufferedImage(
-                300, 300, java.awt.image.BufferedImage.TYPE_INT_RGB);
-
-        // Configurar renderização de alta qualidade
-        java.awt.Graphics2D g2d = resizedImage.createGraphics();
-        g2d.setRenderingHint(java.awt.RenderingHints.KEY_INTERPOLATION,
-                java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.setRenderingHint(java.awt.RenderingHints.KEY_RENDERING,
-                java.awt.RenderingHints.VALUE_RENDER_QUALITY);
-        g2d.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING,
-                java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Preencher fundo branco
-        g2d.setColor(java.awt.Color.WHITE);
-        g2d.fillRect(0, 0, 300, 300);
-
-        // Calcular dimensões para manter proporção e centralizar
-        int sourceWidth = originalImage.getWidth();
-        int sourceHeight = originalImage.getHeight();
-        int sourceX = 0;
-        int sourceY = 0;
-
-        if (sourceWidth > sourceHeight) {
-            // Imagem mais larga - cortar laterais para ficar quadrada
-            sourceWidth = sourceHeight;
-            sourceX = (originalImage.getWidth() - sourceHeight) / 2;
-        } else if (sourceHeight > sourceWidth) {
-            // Imagem mais alta - cortar topo/fundo para ficar quadrada
-            sourceHeight = sourceWidth;
-            sourceY = (originalImage.getHeight() - sourceWidth) / 2;
-        }
-
-        // Desenhar imagem redimensionada
-        g2d.drawImage(originalImage,
-                0, 0, 300, 300, // destino (canvas)
-                sourceX, sourceY, sourceX + sourceWidth, sourceY + sourceHeight, // origem (imagem)
-                null);
-        g2d.dispose();
-
-        // Converter para bytes com compressão agressiva para ficar abaixo de 200KB
-        return compressImageTo200KB(resizedImage);
-    }
-
-    private byte[] compressImageTo200KB(java.awt.image.BufferedImage image) throws IOException {
-        // Compressão agressiva - priorizar tamanho pequeno sobre qualidade
-        // Tentar JPEG com várias qualidades, priorizando a menor possível
-
-        for (float quality = 0.5f; quality >= 0.05f; quality -= 0.05f) {
-            byte[] jpegBytes = compressAsJPEG(image, quality);
-
-            // Se ficou menor que 200KB ou é a última tentativa, usar este
-            if (jpegBytes.length <= 200 * 1024 || quality <= 0.05f) {
-                return jpegBytes;
-            }
-        }
-
-        // Fallback: JPEG com qualidade mínima
-        return compressAsJPEG(image, 0.05f);
-    }
-
-    private byte[] compressAsJPEG(java.awt.image.BufferedImage image, float quality) throws IOException {
-        java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-        javax.imageio.ImageWriter writer = javax.imageio.ImageIO.getImageWritersByFormatName("jpg").next();
-        javax.imageio.stream.ImageOutputStream ios = javax.imageio.ImageIO.createImageOutputStream(baos);
-        writer.setOutput(ios);
-
-        javax.imageio.ImageWriteParam param = writer.getDefaultWriteParam();
-        param.setCompressionMode(javax.imageio.ImageWriteParam.MODE_EXPLICIT);
-        param.setCompressionQuality(quality);
-
-        writer.write(null, new javax.imageio.IIOImage(image, null, null), param);
-        writer.dispose();
-        ios.close();
-
-        return baos.toByteArray();
-    }
-
-    private void deleteImage(String fileName) {
-        try {
-            Files.deleteIfExists(Paths.get(UPLOADS_DIR, PRODUTOS_DIR, fileName));
-        } catch (Exception e) {
-            // silencioso: exclusão falhando não é crítica
-        }
-    }
-
-    private MediaType resolveMediaType(String fileName) {
-        MediaType contentType = MediaType.IMAGE_JPEG;
-        String ext = StringUtils.getFilenameExtension(fileName);
-        if ("png".equalsIgnoreCase(ext)) {
-            return MediaType.IMAGE_PNG;
-        }
-        if ("gif".equalsIgnoreCase(ext)) {
-            return MediaType.IMAGE_GIF;
-        }
-        if ("webp".equalsIgnoreCase(ext)) {
-            return MediaType.valueOf("image/webp");
-        }
-        return contentType;
-    }
-
     public static class DuplicateBarcodeException extends RuntimeException {
         public DuplicateBarcodeException(String message) {
             super(message);
@@ -332,20 +307,68 @@ public class ProductController {
         return null;
     }
 
+    /**
+     * Copia o upload para um temporário em uploads/produtos (sem manter a
+     * imagem no heap), confere o formato pelos bytes iniciais, grava a
+     * referência no produto e só então entrega o arquivo ao
+     * ProductImageProcessor.
+     */
+    private ResponseEntity<Map<String, Object>> storeUploadedImage(Long id, InputStream in) throws IOException {
+        var produto = productRepository.findById(id).orElse(null);
+        if (produto == null)
+            return ResponseEntity.status(404).body(Map.of(KEY_ERROR, MSG_PRODUTO_NAO_ENCONTRADO));
+        Files.createDirectories(imageStore.dir());
+        Path tmp = Files.createTempFile(imageStore.dir(), ".upload_" + id + "_", ".tmp");
+        boolean entregue = false;
+        try {
+            long tamanho = copyLimited(in, tmp, MAX_UPLOAD_BYTES);
+            if (tamanho < 0)
+                return ResponseEntity.status(413).body(Map.of(KEY_ERROR, "Imagem maior que 10MB"));
+            String formato = ProductImageProcessor.detectFormat(tmp);
+            if (formato == null)
+                return ResponseEntity.badRequest()
+                        .body(Map.of(KEY_ERROR, "Formato de imagem não suportado. Use JPG, PNG ou GIF."));
+            // referência gravada antes do job: uma foto ilegível pode limpá-la
+            String nome = ProductImageProcessor.Rendicao.DETALHE.fileName(id);
+            produto.setImagem(nome);
+            productRepository.save(produto);
+            catalogCache.invalidate(id);
+            imageProcessor.enqueue(id, tmp);
+            entregue = true;
+            Map<String, Object> body = new java.util.LinkedHashMap<>();
+            body.put(KEY_MESSAGE, "Imagem recebida; processamento em andamento");
+            body.put(KEY_IMAGEM, nome);
+            return ResponseEntity.accepted().body(body);
+        } finally {
+            if (!entregue)
+                Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Copia até {@code limite} bytes; retorna -1 se o conteúdo passar do limite. */
+    private static long copyLimited(InputStream in, Path destino, long limite) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(destino)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                total += n;
+                if (total > limite)
+                    return -1;
+                out.write(buffer, 0, n);
+            }
+        }
+        return total;
+    }
+
     private String computeUpdatedImage(String imagemAtual, String imagemRequest, Long id) {
         String novaImagem = imagemAtual;
         if (imagemRequest == null) {
             return novaImagem;
         }
-        if (imagemRequest.startsWith(DATA_IMAGE_PREFIX)) {
-            if (imagemAtual != null) {
-                deleteImage(imagemAtual);
-            }
-            return processImage(imagemRequest, id);
-        }
         if (imagemRequest.isEmpty()) {
             if (imagemAtual != null) {
-                deleteImage(imagemAtual);
+                imageProcessor.remove(id);
             }
             return null;
         }
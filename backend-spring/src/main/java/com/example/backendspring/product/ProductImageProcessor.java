@@ -0,0 +1,339 @@
+package com.example.backendspring.product;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processamento das fotos de produto fora da thread da requisição: recorte
+ * quadrado central, redimensionamento e JPEG para cada rendição
+ * ({@link Rendicao}), gravadas em uploads/produtos.
+ *
+ * O cadastro/edição grava no produto o nome do arquivo de detalhe e só então
+ * enfileira o original (assim a limpeza de uma foto inválida encontra a
+ * referência); até o processamento terminar o GET da imagem devolve a
+ * anterior (ou a padrão). A miniatura é pedida pelas listagens. Cada envio recebe uma geração por produto e apenas
+ * a mais recente é publicada, então envios seguidos ou a remoção da foto não
+ * são sobrescritos por um job atrasado. Os arquivos são escritos em temporário
+ * e movidos, nunca servidos pela metade.
+ *
+ * O pool é limitado ({@code workers} threads, fila de {@code fila} jobs); com a
+ * fila cheia o job roda na própria thread que enviou. A qualidade JPEG é
+ * escolhida por busca binária abaixo do limite de bytes, com um ImageWriter
+ * por job, liberado ao final (o job pode rodar numa thread do Tomcat).
+ */
+@Component
+public class ProductImageProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImageProcessor.class);
+
+    private static final float QUALIDADE_MAX = 0.5f;
+    private static final float QUALIDADE_MIN = 0.05f;
+    private static final int PASSOS_BUSCA = 6;
+
+    /** Rendições geradas para cada foto. */
+    public enum Rendicao {
+        // nome .png mantido por compatibilidade com os arquivos já existentes
+        DETALHE(".png", 300, 200 * 1024),
+        MINIATURA("_thumb.jpg", 96, 24 * 1024);
+
+        final String sufixo;
+        final int lado;
+        final int limiteBytes;
+
+        Rendicao(String sufixo, int lado, int limiteBytes) {
+            this.sufixo = sufixo;
+            this.lado = lado;
+            this.limiteBytes = limiteBytes;
+        }
+
+        public String fileName(Long produtoId) {
+            return "produto_" + produtoId + sufixo;
+        }
+    }
+
+    private final ProductImageStore store;
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache catalogCache;
+    private final ThreadPoolExecutor workers;
+
+    private final AtomicLong geracoes = new AtomicLong();
+    private final ConcurrentHashMap<Long, Long> geracaoAtual = new ConcurrentHashMap<>();
+
+    public ProductImageProcessor(ProductImageStore store, ProductRepository productRepository,
+            ProductCatalogCache catalogCache,
+            @Value("${app.product-images.workers:2}") int workers,
+            @Value("${app.product-images.fila:32}") int fila) {
+        this.store = store;
+        this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
+        AtomicInteger seq = new AtomicInteger();
+        int n = Math.max(1, workers);
+        this.workers = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, fila)), r -> {
+                    Thread t = new Thread(r, "product-image-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Enfileira a foto original do produto e devolve o nome do arquivo de
+     * detalhe a gravar em produtos.imagem.
+     */
+    public String enqueue(Long produtoId, byte[] original) {
+        return submit(produtoId, () -> ImageIO.read(new ByteArrayInputStream(original)), () -> {
+        });
+    }
+
+    /**
+     * Como {@link #enqueue(Long, byte[])}, lendo o original de um arquivo
+     * temporário (upload em streaming). O processador assume o arquivo e o
+     * apaga ao terminar.
+     */
+    public String enqueue(Long produtoId, Path arquivoTemporario) {
+        return submit(produtoId, () -> ImageIO.read(arquivoTemporario.toFile()), () -> {
+            try {
+                Files.deleteIfExists(arquivoTemporario);
+            } catch (IOException e) {
+                log.debug("Temporário de imagem não removido: {}", arquivoTemporario);
+            }
+        });
+    }
+
+    private String submit(Long produtoId, Leitura leitura, Runnable aoTerminar) {
+        long geracao = geracoes.incrementAndGet();
+        geracaoAtual.put(produtoId, geracao);
+        try {
+            workers.execute(() -> {
+                try {
+                    process(produtoId, geracao, leitura);
+                } finally {
+                    aoTerminar.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            // pool encerrado (desligamento)
+            aoTerminar.run();
+            throw e;
+        }
+        return Rendicao.DETALHE.fileName(produtoId);
+    }
+
+    /**
+     * Formato pelos bytes iniciais do arquivo (jpeg, png, gif ou webp), ou null
+     * se não for uma imagem que o ImageIO desta JVM consiga ler.
+     */
+    public static String detectFormat(Path arquivo) throws IOException {
+        byte[] h = new byte[12];
+        int n;
+        try (var in = Files.newInputStream(arquivo)) {
+            n = in.readNBytes(h, 0, h.length);
+        }
+        String formato = null;
+        if (n >= 3 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xFF) == 0xD8 && (h[2] & 0xFF) == 0xFF) {
+            formato = "jpeg";
+        } else if (n >= 8 && (h[0] & 0xFF) == 0x89 && h[1] == 'P' && h[2] == 'N' && h[3] == 'G'
+                && h[4] == 0x0D && h[5] == 0x0A && h[6] == 0x1A && h[7] == 0x0A) {
+            formato = "png";
+        } else if (n >= 6 && h[0] == 'G' && h[1] == 'I' && h[2] == 'F' && h[3] == '8'
+                && (h[4] == '7' || h[4] == '9') && h[5] == 'a') {
+            formato = "gif";
+        } else if (n >= 12 && h[0] == 'R' && h[1] == 'I' && h[2] == 'F' && h[3] == 'F'
+                && h[8] == 'W' && h[9] == 'E' && h[10] == 'B' && h[11] == 'P') {
+            formato = "webp";
+        }
+        if (formato == null || !ImageIO.getImageReadersByFormatName(formato).hasNext())
+            return null;
+        return formato;
+    }
+
+    /** Remove as rendições do produto e descarta jobs ainda em andamento. */
+    public void remove(Long produtoId) {
+        geracaoAtual.remove(produtoId);
+        for (Rendicao r : Rendicao.values()) {
+            try {
+                Files.deleteIfExists(store.dir().resolve(r.fileName(produtoId)));
+            } catch (IOException e) {
+                // silencioso: exclusão falhando não é crítica
+            }
+        }
+    }
+
+    private void process(Long produtoId, long geracao, Leitura leitura) {
+        long t0 = System.nanoTime();
+        try {
+            BufferedImage imagem = leitura.read();
+            if (imagem == null)
+                throw new IOException("Não foi possível ler a imagem");
+            Files.createDirectories(store.dir());
+            Path[] temporarios = new Path[Rendicao.values().length];
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            try {
+                BufferedImage base = imagem;
+                for (Rendicao r : Rendicao.values()) {
+                    // rendições em ordem decrescente: cada uma parte da anterior
+                    base = cropResize(base, r.lado);
+                    Path tmp = Files.createTempFile(store.dir(), "." + r.fileName(produtoId), ".tmp");
+                    temporarios[r.ordinal()] = tmp;
+                    Files.write(tmp, encodeJpeg(writer, base, r.limiteBytes));
+                }
+                publicar(produtoId, geracao, temporarios);
+            } finally {
+                writer.dispose();
+                for (Path tmp : temporarios) {
+                    if (tmp != null)
+                        Files.deleteIfExists(tmp);
+                }
+            }
+            log.debug("Imagem do produto {} processada em {} ms", produtoId, (System.nanoTime() - t0) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Falha ao processar imagem do produto {}: {}", produtoId, e.getMessage());
+            descartarReferencia(produtoId, geracao);
+        } finally {
+            geracaoAtual.remove(produtoId, geracao);
+        }
+    }
+
+    private void publicar(Long produtoId, long geracao, Path[] temporarios) {
+        // compute segura a entrada do produto: enqueue/remove esperam os moves
+        geracaoAtual.computeIfPresent(produtoId, (id, atual) -> {
+            if (atual != geracao)
+                return atual;
+            try {
+                for (Rendicao r : Rendicao.values()) {
+                    Files.move(temporarios[r.ordinal()], store.dir().resolve(r.fileName(produtoId)),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+            return atual;
+        });
+    }
+
+    /**
+     * Foto inválida: se ainda é o envio mais recente e não há arquivo anterior,
+     * tira a referência do produto para não apontar para um arquivo que não
+     * existirá.
+     */
+    private void descartarReferencia(Long produtoId, long geracao) {
+        if (!Long.valueOf(geracao).equals(geracaoAtual.get(produtoId)))
+            return;
+        String nome = Rendicao.DETALHE.fileName(produtoId);
+        if (Files.exists(store.dir().resolve(nome)))
+            return;
+        try {
+            productRepository.findById(produtoId)
+                    .filter(p -> nome.equals(p.getImagem()))
+                    .ifPresent(p -> {
+                        p.setImagem(null);
+                        productRepository.save(p);
+                        catalogCache.invalidate(produtoId);
+                    });
+        } catch (Exception e) {
+            log.warn("Falha ao limpar imagem do produto {}: {}", produtoId, e.getMessage());
+        }
+    }
+
+    /** Recorte quadrado central redimensionado para lado x lado, fundo branco. */
+    static BufferedImage cropResize(BufferedImage original, int lado) {
+        BufferedImage resized = new BufferedImage(lado, lado, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = resized.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, lado, lado);
+
+        int sourceWidth = original.getWidth();
+        int sourceHeight = original.getHeight();
+        int sourceX = 0;
+        int sourceY = 0;
+        if (sourceWidth > sourceHeight) {
+            // Imagem mais larga - cortar laterais para ficar quadrada
+            sourceWidth = sourceHeight;
+            sourceX = (original.getWidth() - sourceHeight) / 2;
+        } else if (sourceHeight > sourceWidth) {
+            // Imagem mais alta - cortar topo/fundo para ficar quadrada
+            sourceHeight = sourceWidth;
+            sourceY = (original.getHeight() - sourceWidth) / 2;
+        }
+        g2d.drawImage(original, 0, 0, lado, lado,
+                sourceX, sourceY, sourceX + sourceWidth, sourceY + sourceHeight, null);
+        g2d.dispose();
+        return resized;
+    }
+
+    /**
+     * Maior qualidade (até {@value #QUALIDADE_MAX}) cujo JPEG cabe no limite;
+     * se nem a mínima couber, usa a mínima.
+     */
+    static byte[] encodeJpeg(ImageWriter writer, BufferedImage image, int limiteBytes) throws IOException {
+        byte[] jpeg = writeJpeg(writer, image, QUALIDADE_MAX);
+        if (jpeg.length <= limiteBytes)
+            return jpeg;
+        byte[] melhor = null;
+        float lo = QUALIDADE_MIN;
+        float hi = QUALIDADE_MAX;
+        for (int i = 0; i < PASSOS_BUSCA; i++) {
+            float q = (lo + hi) / 2;
+            jpeg = writeJpeg(writer, image, q);
+            if (jpeg.length <= limiteBytes) {
+                melhor = jpeg;
+                lo = q;
+            } else {
+                hi = q;
+            }
+        }
+        return melhor != null ? melhor : writeJpeg(writer, image, QUALIDADE_MIN);
+    }
+
+    private static byte[] writeJpeg(ImageWriter writer, BufferedImage image, float quality) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(64 * 1024);
+        try (MemoryCacheImageOutputStream ios = new MemoryCacheImageOutputStream(baos)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.reset();
+        }
+        return baos.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Leitura {
+        BufferedImage read() throws IOException;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.backendspring.product;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/**
+ * Arquivos de imagem de produto em uploads/produtos, para servir sem carregar
+ * o arquivo no heap: cada imagem vira um {@link FileSystemResource} (copiado
+ * em streaming para a resposta) com ETag e Last-Modified tirados dos
+ * atributos do arquivo. A imagem padrão (padrao.png), usada por todos os
+ * produtos sem foto, é lida uma vez e mantida em memória.
+ */
+@Component
+public class ProductImageStore {
+
+    static final String DEFAULT_IMAGE = "padrao.png";
+
+    private final Path dir = Paths.get("uploads", "produtos");
+
+    // null até a primeira leitura bem-sucedida
+    private volatile Imagem padrao;
+
+    public Path dir() {
+        return dir;
+    }
+
+    /** Arquivo da imagem, se existir; não lê o conteúdo. */
+    public Optional<Imagem> find(String fileName) throws IOException {
+        Path file = dir.resolve(fileName);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(attrs.size()) + "-" + Long.toHexString(lastModified) + "\"";
+        return Optional.of(new Imagem(new FileSystemResource(file), resolveMediaType(fileName), etag, lastModified));
+    }
+
+    /** Imagem padrão em memória; lida do disco só na primeira vez que existir. */
+    public Optional<Imagem> padrao() throws IOException {
+        Imagem p = padrao;
+        if (p != null)
+            return Optional.of(p);
+        synchronized (this) {
+            if (padrao == null) {
+                Path file = dir.resolve(DEFAULT_IMAGE);
+                if (!Files.exists(file))
+                    return Optional.empty();
+                byte[] bytes = Files.readAllBytes(file);
+                padrao = new Imagem(new ByteArrayResource(bytes), MediaType.IMAGE_PNG,
+                        "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"", Files.getLastModifiedTime(file).toMillis());
+            }
+            return Optional.of(padrao);
+        }
+    }
+
+    static MediaType resolveMediaType(String fileName) {
+        MediaType contentType = MediaType.IMAGE_JPEG;
+        String ext = StringUtils.getFilenameExtension(fileName);
+        if ("png".equalsIgnoreCase(ext)) {
+            return MediaType.IMAGE_PNG;
+        }
+        if ("gif".equalsIgnoreCase(ext)) {
+            return MediaType.IMAGE_GIF;
+        }
+        if ("webp".equalsIgnoreCase(ext)) {
+            return MediaType.valueOf("image/webp");
+        }
+        return contentType;
+    }
+
+    public record Imagem(Resource resource, MediaType mediaType, String etag, long lastModified) {
+    }
+}
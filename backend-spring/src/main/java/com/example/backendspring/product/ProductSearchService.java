@@ -0,0 +1,107 @@
+package com.example.backendspring.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Busca paginada de produtos no Postgres, para telas que não devem carregar o
+ * catálogo inteiro.
+ *
+ * O termo casa com qualquer parte do nome (sem diferenciar maiúsculas; índice
+ * trigram em lower(nome)) ou com o início do código de barras (índice de
+ * prefixo). O filtro de estoque baixo usa o índice em quantidade_estoque. A
+ * ordenação aceita apenas colunas conhecidas, sempre com id como desempate
+ * para manter as páginas estáveis.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductSearchService {
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "nome", "lower(nome)",
+            "preco", "preco_venda",
+            "estoque", "quantidade_estoque",
+            "codigo", "codigo_barras",
+            "id", "id");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param estoqueAbaixoDe se informado, apenas produtos com
+     *                        quantidade_estoque menor que o valor
+     * @throws IllegalArgumentException para sort/order desconhecidos
+     */
+    public Pagina buscar(String q, Integer estoqueAbaixoDe, String sort, String order, int page, int size) {
+        String coluna = SORT_COLUMNS.get(sort == null || sort.isBlank() ? "nome" : sort.toLowerCase(Locale.ROOT));
+        if (coluna == null)
+            throw new IllegalArgumentException("sort inválido: " + sort);
+        String direcao;
+        if (order == null || order.isBlank() || order.equalsIgnoreCase("asc")) {
+            direcao = "ASC";
+        } else if (order.equalsIgnoreCase("desc")) {
+            direcao = "DESC";
+        } else {
+            throw new IllegalArgumentException("order inválido: " + order);
+        }
+
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder(" WHERE 1=1");
+        if (q != null && !q.isBlank()) {
+            String termo = escapeLike(q.trim().toLowerCase(Locale.ROOT));
+            where.append(" AND (lower(nome) LIKE ? OR codigo_barras LIKE ?)");
+            args.add("%" + termo + "%");
+            args.add(escapeLike(q.trim()) + "%");
+        }
+        if (estoqueAbaixoDe != null) {
+            where.append(" AND quantidade_estoque < ?");
+            args.add(estoqueAbaixoDe);
+        }
+
+        List<Object> pageArgs = new ArrayList<>(args);
+        pageArgs.add(size);
+        pageArgs.add((long) page * size);
+        long[] total = { -1 };
+        List<Product> items = jdbcTemplate.query(
+                "SELECT id, nome, codigo_barras, preco_venda, quantidade_estoque, imagem, count(*) OVER () AS total "
+                        + "FROM produtos" + where + " ORDER BY " + coluna + " " + direcao + ", id " + direcao
+                        + " LIMIT ? OFFSET ?",
+                (rs, i) -> {
+                    total[0] = rs.getLong("total");
+                    return Product.builder()
+                            .id(rs.getLong("id"))
+                            .nome(rs.getString("nome"))
+                            .codigoBarras(rs.getString("codigo_barras"))
+                            .precoVenda(rs.getDouble("preco_venda"))
+                            .quantidadeEstoque(rs.getInt("quantidade_estoque"))
+                            .imagem(rs.getString("imagem"))
+                            .build();
+                }, pageArgs.toArray());
+        if (total[0] < 0) {
+            // página vazia (ou além do fim): o total vem de uma contagem separada
+            Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM produtos" + where, Long.class,
+                    args.toArray());
+            total[0] = count == null ? 0 : count;
+        }
+        return new Pagina(items, total[0]);
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public static class Pagina {
+        public final List<Product> items;
+        public final long total;
+
+        Pagina(List<Product> items, long total) {
+            this.items = items;
+            this.total = total;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.backendspring.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Reserva (baixa) de estoque de um carrinho em quantidade fixa de consultas,
+ * independente do número de itens:
+ * <ol>
+ * <li>um SELECT ... FOR UPDATE com todos os produtos, em ordem de id (evita
+ * deadlock entre caixas vendendo os mesmos produtos);</li>
+ * <li>verificação das faltas contra o estoque bloqueado;</li>
+ * <li>um UPDATE em lote condicional ({@code quantidade_estoque >= qtd}).</li>
+ * </ol>
+ * Deve rodar dentro da transação do checkout: os locks valem até o commit,
+ * então duas vendas da última unidade não passam ao mesmo tempo.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductCatalogCache catalogCache;
+
+    /**
+     * @param quantidades quantidade solicitada por id de produto (itens
+     *                    repetidos já somados)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Reserva reservar(Map<Long, Integer> quantidades) {
+        SortedMap<Long, Integer> pedidos = new TreeMap<>(quantidades);
+        Map<Long, Product> produtos = new HashMap<>();
+        for (Product p : productRepository.findAllByIdForUpdate(pedidos.keySet())) {
+            produtos.put(p.getId(), p);
+        }
+
+        List<Long> naoEncontrados = new ArrayList<>();
+        List<Falta> faltas = new ArrayList<>();
+        for (var e : pedidos.entrySet()) {
+            Product p = produtos.get(e.getKey());
+            if (p == null) {
+                naoEncontrados.add(e.getKey());
+            } else if (p.getQuantidadeEstoque() < e.getValue()) {
+                faltas.add(new Falta(p.getId(), p.getNome(), e.getValue(), p.getQuantidadeEstoque()));
+            }
+        }
+        if (!naoEncontrados.isEmpty() || !faltas.isEmpty()) {
+            return new Reserva(produtos, naoEncontrados, faltas);
+        }
+
+        Long[] ids = pedidos.keySet().toArray(new Long[0]);
+        Integer[] qtds = pedidos.values().toArray(new Integer[0]);
+        int atualizados = jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("UPDATE produtos p SET quantidade_estoque = p.quantidade_estoque - v.qtd "
+                    + "FROM unnest(?::bigint[], ?::int[]) AS v(id, qtd) "
+                    + "WHERE p.id = v.id AND p.quantidade_estoque >= v.qtd");
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setArray(2, con.createArrayOf("integer", qtds));
+            return ps;
+        });
+        if (atualizados != ids.length) {
+            // não deveria ocorrer com as linhas bloqueadas; aborta a transação
+            throw new IllegalStateException(
+                    "Baixa de estoque incompleta: " + atualizados + " de " + ids.length + " produtos");
+        }
+        // mantém as entidades (somente leitura) coerentes com o banco
+        for (var e : pedidos.entrySet()) {
+            Product p = produtos.get(e.getKey());
+            p.setQuantidadeEstoque(p.getQuantidadeEstoque() - e.getValue());
+        }
+        catalogCache.invalidate(pedidos.keySet());
+        return new Reserva(produtos, naoEncontrados, faltas);
+    }
+
+    public static class Reserva {
+        public final Map<Long, Product> produtos;
+        public final List<Long> naoEncontrados;
+        public final List<Falta> faltas;
+
+        Reserva(Map<Long, Product> produtos, List<Long> naoEncontrados, List<Falta> faltas) {
+            this.produtos = produtos;
+            this.naoEncontrados = naoEncontrados;
+            this.faltas = faltas;
+        }
+
+        public boolean isOk() {
+            return naoEncontrados.isEmpty() && faltas.isEmpty();
+        }
+    }
+
+    public static class Falta {
+        public final Long produtoId;
+        public final String nome;
+        public final int solicitado;
+        public final int disponivel;
+
+        Falta(Long produtoId, String nome, int solicitado, int disponivel) {
+            this.produtoId = produtoId;
+            this.nome = nome;
+            this.solicitado = solicitado;
+            this.disponivel = disponivel;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("produto_id", produtoId);
+            m.put("nome", nome);
+            m.put("solicitado", solicitado);
+            m.put("disponivel", disponivel);
+            return m;
+        }
+    }
+}
@@ -26,6 +26,8 @@ public class AuditController {
     private final SaleOrderRepository saleOrderRepository;
     private final com.example.backendspring.product.ProductRepository productRepository;
     private final ObjectMapper objectMapper;
+    private final com.example.backendspring.product.ProductCatalogCache productCatalogCache;
+    private final SaleDailyRollup saleDailyRollup;
 
     @GetMapping("/sales")
     public ResponseEntity<Map<String, Object>> listDeletedSales(
@@ -98,6 +100,7 @@ public class AuditController {
 
                 produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - quantidade);
                 productRepository.save(produto);
+                productCatalogCache.invalidate(produto.getId());
 
                 OffsetDateTime dt = OffsetDateTime.parse(dataVendaStr);
                 SaleOrder order = SaleOrder.builder()
@@ -126,6 +129,7 @@ public class AuditController {
                 order.getPagamentos().add(sp);
 
                 saleOrderRepository.save(order);
+                saleDailyRollup.onSaleCreated(order);
                 return ResponseEntity.ok(Map.of("message", "Venda restaurada como order com sucesso"));
             } else if ("checkout".equals(type)) {
                 // payload expected to have keys: id, data_venda, subtotal, desconto, acrescimo,
@@ -168,6 +172,7 @@ public class AuditController {
 
                     produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - quantidade);
                     productRepository.save(produto);
+                    productCatalogCache.invalidate(produto.getId());
 
                     SaleItem si = SaleItem.builder()
                             .venda(order)
@@ -196,6 +201,7 @@ public class AuditController {
                 }
 
                 saleOrderRepository.save(order);
+                saleDailyRollup.onSaleCreated(order);
                 return ResponseEntity.ok(Map.of("message", "Venda de checkout restaurada com sucesso"));
             }
 
@@ -18,7 +18,6 @@ import org.springframework.web.bind.annotation.*;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Set;
 
@@ -36,8 +35,22 @@ public class CheckoutController {
     private final ObjectMapper objectMapper;
     private final com.example.backendspring.caixa.CaixaStatusRepository caixaStatusRepository;
     private final com.example.backendspring.user.UserRepository userRepository;
+    private final NotaCache notaCache;
+    private final com.example.backendspring.product.StockReservationService stockReservationService;
+    private final com.example.backendspring.product.ProductCatalogCache productCatalogCache;
+    private final SaleDailyRollup saleDailyRollup;
 
     private static final String DEFAULT_PAGAMENTO = "dinheiro";
+    private static final String LIST_FIELD_ITENS = "itens";
+    private static final String LIST_FIELD_PAGAMENTOS = "pagamentos";
+    private static final String LIST_FIELD_ADJUSTMENTS = "adjustments";
+    private static final Set<String> LIST_FIELDS_ALL = Set.of(LIST_FIELD_ITENS, LIST_FIELD_PAGAMENTOS,
+            LIST_FIELD_ADJUSTMENTS);
+    private static final int LIST_DEFAULT_SIZE = 50;
+    private static final int LIST_MAX_SIZE = 200;
+    // limites do intervalo quando from/to não são informados
+    private static final OffsetDateTime LIST_MIN_DATA = OffsetDateTime.parse("1970-01-01T00:00:00Z");
+    private static final OffsetDateTime LIST_MAX_DATA = OffsetDateTime.parse("9999-01-01T00:00:00Z");
     private static final String KEY_ERROR = "error";
     private static final Set<String> ALLOWED_PAYMENT_METHODS = Set.of(
             DEFAULT_PAGAMENTO, "cartao_credito", "cartao_debito", "pix");
@@ -87,12 +100,6 @@ public class CheckoutController {
                 return badRequest(metodoError);
             }
 
-            // validar estoque existente
-            ResponseEntity<Object> estoqueError = validateStock(req.getItens());
-            if (estoqueError != null) {
-                return estoqueError;
-            }
-
             log.info("CHECKOUT request recebido: itens={}, pagamentos={}, subtotal={}, total={}",
                     req.getItens().size(), req.getPagamentos().size(), subtotal, totalFinal);
 
@@ -104,6 +111,13 @@ public class CheckoutController {
                         .body(Map.of("error", "Caixa fechado. Checkout não é permitido quando o caixa está fechado."));
             }
 
+            // reservar estoque: produtos bloqueados em ordem de id e baixa em lote
+            var reserva = stockReservationService.reservar(quantidadesPorProduto(req.getItens()));
+            ResponseEntity<Object> estoqueError = stockError(reserva);
+            if (estoqueError != null) {
+                return estoqueError;
+            }
+
             // criar venda e persistir
             SaleOrder venda = createSaleOrder(subtotal, desconto, acrescimo, totalFinal);
             // associar operador (usuário autenticado) desde o início para persistir
@@ -198,7 +212,7 @@ public class CheckoutController {
             // caixa)
             saleOrderRepository.save(venda);
 
-            addItemsToOrder(venda, req.getItens());
+            addItemsToOrder(venda, req.getItens(), reserva.produtos);
             // Se caixaAtiva foi obtido, preencher operador na venda e em pagamentos
             if (caixaAtiva != null) {
                 try {
@@ -214,6 +228,7 @@ public class CheckoutController {
             addPaymentsToOrder(venda, req.getPagamentos(), caixaAtiva);
 
             saleOrderRepository.save(venda);
+            saleDailyRollup.onSaleCreated(venda);
 
             Map<String, Object> resp = buildResponse(venda);
             // Expor operador no payload de criação para facilitar verificação imediata
@@ -221,6 +236,9 @@ public class CheckoutController {
             return ResponseEntity.status(201).body(resp);
         } catch (Exception e) {
             log.error("Erro no checkout", e);
+            // desfaz baixa de estoque e demais escritas parciais
+            org.springframework.transaction.interceptor.TransactionAspectSupport.currentTransactionStatus()
+                    .setRollbackOnly();
             return ResponseEntity.status(500)
                     .body(Map.of(KEY_ERROR, "Falha ao processar checkout", "details", e.getMessage()));
         }
@@ -233,6 +251,7 @@ public class CheckoutController {
         if (venda == null)
             return ResponseEntity.status(404).body(Map.of(KEY_ERROR, "Venda não encontrada"));
 
+        notaCache.invalidate(id);
         if (payload.containsKey("customerName"))
             venda.setCustomerName(payload.get("customerName"));
         if (payload.containsKey("customerEmail"))
@@ -320,109 +339,183 @@ public class CheckoutController {
         return ResponseEntity.ok(resp);
     }
 
+    /**
+     * Lista de vendas do checkout: uma página ordenada no banco por data desc,
+     * no formato {items, total, hasNext, page, size}, filtrada por from/to
+     * (dias yyyy-MM-dd) e status. Sem parâmetros devolve a primeira página de
+     * resumos; o detalhe de cada venda vem só com
+     * fields=itens,pagamentos,adjustments (ou all). status=NORMAL seleciona
+     * vendas sem ajuste de status.
+     *
+     * all=true devolve a resposta antiga (lista completa com itens, pagamentos
+     * e ajustes), para telas que ainda agregam todas as vendas no navegador.
+     */
     @GetMapping
     @Transactional(readOnly = true)
-    public ResponseEntity<List<Map<String, Object>>> listAll() {
-        List<Map<String, Object>> lista = saleOrderRepository.findAll().stream()
-                .sorted(Comparator.comparing(SaleOrder::getDataVenda).reversed())
-                .map(venda -> {
-                    Map<String, Object> resp = new LinkedHashMap<>();
-                    resp.put("id", venda.getId());
-                    resp.put("data_venda", venda.getDataVenda());
-                    resp.put("subtotal", venda.getSubtotal());
-                    resp.put("desconto", venda.getDesconto());
-                    resp.put("acrescimo", venda.getAcrescimo());
-                    resp.put("total_final", venda.getTotalFinal());
-
-                    var itens = venda.getItens().stream().map(it -> {
-                        Map<String, Object> m = new LinkedHashMap<>();
-                        m.put("produto_id", it.getProduto().getId());
-                        m.put("produto_nome", it.getProduto().getNome());
-                        m.put("produto_imagem", it.getProduto().getImagem());
-                        m.put("quantidade", it.getQuantidade());
-                        m.put("preco_unitario", it.getPrecoUnitario());
-                        m.put("preco_total", it.getPrecoTotal());
-                        return m;
-                    }).toList();
-                    var pagamentos = venda.getPagamentos().stream().map(pg -> {
-                        Map<String, Object> m = new LinkedHashMap<>();
-                        m.put("metodo", pg.getMetodo());
-                        m.put("valor", pg.getValor());
-                        if (pg.getTroco() != null)
-                            m.put("troco", pg.getTroco());
-                        return m;
-                    }).toList();
-
-                    resp.put("itens", itens);
-                    resp.put("pagamentos", pagamentos);
-                    // --- Ajustes / devoluções: calcular net_total & returned_total para manter
-                    // consistência com /vendas/detalhadas ---
-                    try {
-                        var adjustments = saleAdjustmentRepository.findBySaleOrderId(venda.getId());
-                        // incluir lista bruta para frontend (nome padrao "adjustments")
-                        if (adjustments != null) {
-                            var adjsMapped = adjustments.stream().map(a -> {
-                                Map<String, Object> m = new LinkedHashMap<>();
-                                m.put("id", a.getId());
-                                m.put("type", a.getType());
-                                m.put("sale_item_id", a.getSaleItem() != null ? a.getSaleItem().getId() : null);
-                                m.put("quantity", a.getQuantity());
-                                m.put("replacement_product_id", a.getReplacementProductId());
-                                m.put("price_difference", a.getPriceDifference());
-                                m.put("payment_method", a.getPaymentMethod());
-                                m.put("notes", a.getNotes());
-                                m.put("operator_username", a.getOperatorUsername());
-                                m.put("created_at", a.getCreatedAt());
-                                return m;
-                            }).toList();
-                            resp.put("adjustments", adjsMapped);
-                        }
-                        // Calcular returned_total a partir de ajustes 'return'
-                        java.util.Map<Long, Integer> returnedByItem = new java.util.HashMap<>();
-                        if (adjustments != null) {
-                            for (var a : adjustments) {
-                                if ("return".equalsIgnoreCase(a.getType()) && a.getSaleItem() != null) {
-                                    returnedByItem.merge(a.getSaleItem().getId(),
-                                            a.getQuantity() == null ? 0 : a.getQuantity(), Integer::sum);
-                                }
-                            }
-                        }
-                        double returnedTotal = 0.0;
-                        double netTotal = 0.0;
-                        int netQty = 0;
-                        if (venda.getItens() != null) {
-                            for (var it : venda.getItens()) {
-                                int orig = it.getQuantidade() == null ? 0 : it.getQuantidade();
-                                int ret = returnedByItem.getOrDefault(it.getId(), 0);
-                                int eff = Math.max(0, orig - ret);
-                                double unit = it.getPrecoUnitario() == null ? 0.0 : it.getPrecoUnitario();
-                                netQty += eff;
-                                netTotal += unit * eff;
-                                if (ret > 0)
-                                    returnedTotal += unit * ret;
-                            }
-                        }
-                        if (!returnedByItem.isEmpty()) {
-                            resp.put("net_total", netTotal);
-                            resp.put("returned_total", returnedTotal);
-                            resp.put("net_quantidade_vendida", netQty);
-                        }
-                    } catch (Exception ignored) {
-                    }
-                    // include operador and cliente summary for list view
-                    try {
-                        if (venda.getOperador() != null && venda.getOperador().getUsername() != null)
-                            resp.put("operador_username", venda.getOperador().getUsername());
-                    } catch (Exception ignored) {
-                    }
-                    try {
-                        if (venda.getCliente() != null && venda.getCliente().getNome() != null)
-                            resp.put("cliente_nome", venda.getCliente().getNome());
-                    } catch (Exception ignored) {
-                    }
-                    return resp;
+    public ResponseEntity<Object> listAll(
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "all", required = false, defaultValue = "false") boolean all) {
+        if (all) {
+            List<Map<String, Object>> lista = saleOrderRepository.findAllOrderByData().stream()
+                    .map(venda -> buildOrderListRow(venda, LIST_FIELDS_ALL))
+                    .toList();
+            return ResponseEntity.ok(lista);
+        }
+
+        Set<String> campos;
+        OffsetDateTime inicio;
+        OffsetDateTime fim;
+        try {
+            campos = parseListFields(fields);
+            inicio = from == null || from.isBlank() ? LIST_MIN_DATA
+                    : com.example.backendspring.utils.DateTimeUtils.startOfDay(java.time.LocalDate.parse(from));
+            fim = to == null || to.isBlank() ? LIST_MAX_DATA
+                    : com.example.backendspring.utils.DateTimeUtils.startOfNextDay(java.time.LocalDate.parse(to));
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of(KEY_ERROR, e.getMessage()));
+        }
+        boolean semStatus = status != null && "NORMAL".equalsIgnoreCase(status.trim());
+        String statusFiltro = status == null || status.isBlank() || semStatus ? null
+                : status.trim().toUpperCase(java.util.Locale.ROOT);
+        int pageNum = page == null ? 0 : Math.max(0, page);
+        int pageSize = size == null ? LIST_DEFAULT_SIZE : Math.max(1, Math.min(size, LIST_MAX_SIZE));
+
+        long total = saleOrderRepository.countCheckoutPage(inicio, fim, statusFiltro, semStatus);
+        List<SaleOrder> vendas = saleOrderRepository.findCheckoutPage(inicio, fim, statusFiltro, semStatus,
+                org.springframework.data.domain.PageRequest.of(pageNum, pageSize));
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("items", vendas.stream().map(v -> buildOrderListRow(v, campos)).toList());
+        resp.put("total", total);
+        resp.put("hasNext", (long) (pageNum + 1) * pageSize < total);
+        resp.put("page", pageNum);
+        resp.put("size", pageSize);
+        return ResponseEntity.ok(resp);
+    }
+
+    private static Set<String> parseListFields(String fields) {
+        if (fields == null || fields.isBlank())
+            return Set.of();
+        Set<String> campos = new java.util.HashSet<>();
+        for (String f : fields.split(",")) {
+            String campo = f.trim().toLowerCase(java.util.Locale.ROOT);
+            if (campo.isEmpty())
+                continue;
+            if ("all".equals(campo))
+                return LIST_FIELDS_ALL;
+            if (!LIST_FIELDS_ALL.contains(campo))
+                throw new IllegalArgumentException("fields inválido: " + f.trim());
+            campos.add(campo);
+        }
+        return campos;
+    }
+
+    private Map<String, Object> buildOrderListRow(SaleOrder venda, Set<String> campos) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("id", venda.getId());
+        resp.put("data_venda", venda.getDataVenda());
+        resp.put("subtotal", venda.getSubtotal());
+        resp.put("desconto", venda.getDesconto());
+        resp.put("acrescimo", venda.getAcrescimo());
+        resp.put("total_final", venda.getTotalFinal());
+        if (venda.getStatus() != null)
+            resp.put("status", venda.getStatus());
+
+        if (campos.contains(LIST_FIELD_ITENS)) {
+            var itens = venda.getItens().stream().map(it -> {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("produto_id", it.getProduto().getId());
+                m.put("produto_nome", it.getProduto().getNome());
+                m.put("produto_imagem", it.getProduto().getImagem());
+                m.put("quantidade", it.getQuantidade());
+                m.put("preco_unitario", it.getPrecoUnitario());
+                m.put("preco_total", it.getPrecoTotal());
+                return m;
+            }).toList();
+            resp.put("itens", itens);
+        }
+        if (campos.contains(LIST_FIELD_PAGAMENTOS)) {
+            var pagamentos = venda.getPagamentos().stream().map(pg -> {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("metodo", pg.getMetodo());
+                m.put("valor", pg.getValor());
+                if (pg.getTroco() != null)
+                    m.put("troco", pg.getTroco());
+                return m;
+            }).toList();
+            resp.put("pagamentos", pagamentos);
+        }
+        // --- Ajustes / devoluções: calcular net_total & returned_total para manter
+        // consistência com /vendas/detalhadas ---
+        try {
+            var adjustments = venda.getAjustes();
+            // incluir lista bruta para frontend (nome padrao "adjustments")
+            if (adjustments != null && campos.contains(LIST_FIELD_ADJUSTMENTS)) {
+                var adjsMapped = adjustments.stream().map(a -> {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("id", a.getId());
+                    m.put("type", a.getType());
+                    m.put("sale_item_id", a.getSaleItem() != null ? a.getSaleItem().getId() : null);
+                    m.put("quantity", a.getQuantity());
+                    m.put("replacement_product_id", a.getReplacementProductId());
+                    m.put("price_difference", a.getPriceDifference());
+                    m.put("payment_method", a.getPaymentMethod());
+                    m.put("notes", a.getNotes());
+                    m.put("operator_username", a.getOperatorUsername());
+                    m.put("created_at", a.getCreatedAt());
+                    return m;
                 }).toList();
-        return ResponseEntity.ok(lista);
+                resp.put("adjustments", adjsMapped);
+            }
+            // Calcular returned_total a partir de ajustes 'return'
+            java.util.Map<Long, Integer> returnedByItem = new java.util.HashMap<>();
+            if (adjustments != null) {
+                for (var a : adjustments) {
+                    if ("return".equalsIgnoreCase(a.getType()) && a.getSaleItem() != null) {
+                        returnedByItem.merge(a.getSaleItem().getId(),
+                                a.getQuantity() == null ? 0 : a.getQuantity(), Integer::sum);
+                    }
+                }
+            }
+            double returnedTotal = 0.0;
+            double netTotal = 0.0;
+            int netQty = 0;
+            // sem devoluções não há totais líquidos: evita carregar itens no modo resumo
+            if (!returnedByItem.isEmpty() && venda.getItens() != null) {
+                for (var it : venda.getItens()) {
+                    int orig = it.getQuantidade() == null ? 0 : it.getQuantidade();
+                    int ret = returnedByItem.getOrDefault(it.getId(), 0);
+                    int eff = Math.max(0, orig - ret);
+                    double unit = it.getPrecoUnitario() == null ? 0.0 : it.getPrecoUnitario();
+                    netQty += eff;
+                    netTotal += unit * eff;
+                    if (ret > 0)
+                        returnedTotal += unit * ret;
+                }
+            }
+            if (!returnedByItem.isEmpty()) {
+                resp.put("net_total", netTotal);
+                resp.put("returned_total", returnedTotal);
+                resp.put("net_quantidade_vendida", netQty);
+            }
+        } catch (Exception ignored) {
+        }
+        // include operador and cliente summary for list view
+        try {
+            if (venda.getOperador() != null && venda.getOperador().getUsername() != null)
+                resp.put("operador_username", venda.getOperador().getUsername());
+        } catch (Exception ignored) {
+        }
+        try {
+            if (venda.getCliente() != null && venda.getCliente().getNome() != null)
+                resp.put("cliente_nome", venda.getCliente().getNome());
+        } catch (Exception ignored) {
+        }
+        return resp;
     }
 
     @GetMapping("/{id}")
@@ -448,6 +541,8 @@ public class CheckoutController {
 
         // build response payload before deletion
         Map<String, Object> resp = buildResponse(venda);
+        var resumoAntes = saleDailyRollup.contribuicao(venda);
+        notaCache.invalidate(id);
 
         // record deletion audit BEFORE deleting to ensure audit exists; keep within
         // transaction so rollback will undo delete if audit fails
@@ -496,6 +591,7 @@ public class CheckoutController {
             if (eff > 0) {
                 produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() + eff);
                 productRepository.save(produto);
+                productCatalogCache.invalidate(produto.getId());
             }
         });
 
@@ -512,6 +608,7 @@ public class CheckoutController {
 
         // Remover ordem (cascade remove em itens e pagamentos)
         saleOrderRepository.deleteById(id);
+        saleDailyRollup.onSaleRemoved(resumoAntes);
 
         return ResponseEntity.ok(Map.of("message", "Venda deletada com sucesso"));
     }
@@ -557,16 +654,26 @@ public class CheckoutController {
         return null;
     }
 
-    private ResponseEntity<Object> validateStock(List<CheckoutItem> itens) {
+    private Map<Long, Integer> quantidadesPorProduto(List<CheckoutItem> itens) {
+        Map<Long, Integer> qtds = new LinkedHashMap<>();
         for (CheckoutItem item : itens) {
-            Product produto = productRepository.findById(item.getProdutoId()).orElse(null);
-            if (produto == null) {
-                return ResponseEntity.status(404).body(Map.of(KEY_ERROR,
-                        "Produto não encontrado: " + item.getProdutoId()));
-            }
-            if (produto.getQuantidadeEstoque() < item.getQuantidade()) {
-                return badRequest("Estoque insuficiente para o produto: " + produto.getNome());
-            }
+            qtds.merge(item.getProdutoId(), item.getQuantidade(), Integer::sum);
+        }
+        return qtds;
+    }
+
+    private ResponseEntity<Object> stockError(com.example.backendspring.product.StockReservationService.Reserva reserva) {
+        if (!reserva.naoEncontrados.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of(KEY_ERROR,
+                    "Produto não encontrado: " + reserva.naoEncontrados.get(0),
+                    "produtos_nao_encontrados", reserva.naoEncontrados));
+        }
+        if (!reserva.faltas.isEmpty()) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put(KEY_ERROR, "Estoque insuficiente para o produto: " + reserva.faltas.get(0).nome);
+            body.put("faltas", reserva.faltas.stream()
+                    .map(com.example.backendspring.product.StockReservationService.Falta::toMap).toList());
+            return ResponseEntity.badRequest().body(body);
         }
         return null;
     }
@@ -581,11 +688,10 @@ public class CheckoutController {
                 .build();
     }
 
-    private void addItemsToOrder(SaleOrder venda, List<CheckoutItem> itens) {
+    // estoque já baixado por StockReservationService
+    private void addItemsToOrder(SaleOrder venda, List<CheckoutItem> itens, Map<Long, Product> produtos) {
         for (CheckoutItem item : itens) {
-            Product produto = productRepository.findById(item.getProdutoId()).orElseThrow();
-            produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - item.getQuantidade());
-            productRepository.save(produto);
+            Product produto = produtos.get(item.getProdutoId());
 
             SaleItem si = SaleItem.builder()
                     .venda(venda)
@@ -0,0 +1,65 @@
+package com.example.backendspring.sale;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Email pendente de envio (nota em PDF anexada). Gravado pelo endpoint
+ * send-email e enviado em segundo plano pelo EmailOutboxService.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_proxima", columnList = "status, proxima_tentativa")
+})
+public class EmailOutbox {
+    public static final String STATUS_PENDENTE = "PENDENTE";
+    public static final String STATUS_ENVIANDO = "ENVIANDO";
+    public static final String STATUS_ENVIADO = "ENVIADO";
+    public static final String STATUS_FALHOU = "FALHOU";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "venda_id")
+    private Long vendaId;
+
+    @Column(name = "destinatario", nullable = false)
+    private String destinatario;
+
+    @Column(name = "assunto")
+    private String assunto;
+
+    @Column(name = "corpo", columnDefinition = "text")
+    private String corpo;
+
+    @Column(name = "anexo_nome")
+    private String anexoNome;
+
+    @Column(name = "anexo", columnDefinition = "bytea")
+    private byte[] anexo;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "tentativas", nullable = false)
+    private int tentativas;
+
+    @Column(name = "proxima_tentativa")
+    private OffsetDateTime proximaTentativa;
+
+    @Column(name = "ultimo_erro", columnDefinition = "text")
+    private String ultimoErro;
+
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private OffsetDateTime sentAt;
+}
@@ -0,0 +1,45 @@
+package com.example.backendspring.sale;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Jobs interrompidos por queda da aplicação voltam para a fila
+    @Modifying
+    @Transactional
+    @Query("update EmailOutbox e set e.status = 'PENDENTE' where e.status = 'ENVIANDO'")
+    int requeueSending();
+
+    // Situação do job para consulta, sem carregar corpo nem o PDF anexado
+    @Query("select e.id as id, e.vendaId as vendaId, e.destinatario as destinatario, e.status as status, "
+            + "e.tentativas as tentativas, e.proximaTentativa as proximaTentativa, e.ultimoErro as ultimoErro, "
+            + "e.createdAt as createdAt, e.sentAt as sentAt from EmailOutbox e where e.id = :id")
+    Optional<Status> findStatusById(@Param("id") Long id);
+
+    interface Status {
+        Long getId();
+
+        Long getVendaId();
+
+        String getDestinatario();
+
+        String getStatus();
+
+        int getTentativas();
+
+        OffsetDateTime getProximaTentativa();
+
+        String getUltimoErro();
+
+        OffsetDateTime getCreatedAt();
+
+        OffsetDateTime getSentAt();
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.backendspring.sale;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fila persistente de emails (tabela email_outbox). O endpoint apenas grava o
+ * job; o envio SMTP acontece aqui, em segundo plano, com no máximo
+ * {@code concurrency} envios simultâneos e nova tentativa com backoff
+ * exponencial (backoff-inicial * 2^(tentativas-1), até {@code max-tentativas}).
+ *
+ * Os jobs são reservados com FOR UPDATE SKIP LOCKED, então o polling periódico
+ * e o disparo após o commit de um novo job não enviam o mesmo email duas vezes.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+    private static final long BACKOFF_MAX_SECONDS = 3600;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EmailService emailService;
+    private final int concurrency;
+    private final int maxTentativas;
+    private final long backoffInicialSegundos;
+
+    private final ExecutorService senders;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public EmailOutboxService(EmailOutboxRepository outboxRepository, JdbcTemplate jdbcTemplate,
+            @Nullable EmailService emailService,
+            @Value("${app.email-outbox.concurrency:2}") int concurrency,
+            @Value("${app.email-outbox.max-tentativas:6}") int maxTentativas,
+            @Value("${app.email-outbox.backoff-inicial-segundos:30}") long backoffInicialSegundos) {
+        this.outboxRepository = outboxRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.emailService = emailService;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxTentativas = Math.max(1, maxTentativas);
+        this.backoffInicialSegundos = Math.max(1, backoffInicialSegundos);
+        AtomicInteger seq = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(this.concurrency, r -> {
+            Thread t = new Thread(r, "email-outbox-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public boolean isConfigured() {
+        return emailService != null;
+    }
+
+    /**
+     * Grava o email na fila. O envio é disparado após o commit da transação
+     * corrente (ou imediatamente, se não houver transação).
+     */
+    public EmailOutbox enqueue(Long vendaId, String to, String subject, String body, byte[] anexo,
+            String anexoNome) {
+        OffsetDateTime now = OffsetDateTime.now();
+        EmailOutbox job = outboxRepository.save(EmailOutbox.builder()
+                .vendaId(vendaId)
+                .destinatario(to)
+                .assunto(subject)
+                .corpo(body)
+                .anexo(anexo)
+                .anexoNome(anexoNome)
+                .status(EmailOutbox.STATUS_PENDENTE)
+                .tentativas(0)
+                .proximaTentativa(now)
+                .createdAt(now)
+                .build());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    senders.execute(EmailOutboxService.this::dispatch);
+                }
+            });
+        } else {
+            senders.execute(this::dispatch);
+        }
+        return job;
+    }
+
+    @Nullable
+    public EmailOutboxRepository.Status findStatus(Long id) {
+        return outboxRepository.findStatusById(id).orElse(null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void requeueOnStartup() {
+        try {
+            int n = outboxRepository.requeueSending();
+            if (n > 0)
+                log.info("Email outbox: {} jobs interrompidos voltaram para a fila", n);
+        } catch (Exception e) {
+            log.warn("Falha ao reenfileirar emails pendentes: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.email-outbox.poll-ms:10000}", initialDelayString = "${app.email-outbox.poll-ms:10000}")
+    public synchronized void dispatch() {
+        if (emailService == null)
+            return;
+        int livres = concurrency - inFlight.get();
+        if (livres <= 0)
+            return;
+        List<Long> ids;
+        try {
+            ids = claimDue(livres);
+        } catch (Exception e) {
+            log.warn("Email outbox: falha ao reservar jobs: {}", e.getMessage());
+            return;
+        }
+        for (Long id : ids) {
+            inFlight.incrementAndGet();
+            senders.execute(() -> {
+                try {
+                    send(id);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private List<Long> claimDue(int limit) {
+        return jdbcTemplate.queryForList(
+                "UPDATE email_outbox SET status = ? WHERE id IN (SELECT id FROM email_outbox "
+                        + "WHERE status = ? AND proxima_tentativa <= now() ORDER BY proxima_tentativa, id "
+                        + "LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING id",
+                Long.class, EmailOutbox.STATUS_ENVIANDO, EmailOutbox.STATUS_PENDENTE, limit);
+    }
+
+    private void send(Long id) {
+        EmailOutbox job = outboxRepository.findById(id).orElse(null);
+        if (job == null)
+            return;
+        try {
+            emailService.sendEmailWithAttachment(job.getDestinatario(), job.getAssunto(), job.getCorpo(),
+                    job.getAnexo(), job.getAnexoNome());
+            job.setStatus(EmailOutbox.STATUS_ENVIADO);
+            job.setTentativas(job.getTentativas() + 1);
+            job.setSentAt(OffsetDateTime.now());
+            job.setUltimoErro(null);
+            log.info("Email {} enviado para {} (venda {})", id, job.getDestinatario(), job.getVendaId());
+        } catch (Exception e) {
+            int tentativas = job.getTentativas() + 1;
+            job.setTentativas(tentativas);
+            job.setUltimoErro(e.getMessage());
+            if (tentativas >= maxTentativas) {
+                job.setStatus(EmailOutbox.STATUS_FALHOU);
+                log.warn("Email {} falhou definitivamente após {} tentativas: {}", id, tentativas, e.getMessage());
+            } else {
+                long delay = Math.min(BACKOFF_MAX_SECONDS, backoffInicialSegundos << Math.min(tentativas - 1, 20));
+                job.setStatus(EmailOutbox.STATUS_PENDENTE);
+                job.setProximaTentativa(OffsetDateTime.now().plusSeconds(delay));
+                log.warn("Email {} falhou (tentativa {}), nova tentativa em {}s: {}", id, tentativas, delay,
+                        e.getMessage());
+            }
+        }
+        outboxRepository.save(job);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.backendspring.sale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache em memória (LRU limitado) do HTML e do PDF da nota por venda.
+ *
+ * A chave é o id da venda mais um hash do conteúdo que aparece na nota
+ * (cliente, data, itens, pagamentos e ajustes), que também serve de ETag: se
+ * a venda mudar por qualquer caminho o hash muda e a entrada antiga é
+ * ignorada. updateContact, ajustes e exclusão chamam {@link #invalidate} para
+ * liberar a memória na hora.
+ */
+@Component
+public class NotaCache {
+
+    private final SaleAdjustmentRepository adjustmentRepository;
+    private final NotaPdfRenderer pdfRenderer;
+    private final Map<Long, Entry> entries;
+
+    public NotaCache(SaleAdjustmentRepository adjustmentRepository, NotaPdfRenderer pdfRenderer,
+            @Value("${app.nota.cache-max-entries:200}") int maxEntries) {
+        this.adjustmentRepository = adjustmentRepository;
+        this.pdfRenderer = pdfRenderer;
+        final int max = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    /** Entrada da venda no estado atual (nova se o conteúdo mudou). */
+    public Entry entry(SaleOrder venda) {
+        String etag = "\"nota-" + venda.getId() + "-" + fingerprint(venda) + "\"";
+        synchronized (entries) {
+            Entry e = entries.get(venda.getId());
+            if (e == null || !e.etag.equals(etag)) {
+                e = new Entry(etag);
+                entries.put(venda.getId(), e);
+            }
+            return e;
+        }
+    }
+
+    public void invalidate(Long vendaId) {
+        if (vendaId == null)
+            return;
+        synchronized (entries) {
+            entries.remove(vendaId);
+        }
+    }
+
+    private String fingerprint(SaleOrder venda) {
+        StringBuilder sb = new StringBuilder(256);
+        // motor do PDF muda o arquivo gerado
+        sb.append(pdfRenderer.isEnabled() ? "jvm" : "puppeteer").append('|');
+        sb.append(venda.getDataVenda()).append('|').append(venda.getCustomerName()).append('|')
+                .append(venda.getTotalFinal()).append('\n');
+        if (venda.getItens() != null) {
+            for (var it : venda.getItens()) {
+                var p = it.getProduto();
+                sb.append("i:").append(it.getId()).append(',')
+                        .append(p == null ? null : p.getId()).append(',')
+                        .append(p == null ? null : p.getNome()).append(',')
+                        .append(p == null ? null : p.getImagem()).append(',')
+                        .append(it.getQuantidade()).append(',')
+                        .append(it.getPrecoUnitario()).append(',')
+                        .append(it.getPrecoTotal()).append('\n');
+            }
+        }
+        if (venda.getPagamentos() != null) {
+            for (var pg : venda.getPagamentos()) {
+                sb.append("p:").append(pg.getId()).append(',').append(pg.getMetodo()).append(',')
+                        .append(pg.getValor()).append('\n');
+            }
+        }
+        for (var a : adjustmentRepository.findBySaleOrderId(venda.getId())) {
+            sb.append("a:").append(a.getId()).append(',').append(a.getType()).append(',')
+                    .append(a.getQuantity()).append(',').append(a.getPriceDifference()).append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** HTML e PDF de uma versão da nota, gerados sob demanda. */
+    public static final class Entry {
+        private final String etag;
+        private volatile String html;
+        private volatile byte[] pdf;
+
+        private Entry(String etag) {
+            this.etag = etag;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String html(Supplier<String> build) {
+            String h = html;
+            if (h == null) {
+                h = build.get();
+                html = h;
+            }
+            return h;
+        }
+
+        public byte[] pdf(Supplier<byte[]> render) {
+            byte[] p = pdf;
+            if (p == null) {
+                p = render.get();
+                pdf = p;
+            }
+            return p;
+        }
+    }
+}
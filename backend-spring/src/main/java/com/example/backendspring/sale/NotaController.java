@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -19,7 +20,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.Base64;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import org.springframework.lang.Nullable;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,61 +44,23 @@ public class NotaController {
 
     private final SaleOrderRepository saleOrderRepository;
     private final com.example.backendspring.client.ClientRepository clientRepository;
-    private EmailService emailService; // optional, injected via constructor
+    private final EmailOutboxService emailOutbox;
+    private final NotaPdfRenderer pdfRenderer;
+    private final PuppeteerRenderPool puppeteerPool;
+    private final NotaCache notaCache;
 
     private static final String ERROR_KEY = "error";
 
     public NotaController(SaleOrderRepository saleOrderRepository,
-            com.example.backendspring.client.ClientRepository clientRepository, @Nullable EmailService emailService) {
+            com.example.backendspring.client.ClientRepository clientRepository, EmailOutboxService emailOutbox,
+            NotaPdfRenderer pdfRenderer, PuppeteerRenderPool puppeteerPool, NotaCache notaCache) {
         this.saleOrderRepository = saleOrderRepository;
         this.clientRepository = clientRepository;
-        this.emailService = emailService; // may be null if JavaMailSender not configured
-        log.info("EmailService present: {}", this.emailService != null);
-    }
-
-    // Extracted helper so the main method is shorter and Sonar S1141/Cognitive
-    // Complexity is reduced.
-    private boolean runPuppeteerRender(Path script, Path htmlTmp, Path pdfOut)
-            throws java.io.IOException, InterruptedException {
-        java.io.File scriptsDir = Paths.get(System.getProperty(USER_DIR_PROPERTY)).resolve("..")
-                .resolve("scripts").normalize().toFile();
-        ProcessBuilder pb = new ProcessBuilder("node", script.toString(), htmlTmp.toString(), pdfOut.toString());
-        pb.directory(scriptsDir.exists() ? scriptsDir : new java.io.File(System.getProperty(USER_DIR_PROPERTY)));
-        pb.redirectErrorStream(true);
-        Process p = pb.start();
-        String out = readProcessOutput(p);
-        log.debug("puppeteer output: {}", out);
-        boolean finished = p.waitFor(45, java.util.concurrent.TimeUnit.SECONDS);
-        if (!finished) {
-            p.destroyForcibly();
-            log.warn("Puppeteer timed out");
-            return false;
-        }
-        int exit = p.exitValue();
-        return exit == 0 && Files.exists(pdfOut);
-    }
-
-    private String readProcessOutput(Process p) throws java.io.IOException {
-        try (java.io.InputStream is = p.getInputStream();
-                java.util.Scanner s = new java.util.Scanner(is).useDelimiter("\\A")) {
-            return s.hasNext() ? s.next() : "";
-        }
-    }
-
-    // removed unused PuppeteerRenderException
-
-    // Attempts rendering (may call Puppeteer multiple times) and returns PDF bytes.
-    private byte[] attemptPuppeteerRender(Path script, Path htmlTmp, Path pdfOut)
-            throws InterruptedException, java.io.IOException {
-        int attempts = 1;
-        for (int attempt = 1; attempt <= attempts; attempt++) {
-            boolean ok = runPuppeteerRender(script, htmlTmp, pdfOut);
-            if (ok) {
-                return Files.readAllBytes(pdfOut);
-            }
-            log.warn("Puppeteer attempt {} failed", attempt);
-        }
-        throw new IllegalStateException("Puppeteer render failed after " + attempts + " attempts");
+        this.emailOutbox = emailOutbox;
+        this.pdfRenderer = pdfRenderer;
+        this.puppeteerPool = puppeteerPool;
+        this.notaCache = notaCache;
+        log.info("EmailService present: {}", emailOutbox.isConfigured());
     }
 
     // Removed getProductImageDataUri method to reduce PDF size - no longer
@@ -108,19 +70,25 @@ public class NotaController {
 
     @GetMapping("/{id}/nota")
     @Transactional(readOnly = true)
-    public ResponseEntity<byte[]> getNotaPdf(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getNotaPdf(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         var vendaOpt = saleOrderRepository.findById(id);
         if (vendaOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
         var venda = vendaOpt.get();
+        var cached = notaCache.entry(venda);
+        if (notModified(ifNoneMatch, cached.getEtag())) {
+            return ResponseEntity.status(304).eTag(cached.getEtag()).build();
+        }
 
-        String htmlStr = buildHtmlForVenda(venda);
         try {
-            byte[] pdfBytes = renderPdfFromHtml(htmlStr, id);
+            byte[] pdfBytes = cached.pdf(() -> renderNotaPdf(venda, id));
 
             HttpHeaders headers = new HttpHeaders();
+            headers.setETag(cached.getEtag());
+            headers.setCacheControl("private, no-cache");
             headers.setContentType(MediaType.APPLICATION_PDF);
             headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=nota-" + id + ".pdf");
             // allow embedding in same-origin frames/objects so frontend can preview
@@ -135,61 +103,109 @@ public class NotaController {
 
     @GetMapping("/{id}/nota/html")
     @Transactional(readOnly = true)
-    public ResponseEntity<String> getNotaHtml(@PathVariable Long id) {
+    public ResponseEntity<String> getNotaHtml(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         var vendaOpt = saleOrderRepository.findById(id);
         if (vendaOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        String htmlStr = buildHtmlForVenda(vendaOpt.get());
+        var venda = vendaOpt.get();
+        var cached = notaCache.entry(venda);
+        if (notModified(ifNoneMatch, cached.getEtag())) {
+            return ResponseEntity.status(304).eTag(cached.getEtag()).build();
+        }
+        String htmlStr = cached.html(() -> buildHtmlForVenda(venda, false));
         HttpHeaders headers = new HttpHeaders();
+        headers.setETag(cached.getEtag());
+        headers.setCacheControl("private, no-cache");
         headers.setContentType(MediaType.TEXT_HTML);
         // allow embedding in same-origin frames
         headers.set("X-Frame-Options", "SAMEORIGIN");
         return ResponseEntity.ok().headers(headers).body(htmlStr);
     }
 
+    private static boolean notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank())
+            return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.startsWith("W/"))
+                t = t.substring(2);
+            if (t.equals(etag) || t.equals("*"))
+                return true;
+        }
+        return false;
+    }
+
     @PostMapping("/{id}/send-email")
     @Transactional
     public ResponseEntity<Object> sendNotaEmail(@PathVariable Long id, @RequestBody SendEmailRequest req) {
         var vendaOpt = saleOrderRepository.findById(id);
         if (vendaOpt.isEmpty())
             return ResponseEntity.status(404).body(Map.of(ERROR_KEY, "Venda não encontrada"));
+        if (!emailOutbox.isConfigured())
+            return ResponseEntity.status(500).body(Map.of(ERROR_KEY, "Email service not configured"));
+        if (req.getTo() == null || req.getTo().isBlank())
+            return ResponseEntity.badRequest().body(Map.of(ERROR_KEY, "Destinatário obrigatório"));
         var venda = vendaOpt.get();
 
-        String htmlStr = buildHtmlForVenda(venda);
         byte[] pdfBytes;
         try {
-            pdfBytes = renderPdfFromHtml(htmlStr, id);
+            pdfBytes = notaCache.entry(venda).pdf(() -> renderNotaPdf(venda, id));
         } catch (Exception e) {
             log.error("Failed to generate/send PDF email for order {}", id, e);
             return ResponseEntity.status(500)
                     .body(Map.of(ERROR_KEY, "Error generating PDF", "details", e.getMessage()));
         }
 
-        return sendEmailWithPdf(req, id, pdfBytes, venda);
+        return enqueueEmailWithPdf(req, id, pdfBytes, venda);
     }
 
-    private ResponseEntity<Object> sendEmailWithPdf(SendEmailRequest req, Long id, byte[] pdfBytes, SaleOrder venda) {
+    // O envio SMTP acontece em segundo plano (EmailOutboxService); a resposta
+    // volta assim que o job é gravado
+    private ResponseEntity<Object> enqueueEmailWithPdf(SendEmailRequest req, Long id, byte[] pdfBytes,
+            SaleOrder venda) {
         try {
             String to = req.getTo();
             String subject = req.getSubject() != null ? req.getSubject() : "Comprovante Pedido #" + id;
             String body = req.getBody() != null ? req.getBody() : "Segue a nota do seu último pedido na nossa loja.";
-            if (emailService == null) {
-                return ResponseEntity.status(500).body(Map.of(ERROR_KEY, "Email service not configured"));
-            }
-            emailService.sendEmailWithAttachment(to, subject, body, pdfBytes, NOTE_PREFIX + id + ".pdf");
+            var job = emailOutbox.enqueue(id, to, subject, body, pdfBytes, NOTE_PREFIX + id + ".pdf");
 
-            // After successful send, persist or link client based on saleOrder contact
-            // fields
+            // persist or link client based on saleOrder contact fields
             linkOrCreateClientFromSaleOrder(venda);
 
-            return ResponseEntity.ok(Map.of("message", "Email enviado"));
+            java.util.Map<String, Object> resp = new java.util.LinkedHashMap<>();
+            resp.put("message", "Email enfileirado");
+            resp.put("jobId", job.getId());
+            resp.put("status", job.getStatus());
+            return ResponseEntity.accepted().body(resp);
         } catch (Exception e) {
             return ResponseEntity.status(500)
-                    .body(Map.of(ERROR_KEY, "Falha ao enviar email", "details", e.getMessage()));
+                    .body(Map.of(ERROR_KEY, "Falha ao enfileirar email", "details", e.getMessage()));
         }
     }
 
+    // Situação do job devolvido (jobId) pelo POST /api/checkout/{id}/send-email;
+    // lê a projeção EmailOutboxRepository.Status, sem carregar o PDF
+    @GetMapping("/email-outbox/{jobId}")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Object> getEmailStatus(@PathVariable Long jobId) {
+        var job = emailOutbox.findStatus(jobId);
+        if (job == null)
+            return ResponseEntity.status(404).body(Map.of(ERROR_KEY, "Email não encontrado"));
+        java.util.Map<String, Object> resp = new java.util.LinkedHashMap<>();
+        resp.put("jobId", job.getId());
+        resp.put("vendaId", job.getVendaId());
+        resp.put("to", job.getDestinatario());
+        resp.put("status", job.getStatus());
+        resp.put("tentativas", job.getTentativas());
+        resp.put("proximaTentativa", job.getProximaTentativa());
+        resp.put("ultimoErro", job.getUltimoErro());
+        resp.put("createdAt", job.getCreatedAt());
+        resp.put("sentAt", job.getSentAt());
+        return ResponseEntity.ok(resp);
+    }
+
     private void linkOrCreateClientFromSaleOrder(SaleOrder venda) {
         try {
             com.example.backendspring.client.Client cliente = findExistingClient(venda);
@@ -553,7 +569,9 @@ public class NotaController {
         return baos.toByteArray();
     }
 
-    private String buildHtmlForVenda(SaleOrder venda) {
+    // pdfNaJvm: HTML para o openhtmltopdf (ícones PNG pré-carregados, sem emoji e
+    // com tamanho de página explícito); caso contrário HTML para navegador/Puppeteer
+    private String buildHtmlForVenda(SaleOrder venda, boolean pdfNaJvm) {
         StringBuilder html = new StringBuilder();
         html.append("<!DOCTYPE html>");
         html.append("<html><head><meta charset=\"UTF-8\" />");
@@ -585,10 +603,15 @@ public class NotaController {
         html.append("td.qty,td.price,td.total{text-align:center;white-space:nowrap;font-weight:500}");
         html.append("tfoot td{padding:10px 6px;font-weight:700;border-top:1px solid #dee2e6;background:#f8f9fa}");
         html.append(".small{font-size:10px;color:#666;text-align:center;margin:6px 0;padding:4px}");
-        html.append("</style></head><body>");
-        html.append("<style>");
         html.append(
                 "body, * { font-family: 'Roboto Mono','Consolas','Courier New',monospace,Arial,sans-serif !important; }");
+        if (pdfNaJvm) {
+            // openhtmltopdf não mede o conteúdo como o Puppeteer: página única com
+            // altura estimada pelo número de itens e pagamentos
+            int itens = venda.getItens() == null ? 0 : venda.getItens().size();
+            int pagamentos = venda.getPagamentos() == null ? 0 : venda.getPagamentos().size();
+            html.append("@page{size:120mm ").append(60 + itens * 10 + pagamentos * 5).append("mm;margin:0}");
+        }
         html.append("</style></head><body>");
 
         html.append("<div class=\"invoice\">\n");
@@ -602,7 +625,7 @@ public class NotaController {
             html.append("<img src=\"").append(logoDataUri)
                     .append("\" style=\"max-width:150px;max-height:80px;\" alt=\"Logo da Mercearia\" />");
         } else {
-            html.append("🏪 MERCEARIA R-V"); // Voltar ao emoji direto
+            html.append(pdfNaJvm ? "MERCEARIA R-V" : "🏪 MERCEARIA R-V"); // Voltar ao emoji direto
         }
         html.append(CLOSE_DIV);
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -634,7 +657,7 @@ public class NotaController {
             if (!productImageUri.isEmpty()) {
                 html.append("<img src=\"").append(productImageUri).append(
                         "\" style=\"width:28px;height:28px;margin-right:8px;border-radius:4px;border:1px solid #e9ecef;object-fit:cover;\" alt=\"Produto\" />");
-            } else {
+            } else if (!pdfNaJvm) {
                 html.append(
                         "<span style=\"margin-right:8px;font-size:16px;width:28px;text-align:center;display:inline-block;\">📦</span>"); // Voltar
                                                                                                                                          // ao
@@ -654,7 +677,7 @@ public class NotaController {
         html.append("</tbody>\n");
         // footer: mostrar métodos de pagamento (com emoji) alinhados à esquerda e total
         // à direita
-        String paymentsSummary = buildPaymentsSummary(venda);
+        String paymentsSummary = buildPaymentsSummary(venda, pdfNaJvm);
 
         // allow left cell to wrap so it doesn't push the total column; keep total
         // non-wrapping and vertically centered
@@ -673,7 +696,7 @@ public class NotaController {
 
     // Build a compact, safe summary string for payments (e.g. "Cred R$ 10.00, Pix
     // R$ 5.00").
-    private String buildPaymentsSummary(SaleOrder venda) {
+    private String buildPaymentsSummary(SaleOrder venda, boolean pdfNaJvm) {
         if (venda == null)
             return "";
         try {
@@ -685,7 +708,7 @@ public class NotaController {
                 if (!psb.isEmpty())
                     psb.append(", ");
                 String metodo = p.getMetodo() == null ? "" : p.getMetodo();
-                String svg = getPaymentSvg(metodo);
+                String svg = pdfNaJvm ? pdfRenderer.paymentIconImg(metodo) : getPaymentSvg(metodo);
                 String label = getPaymentLabel(metodo);
                 String cleanLabel = label == null ? "" : label.replaceAll("\\s+", " ").trim();
                 psb.append(svg).append(cleanLabel);
@@ -698,29 +721,32 @@ public class NotaController {
         }
     }
 
+    // Gera o PDF na JVM; o Puppeteer fica como motor configurado
+    // (app.nota.engine=puppeteer) ou fallback em caso de falha
+    private byte[] renderNotaPdf(SaleOrder venda, Long id) {
+        if (pdfRenderer.isEnabled()) {
+            try {
+                return pdfRenderer.render(buildHtmlForVenda(venda, true));
+            } catch (Exception e) {
+                if (!pdfRenderer.isPuppeteerFallback()) {
+                    throw new IllegalStateException("Failed to render PDF with openhtmltopdf", e);
+                }
+                log.warn("openhtmltopdf falhou para nota {}, usando Puppeteer: {}", id, e.getMessage());
+            }
+        }
+        return renderPdfFromHtml(buildHtmlForVenda(venda, false), id);
+    }
+
     private byte[] renderPdfFromHtml(String htmlStr, Long id) {
-        // prefer Puppeteer rendering: write HTML to temp and call Node script that
-        // measures .invoice bounding box and prints exact-sized PDF
+        // Puppeteer via pool de workers (node + Chromium já abertos); o script
+        // mede o bounding box de .invoice e gera o PDF no tamanho exato
         try {
-            Path outDir = Paths.get(System.getProperty("java.io.tmpdir"));
-            Files.createDirectories(outDir);
-            Path htmlTmp = outDir.resolve(NOTE_PREFIX + id + ".html");
-            Files.write(htmlTmp, htmlStr.getBytes(StandardCharsets.UTF_8));
-            log.info("Saved nota HTML to {}", htmlTmp.toAbsolutePath());
-
-            // script is located in repo root `scripts/`; backend runs with cwd
-            // backend-spring,
-            // so resolve parent then scripts
-            Path script = Paths.get(System.getProperty(USER_DIR_PROPERTY)).resolve("..").resolve("scripts")
-                    .resolve("render-nota-pdf.js").normalize().toAbsolutePath();
-            Path pdfOut = outDir.resolve(NOTE_PREFIX + id + ".pdf");
-
-            // delegate to helper that attempts render and either returns bytes or throws
-            return attemptPuppeteerRender(script, htmlTmp, pdfOut);
+            return puppeteerPool.render(htmlStr);
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
             throw new IllegalStateException("Failed to render PDF with Puppeteer", ie);
         } catch (Exception e) {
+            log.warn("Puppeteer render failed for nota {}: {}", id, e.getMessage());
             throw new IllegalStateException("Failed to render PDF with Puppeteer", e);
         }
     }
@@ -0,0 +1,167 @@
+package com.example.backendspring.sale;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renderiza a nota (HTML gerado pelo NotaController) em PDF dentro da JVM com
+ * openhtmltopdf, sem subir Node/Chromium por requisição.
+ *
+ * Fonte e ícones de pagamento são carregados uma única vez na inicialização:
+ * a fonte monoespaçada fica em memória e é embutida em cada documento; os
+ * ícones (SVG no HTML do navegador) são pré-rasterizados em PNG, já que o
+ * openhtmltopdf sem o módulo de SVG ignora {@code <svg>} inline.
+ */
+@Component
+public class NotaPdfRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(NotaPdfRenderer.class);
+
+    // Família usada no CSS da nota
+    static final String FONT_FAMILY = "Roboto Mono";
+
+    private static final String[] FONT_CANDIDATES = {
+            "C:/Windows/Fonts/consola.ttf",
+            "C:/Windows/Fonts/cour.ttf",
+            "/usr/share/fonts/truetype/dejavu/DejaVuSansMono.ttf",
+            "/usr/share/fonts/dejavu/DejaVuSansMono.ttf",
+            "/System/Library/Fonts/Supplemental/Courier New.ttf"
+    };
+
+    private final String engine;
+    private final boolean puppeteerFallback;
+    private final String fontPath;
+
+    private byte[] fontBytes;
+    private final Map<String, String> paymentIcons = new HashMap<>();
+
+    public NotaPdfRenderer(@Value("${app.nota.engine:openhtmltopdf}") String engine,
+            @Value("${app.nota.puppeteer-fallback:true}") boolean puppeteerFallback,
+            @Value("${app.nota.font-path:}") String fontPath) {
+        this.engine = engine;
+        this.puppeteerFallback = puppeteerFallback;
+        this.fontPath = fontPath;
+    }
+
+    @PostConstruct
+    void preload() {
+        fontBytes = loadFont();
+        paymentIcons.put("cartao", iconDataUri(new Color(0x4A90E2), null, true));
+        paymentIcons.put("pix", iconDataUri(new Color(0x43C6AC), "PIX", false));
+        paymentIcons.put("dinheiro", iconDataUri(new Color(0x7ED957), "$", true));
+        log.info("NotaPdfRenderer pronto: engine={}, fonte={}, fallback puppeteer={}", engine,
+                fontBytes != null ? "embutida" : "Courier padrão", puppeteerFallback);
+    }
+
+    /** true quando o PDF deve ser gerado na JVM (padrão). */
+    public boolean isEnabled() {
+        return !"puppeteer".equalsIgnoreCase(engine);
+    }
+
+    public boolean isPuppeteerFallback() {
+        return puppeteerFallback;
+    }
+
+    /** Ícone do método de pagamento como {@code <img>} PNG, ou "" se não houver. */
+    public String paymentIconImg(String metodo) {
+        String key = switch (metodo == null ? "" : metodo) {
+            case "cartao_credito", "cartao_debito" -> "cartao";
+            default -> metodo;
+        };
+        String uri = paymentIcons.get(key);
+        if (uri == null)
+            return "";
+        return "<img src=\"" + uri + "\" style=\"width:16px;height:16px;vertical-align:middle;margin-right:2px\" alt=\"\" />";
+    }
+
+    /** Converte o XHTML da nota em PDF. */
+    public byte[] render(String xhtml) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.useFastMode();
+        if (fontBytes != null) {
+            final byte[] bytes = fontBytes;
+            builder.useFont(() -> new ByteArrayInputStream(bytes), FONT_FAMILY);
+        }
+        builder.withHtmlContent(xhtml, null);
+        builder.toStream(out);
+        builder.run();
+        return out.toByteArray();
+    }
+
+    private byte[] loadFont() {
+        java.util.List<String> paths = new java.util.ArrayList<>();
+        if (fontPath != null && !fontPath.isBlank())
+            paths.add(fontPath);
+        paths.addAll(java.util.List.of(FONT_CANDIDATES));
+        for (String p : paths) {
+            Path path = Paths.get(p);
+            if (!Files.isRegularFile(path))
+                continue;
+            try {
+                log.debug("Fonte da nota carregada de {}", path.toAbsolutePath());
+                return Files.readAllBytes(path);
+            } catch (IOException e) {
+                log.warn("Falha ao ler fonte {}: {}", path, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    // Desenha os mesmos ícones do SVG (grade 24x24) em 48x48 para ficar nítido
+    // quando reduzido a 16px no PDF
+    private static String iconDataUri(Color fill, String text, boolean retangulo) {
+        int size = 48;
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.scale(2, 2);
+            g.setColor(fill);
+            if (retangulo) {
+                g.fillRoundRect(2, 6, 20, 12, 4, 4);
+            } else {
+                g.fillOval(2, 2, 20, 20);
+            }
+            g.setColor(Color.WHITE);
+            if (text == null) {
+                g.fillRect(2, 10, 20, 2);
+            } else {
+                g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 9));
+                FontMetrics fm = g.getFontMetrics();
+                g.drawString(text, 12 - fm.stringWidth(text) / 2f, 15.5f);
+            }
+        } finally {
+            g.dispose();
+        }
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            javax.imageio.ImageIO.write(img, "png", baos);
+            return "data:image/png;base64," + Base64.getEncoder().encodeToString(baos.toByteArray());
+        } catch (IOException e) {
+            log.warn("Falha ao rasterizar ícone de pagamento: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.backendspring.sale;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pool de processos {@code node render-nota-pdf.js --worker} mantidos abertos
+ * (um Chromium por worker) para o PDF da nota via Puppeteer.
+ *
+ * O HTML vai pelo stdin e o PDF volta em base64 pelo stdout, uma linha JSON por
+ * mensagem, sem arquivos temporários. Workers são criados sob demanda até
+ * {@code size}; pedidos além dos workers ocupados esperam em uma fila limitada
+ * ({@code queue-capacity}) e são recusados quando ela enche. Cada job tem
+ * timeout próprio: o worker que estoura é encerrado e substituído. Workers
+ * ociosos recebem ping periódico e são descartados se não responderem.
+ *
+ * Todo worker descartado (queda, timeout, ping sem resposta) ganha um
+ * substituto criado em segundo plano, que entra na fila de ociosos e acorda
+ * quem espera em {@link #borrow()}; falhas seguidas ao subir o substituto
+ * espaçam as tentativas (backoff exponencial até {@value #RESPAWN_MAX_DELAY_MS} ms).
+ */
+@Component
+public class PuppeteerRenderPool {
+
+    private static final Logger log = LoggerFactory.getLogger(PuppeteerRenderPool.class);
+    private static final String USER_DIR_PROPERTY = "user.dir";
+    private static final long STARTUP_TIMEOUT_MS = 60_000;
+    private static final long PING_TIMEOUT_MS = 5_000;
+    private static final long RESPAWN_BASE_DELAY_MS = 500;
+    private static final long RESPAWN_MAX_DELAY_MS = 30_000;
+
+    private final ObjectMapper objectMapper;
+    private final int size;
+    private final long jobTimeoutMs;
+
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final Set<Worker> all = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger created = new AtomicInteger();
+    // workers + fila: limita pedidos simultâneos aguardando renderização
+    private final Semaphore permits;
+    // health check e criação dos substitutos
+    private final ScheduledExecutorService healthCheck;
+    private final AtomicInteger respawnFailures = new AtomicInteger();
+    private volatile boolean closed;
+
+    public PuppeteerRenderPool(ObjectMapper objectMapper,
+            @Value("${app.nota.puppeteer-pool.size:2}") int size,
+            @Value("${app.nota.puppeteer-pool.queue-capacity:8}") int queueCapacity,
+            @Value("${app.nota.puppeteer-pool.timeout-ms:20000}") long jobTimeoutMs,
+            @Value("${app.nota.puppeteer-pool.health-check-seconds:30}") long healthCheckSeconds) {
+        this.objectMapper = objectMapper;
+        this.size = Math.max(1, size);
+        this.jobTimeoutMs = jobTimeoutMs;
+        this.permits = new Semaphore(this.size + Math.max(0, queueCapacity));
+        this.healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "puppeteer-pool-health");
+            t.setDaemon(true);
+            return t;
+        });
+        this.healthCheck.scheduleWithFixedDelay(this::checkIdleWorkers, healthCheckSeconds, healthCheckSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    /** Renderiza o HTML em PDF em um worker do pool. */
+    public byte[] render(String html) throws IOException, InterruptedException {
+        if (!permits.tryAcquire()) {
+            throw new IllegalStateException("Fila de renderização de PDF cheia");
+        }
+        try {
+            Worker w = borrow();
+            boolean healthy = false;
+            try {
+                ObjectNode req = objectMapper.createObjectNode();
+                req.put("html", html);
+                JsonNode resp = w.call(req, jobTimeoutMs);
+                healthy = true;
+                if (!resp.path("ok").asBoolean(false)) {
+                    throw new IllegalStateException("Puppeteer render failed: " + resp.path("error").asText());
+                }
+                return Base64.getDecoder().decode(resp.path("pdf").asText());
+            } finally {
+                release(w, healthy);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Worker borrow() throws IOException, InterruptedException {
+        Worker w;
+        while ((w = idle.poll()) != null) {
+            if (w.isAlive())
+                return w;
+            discard(w);
+        }
+        if (created.incrementAndGet() <= size) {
+            try {
+                return startWorker();
+            } catch (IOException | RuntimeException e) {
+                created.decrementAndGet();
+                throw e;
+            }
+        }
+        created.decrementAndGet();
+        w = idle.poll(jobTimeoutMs, TimeUnit.MILLISECONDS);
+        if (w == null) {
+            throw new IllegalStateException("Timeout aguardando worker de PDF");
+        }
+        return w;
+    }
+
+    private void release(Worker w, boolean healthy) {
+        if (healthy && w.isAlive()) {
+            idle.offer(w);
+        } else {
+            discard(w);
+        }
+    }
+
+    private void discard(Worker w) {
+        if (all.remove(w)) {
+            created.decrementAndGet();
+            w.destroy();
+            scheduleRespawn();
+        }
+    }
+
+    private void scheduleRespawn() {
+        if (closed)
+            return;
+        int failures = respawnFailures.get();
+        long delay = failures == 0 ? 0
+                : Math.min(RESPAWN_MAX_DELAY_MS, RESPAWN_BASE_DELAY_MS << Math.min(failures - 1, 16));
+        try {
+            healthCheck.schedule(this::respawn, delay, TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // pool encerrado
+        }
+    }
+
+    /** Repõe um worker descartado, se ainda houver vaga no pool. */
+    private void respawn() {
+        if (closed)
+            return;
+        if (created.incrementAndGet() > size) {
+            // a vaga já foi ocupada por um borrow() que criou o próprio worker
+            created.decrementAndGet();
+            return;
+        }
+        try {
+            Worker w = startWorker();
+            respawnFailures.set(0);
+            if (closed) {
+                discard(w);
+                return;
+            }
+            idle.offer(w);
+        } catch (InterruptedException e) {
+            created.decrementAndGet();
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            created.decrementAndGet();
+            int failures = respawnFailures.incrementAndGet();
+            log.warn("Falha ao repor worker Puppeteer (tentativa {}): {}", failures, e.getMessage());
+            scheduleRespawn();
+        }
+    }
+
+    /** Processo do worker; sobrescrito nos testes para usar um worker falso. */
+    ProcessBuilder newWorkerProcess() {
+        Path script = Paths.get(System.getProperty(USER_DIR_PROPERTY)).resolve("..").resolve("scripts")
+                .resolve("render-nota-pdf.js").normalize().toAbsolutePath();
+        java.io.File scriptsDir = script.getParent().toFile();
+        ProcessBuilder pb = new ProcessBuilder("node", script.toString(), "--worker");
+        pb.directory(Files.isDirectory(script.getParent()) ? scriptsDir
+                : new java.io.File(System.getProperty(USER_DIR_PROPERTY)));
+        return pb;
+    }
+
+    private Worker startWorker() throws IOException, InterruptedException {
+        Worker w = new Worker(newWorkerProcess().start());
+        all.add(w);
+        try {
+            // espera o Chromium abrir antes do primeiro job
+            w.call(objectMapper.createObjectNode().put("ping", true), STARTUP_TIMEOUT_MS);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            // a contagem em created é desfeita por borrow()
+            all.remove(w);
+            w.destroy();
+            throw e;
+        }
+        log.info("Worker Puppeteer iniciado (pid {}), {} no pool", w.process.pid(), all.size());
+        return w;
+    }
+
+    private void checkIdleWorkers() {
+        List<Worker> checked = new ArrayList<>();
+        idle.drainTo(checked);
+        for (int i = 0; i < checked.size(); i++) {
+            Worker w = checked.get(i);
+            try {
+                w.call(objectMapper.createObjectNode().put("ping", true), PING_TIMEOUT_MS);
+                idle.offer(w);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                idle.addAll(checked.subList(i, checked.size()));
+                return;
+            } catch (Exception e) {
+                log.warn("Worker Puppeteer sem resposta ao ping, descartando: {}", e.getMessage());
+                discard(w);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closed = true;
+        healthCheck.shutdownNow();
+        for (Worker w : all) {
+            w.destroy();
+        }
+        all.clear();
+        idle.clear();
+    }
+
+    /** Processo node com Chromium aberto; atende um job por vez. */
+    private final class Worker {
+        private final Process process;
+        private final BufferedWriter stdin;
+        private final AtomicLong nextId = new AtomicLong();
+        private final AtomicReference<CompletableFuture<JsonNode>> pending = new AtomicReference<>();
+
+        Worker(Process process) {
+            this.process = process;
+            this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            Thread reader = new Thread(this::readResponses, "puppeteer-worker-" + process.pid());
+            reader.setDaemon(true);
+            reader.start();
+            Thread stderr = new Thread(this::drainStderr, "puppeteer-worker-err-" + process.pid());
+            stderr.setDaemon(true);
+            stderr.start();
+        }
+
+        JsonNode call(ObjectNode req, long timeoutMs) throws IOException, InterruptedException {
+            long id = nextId.incrementAndGet();
+            req.put("id", id);
+            CompletableFuture<JsonNode> future = new CompletableFuture<>();
+            pending.set(future);
+            try {
+                stdin.write(objectMapper.writeValueAsString(req));
+                stdin.write('\n');
+                stdin.flush();
+                JsonNode resp = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+                if (resp.path("id").asLong(-1) != id) {
+                    throw new IllegalStateException("Resposta fora de ordem do worker Puppeteer");
+                }
+                return resp;
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("Puppeteer timed out after " + timeoutMs + " ms", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Worker Puppeteer encerrado", e.getCause());
+            } finally {
+                pending.set(null);
+            }
+        }
+
+        private void readResponses() {
+            try (BufferedReader r = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    CompletableFuture<JsonNode> f = pending.get();
+                    if (f != null) {
+                        f.complete(objectMapper.readTree(line));
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Leitura do worker Puppeteer encerrada: {}", e.getMessage());
+            }
+            CompletableFuture<JsonNode> f = pending.get();
+            if (f != null) {
+                f.completeExceptionally(new IOException("worker encerrado"));
+            }
+        }
+
+        private void drainStderr() {
+            try (BufferedReader r = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    log.debug("puppeteer[{}]: {}", process.pid(), line);
+                }
+            } catch (IOException e) {
+                // processo encerrado
+            }
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
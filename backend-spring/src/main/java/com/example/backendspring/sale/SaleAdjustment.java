@@ -11,7 +11,9 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "sale_adjustments")
+@Table(name = "sale_adjustments", indexes = {
+        @Index(name = "idx_sale_adjustments_item_type", columnList = "sale_item_id, type"),
+        @Index(name = "idx_sale_adjustments_order", columnList = "sale_order_id") })
 public class SaleAdjustment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
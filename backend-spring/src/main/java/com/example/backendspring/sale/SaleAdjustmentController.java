@@ -26,10 +26,14 @@ public class SaleAdjustmentController {
 
     private final SaleOrderRepository saleOrderRepository;
     private final SaleItemRepository saleItemRepository;
+    private final SaleReturnLedger saleReturnLedger;
+    private final SaleDailyRollup saleDailyRollup;
     private final SaleAdjustmentRepository saleAdjustmentRepository;
     private final com.example.backendspring.product.ProductRepository productRepository;
     private final com.example.backendspring.caixa.CaixaMovimentacaoRepository caixaMovimentacaoRepository;
     private final com.example.backendspring.caixa.CaixaStatusRepository caixaStatusRepository;
+    private final NotaCache notaCache;
+    private final com.example.backendspring.product.ProductCatalogCache productCatalogCache;
 
     @PostMapping("/{saleId}/adjustments")
     @Transactional
@@ -50,19 +54,19 @@ public class SaleAdjustmentController {
                 return notFound("Venda não encontrada");
             var sale = saleOpt.get();
 
-            var itemOpt = saleItemRepository.findById(req.getSaleItemId());
+            // trava o item: devoluções concorrentes não podem ultrapassar a quantidade vendida
+            var itemOpt = saleItemRepository.findByIdForUpdate(req.getSaleItemId());
             if (itemOpt.isEmpty() || !Objects.equals(itemOpt.get().getVenda().getId(), sale.getId()))
                 return badRequest("Item não pertence à venda");
             var saleItem = itemOpt.get();
 
-            // Calcular já devolvido para limitar devolução/exchange
-            int alreadyReturned = computeAlreadyReturnedQty(saleItem.getId());
-            int originalQty = saleItem.getQuantidade() == null ? 0 : saleItem.getQuantidade();
-            int availableToReturn = Math.max(0, originalQty - alreadyReturned);
+            // Já devolvido (quantidade_devolvida) limita devolução/exchange
+            int availableToReturn = SaleReturnLedger.restante(saleItem);
             if (req.getQuantity() > availableToReturn) {
                 return badRequest("Quantidade solicitada maior que restante disponível para devolver (restante: "
                         + availableToReturn + ")");
             }
+            var resumoAntes = saleDailyRollup.contribuicao(sale);
 
             // Restaurar estoque no caso de devolução (return)
             if (type.equals("return")) {
@@ -71,6 +75,7 @@ public class SaleAdjustmentController {
                     if (prod != null) {
                         prod.setQuantidadeEstoque(prod.getQuantidadeEstoque() + req.getQuantity());
                         productRepository.save(prod);
+                        productCatalogCache.invalidate(prod.getId());
                     }
                 } catch (Exception e) {
                     log.warn("FAILED_STOCK_RESTORE", e);
@@ -85,6 +90,7 @@ public class SaleAdjustmentController {
                     if (prod != null) {
                         prod.setQuantidadeEstoque(prod.getQuantidadeEstoque() + req.getQuantity());
                         productRepository.save(prod);
+                        productCatalogCache.invalidate(prod.getId());
                     }
                 } catch (Exception e) {
                     log.warn("FAILED_STOCK_RESTORE_EXCHANGE", e);
@@ -111,6 +117,8 @@ public class SaleAdjustmentController {
                 adj.setDetailJson(safePaymentsJson(req.getPayments()));
             }
             saleAdjustmentRepository.save(adj);
+            if (type.equals("return"))
+                saleReturnLedger.onReturn(saleItem, req.getQuantity());
 
             Double refundAmount = null;
             try {
@@ -172,6 +180,7 @@ public class SaleAdjustmentController {
                 sale.setStatus("DEVOLVIDA");
             }
             saleOrderRepository.save(sale);
+            saleDailyRollup.onSaleChanged(resumoAntes, sale);
 
             Map<String, Object> body = new LinkedHashMap<>();
             body.put("success", true);
@@ -186,22 +195,21 @@ public class SaleAdjustmentController {
             body.put("returned_resumo", buildReturnedResumo(sale));
             if (refundAmount != null)
                 body.put("refund_amount", refundAmount);
+            notaCache.invalidate(sale.getId());
             return ResponseEntity.ok(body);
         } catch (Exception e) {
             log.error("FAILED_CREATE_ADJUSTMENT saleId={}", saleId, e);
+            // desfaz ajuste, estoque reposto e quantidade devolvida já gravados,
+            // que sem o delta do resumo diário o deixariam divergente
+            org.springframework.transaction.interceptor.TransactionAspectSupport.currentTransactionStatus()
+                    .setRollbackOnly();
             return ResponseEntity.internalServerError().body(Map.of("error", "Falha ao processar ajuste"));
         }
     }
 
     private String buildReturnedResumo(SaleOrder sale) {
         try {
-            Map<Long, Integer> map = new HashMap<>();
-            var adjs = saleAdjustmentRepository.findBySaleOrderId(sale.getId());
-            for (var a : adjs) {
-                if ("return".equalsIgnoreCase(a.getType()) && a.getSaleItem() != null) {
-                    map.merge(a.getSaleItem().getId(), a.getQuantity() == null ? 0 : a.getQuantity(), Integer::sum);
-                }
-            }
+            Map<Long, Integer> map = aggregateReturns(sale);
             if (map.isEmpty())
                 return null;
             List<String> parts = new ArrayList<>();
@@ -218,7 +226,7 @@ public class SaleAdjustmentController {
     }
 
     private int computeNetQuantity(SaleOrder sale) {
-        Map<Long, Integer> ret = aggregateReturns(sale.getId());
+        Map<Long, Integer> ret = aggregateReturns(sale);
         int net = 0;
         if (sale.getItens() != null) {
             for (var it : sale.getItens()) {
@@ -231,7 +239,7 @@ public class SaleAdjustmentController {
     }
 
     private double computeNetTotalAfterReturns(SaleOrder sale) {
-        Map<Long, Integer> ret = aggregateReturns(sale.getId());
+        Map<Long, Integer> ret = aggregateReturns(sale);
         double net = 0.0;
         if (sale.getItens() != null) {
             for (var it : sale.getItens()) {
@@ -246,7 +254,7 @@ public class SaleAdjustmentController {
     }
 
     private boolean allItemsFullyReturned(SaleOrder sale) {
-        Map<Long, Integer> ret = aggregateReturns(sale.getId());
+        Map<Long, Integer> ret = aggregateReturns(sale);
         if (sale.getItens() == null || sale.getItens().isEmpty())
             return false;
         for (var it : sale.getItens()) {
@@ -258,36 +266,19 @@ public class SaleAdjustmentController {
         return true;
     }
 
-    private Map<Long, Integer> aggregateReturns(Long saleId) {
+    /** Devolvido por item, lido de quantidade_devolvida (itens da própria venda). */
+    private Map<Long, Integer> aggregateReturns(SaleOrder sale) {
         Map<Long, Integer> ret = new HashMap<>();
-        try {
-            var adjs = saleAdjustmentRepository.findBySaleOrderId(saleId);
-            for (var a : adjs) {
-                if ("return".equalsIgnoreCase(a.getType()) && a.getSaleItem() != null) {
-                    ret.merge(a.getSaleItem().getId(), a.getQuantity() == null ? 0 : a.getQuantity(), Integer::sum);
-                }
+        if (sale.getItens() != null) {
+            for (var it : sale.getItens()) {
+                int r = SaleReturnLedger.devolvida(it);
+                if (r > 0)
+                    ret.put(it.getId(), r);
             }
-        } catch (Exception ignored) {
         }
         return ret;
     }
 
-    private int computeAlreadyReturnedQty(Long saleItemId) {
-        int sum = 0;
-        try {
-            // Buscar todos ajustes da ordem via item -> order id; fallback: filtrar em
-            // memória
-            var adjs = saleAdjustmentRepository.findAll();
-            for (var a : adjs) {
-                if ("return".equalsIgnoreCase(a.getType()) && a.getSaleItem() != null
-                        && Objects.equals(a.getSaleItem().getId(), saleItemId)) {
-                    sum += (a.getQuantity() == null ? 0 : a.getQuantity());
-                }
-            }
-        } catch (Exception ignored) {
-        }
-        return sum;
-    }
 
     private ResponseEntity<Map<String, Object>> badRequest(String msg) {
         return ResponseEntity.badRequest().body(Map.of("error", msg));
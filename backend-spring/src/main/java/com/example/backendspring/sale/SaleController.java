@@ -6,6 +6,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.example.backendspring.caixa.CaixaStatusRepository;
 import com.example.backendspring.client.Client;
 import com.example.backendspring.client.ClientRepository;
+import com.example.backendspring.utils.DateTimeUtils;
+import com.example.backendspring.utils.KeysetCursor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -30,7 +32,8 @@ public class SaleController {
     private final SaleReportService saleReportService;
     private final CaixaStatusRepository caixaStatusRepository;
     private final com.example.backendspring.caixa.CaixaMovimentacaoRepository caixaMovimentacaoRepository;
-    private final SaleAdjustmentRepository saleAdjustmentRepository;
+    private final com.example.backendspring.product.ProductCatalogCache productCatalogCache;
+    private final SaleDailyRollup saleDailyRollup;
 
     private static final String KEY_ERROR = "error";
     private static final String KEY_QTD_VENDIDA = "quantidade_vendida";
@@ -90,7 +93,7 @@ public class SaleController {
     private java.util.Map<Long, Integer> calculateReturnedItems(SaleOrder o) {
         java.util.Map<Long, Integer> returnedByItem = new java.util.HashMap<>();
         try {
-            var adjs = saleAdjustmentRepository.findBySaleOrderId(o.getId());
+            var adjs = o.getAjustes();
             for (var a : adjs) {
                 if (KEY_RETURN.equalsIgnoreCase(a.getType()) && a.getSaleItem() != null) {
                     returnedByItem.merge(a.getSaleItem().getId(),
@@ -136,7 +139,7 @@ public class SaleController {
     private double calculateExchangeDifferences(SaleOrder o) {
         double exchangeDiffTotal = 0.0;
         try {
-            var adjs = saleAdjustmentRepository.findBySaleOrderId(o.getId());
+            var adjs = o.getAjustes();
             for (var a : adjs) {
                 if ("exchange".equalsIgnoreCase(a.getType()) && a.getPriceDifference() != null) {
                     exchangeDiffTotal += Math.abs(a.getPriceDifference());
@@ -215,16 +218,13 @@ public class SaleController {
             @RequestParam(value = "page", required = false, defaultValue = "0") int page,
             @RequestParam(value = "size", required = false, defaultValue = "20") int size,
             @RequestParam(value = "from", required = false) String from,
-            @RequestParam(value = "to", required = false) String to) {
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         try {
             DateRangeParams dateParams = parseDateRangeParams(from, to);
-            java.util.List<com.example.backendspring.sale.SaleOrder> orders = fetchOrdersByDateRange(dateParams);
-            orders = filterOrdersIfNeeded(orders, dateParams);
-
-            java.util.List<java.util.Map<String, Object>> rows = buildDetailedRows(orders);
-            sortRowsByDateDesc(rows);
-
-            return buildPaginatedResponse(rows, page, size);
+            return buildPaginatedResponse(dateParams, page, size, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of(KEY_ERROR, e.getMessage()));
         } catch (Exception e) {
             return handleDetailedVendasError(e);
         }
@@ -264,38 +264,56 @@ public class SaleController {
         return params;
     }
 
-    private java.util.List<com.example.backendspring.sale.SaleOrder> fetchOrdersByDateRange(DateRangeParams params) {
-        // fetch only orders (unpaged). Prefer timestamp search when provided
-        if (params.inicioTs != null && params.fimTs != null) {
-            log.info("Searching vendas by timestamp range (controller fallback): from={} to={}", params.inicioTs,
-                    params.fimTs);
-            // Fallback: fetch all and filter in-memory to avoid native query binding issues
-            var all = saleOrderRepository.findAllOrderByData();
-            final java.time.OffsetDateTime fromVal = params.inicioTs;
-            final java.time.OffsetDateTime toVal = params.fimTs;
-            var filtered = all.stream().filter(o -> {
-                var dv = o.getDataVenda();
-                return (dv != null && !dv.isBefore(fromVal) && !dv.isAfter(toVal));
-            }).toList();
-            log.info("Orders after timestamp in-memory filter: {}", filtered.size());
-            return filtered;
-        } else if (params.inicio != null && params.fim != null) {
-            log.info("Searching vendas by date range: {} to {}", params.inicio, params.fim);
-            return saleOrderRepository.findByPeriodo(params.inicio, params.fim);
+    // Limites abertos quando a data não é informada
+    private static final java.time.OffsetDateTime DETALHADAS_MIN = java.time.OffsetDateTime.of(1900, 1, 1, 0, 0, 0, 0,
+            java.time.ZoneOffset.UTC);
+    private static final java.time.OffsetDateTime DETALHADAS_MAX = java.time.OffsetDateTime.of(9999, 1, 1, 0, 0, 0, 0,
+            java.time.ZoneOffset.UTC);
+
+    private ResponseEntity<java.util.Map<String, Object>> buildPaginatedResponse(DateRangeParams params, int page,
+            int size, String cursor) {
+        // Intervalo [inicio, fim): timestamp "to" é inclusivo, data "to" cobre o dia
+        // inteiro em America/Sao_Paulo
+        java.time.OffsetDateTime inicio = params.inicioTs != null ? params.inicioTs
+                : params.inicio != null ? DateTimeUtils.startOfDay(params.inicio) : DETALHADAS_MIN;
+        java.time.OffsetDateTime fim = params.fimTs != null ? params.fimTs.plusNanos(1000)
+                : params.fim != null ? DateTimeUtils.startOfNextDay(params.fim) : DETALHADAS_MAX;
+        // Sem filtro de data exclui vendas do checkout (CheckoutController é a fonte
+        // delas); com filtro inclui todas para que buscas por horário funcionem
+        boolean semPagamentos = params.inicioTs == null && params.fimTs == null && params.inicio == null
+                && params.fim == null;
+
+        int pageSize = Math.max(1, size);
+        long total = saleOrderRepository.countNoIntervalo(inicio, fim, semPagamentos);
+        KeysetCursor after = KeysetCursor.decode(cursor, 1);
+        java.util.List<com.example.backendspring.sale.SaleOrder> orders;
+        boolean hasNext;
+        if (after != null) {
+            // uma linha a mais para saber se há próxima página
+            orders = saleOrderRepository.findPaginaNoIntervaloAntes(inicio, fim, semPagamentos, after.getData(),
+                    after.getId(0), org.springframework.data.domain.PageRequest.of(0, pageSize + 1));
+            hasNext = orders.size() > pageSize;
+            if (hasNext)
+                orders = orders.subList(0, pageSize);
         } else {
-            return saleOrderRepository.findAllOrderByData();
+            orders = saleOrderRepository.findPaginaNoIntervalo(inicio, fim, semPagamentos,
+                    org.springframework.data.domain.PageRequest.of(Math.max(0, page), pageSize));
+            hasNext = (long) (Math.max(0, page) + 1) * pageSize < total;
         }
-    }
-
-    private java.util.List<com.example.backendspring.sale.SaleOrder> filterOrdersIfNeeded(
-            java.util.List<com.example.backendspring.sale.SaleOrder> orders, DateRangeParams params) {
-        // Exclude checkout orders (CheckoutController is authoritative for these)
-        // But when the client requested a timestamp or date range, include checkout
-        // orders as well so time-based searches return expected results.
-        if (params.inicioTs == null && params.fimTs == null && params.inicio == null && params.fim == null) {
-            return orders.stream().filter(o -> o.getPagamentos() == null || o.getPagamentos().isEmpty()).toList();
+        String nextCursor = null;
+        if (hasNext && !orders.isEmpty()) {
+            var last = orders.get(orders.size() - 1);
+            nextCursor = KeysetCursor.of(last.getDataVenda(), last.getId()).encode();
         }
-        return orders;
+
+        java.util.Map<String, Object> resp = new java.util.LinkedHashMap<>();
+        resp.put("items", buildDetailedRows(orders));
+        resp.put("total", total);
+        resp.put("hasNext", hasNext);
+        resp.put("page", page);
+        resp.put("size", size);
+        resp.put("nextCursor", nextCursor);
+        return ResponseEntity.ok(resp);
     }
 
     private java.util.List<java.util.Map<String, Object>> buildDetailedRows(
@@ -476,7 +494,7 @@ public class SaleController {
     private void addOrderAdjustments(java.util.Map<String, Object> m, com.example.backendspring.sale.SaleOrder o) {
         // include adjustments when available
         try {
-            var adjs = saleAdjustmentRepository.findBySaleOrderId(o.getId());
+            var adjs = o.getAjustes();
             var adjsMapped = adjs == null ? java.util.List.of()
                     : adjs.stream().map(a -> {
                         var mm = new java.util.LinkedHashMap<String, Object>();
@@ -499,31 +517,6 @@ public class SaleController {
         }
     }
 
-    private void sortRowsByDateDesc(java.util.List<java.util.Map<String, Object>> rows) {
-        // sort by date desc
-        rows.sort((a, b) -> {
-            var da = (java.time.OffsetDateTime) a.get(KEY_DATA_VENDA);
-            var db = (java.time.OffsetDateTime) b.get(KEY_DATA_VENDA);
-            return db.compareTo(da);
-        });
-    }
-
-    private ResponseEntity<java.util.Map<String, Object>> buildPaginatedResponse(
-            java.util.List<java.util.Map<String, Object>> rows, int page, int size) {
-        int total = rows.size();
-        int fromIdx = Math.max(0, page * size);
-        int toIdx = Math.min(rows.size(), fromIdx + size);
-        var pageItems = rows.subList(fromIdx, toIdx);
-
-        java.util.Map<String, Object> resp = new java.util.LinkedHashMap<>();
-        resp.put("items", pageItems);
-        resp.put("total", total);
-        resp.put("hasNext", toIdx < total);
-        resp.put("page", page);
-        resp.put("size", size);
-        return ResponseEntity.ok(resp);
-    }
-
     private ResponseEntity<java.util.Map<String, Object>> handleDetailedVendasError(Exception e) {
         log.error("Failed to build detailed vendas page", e);
         try (java.io.StringWriter sw = new java.io.StringWriter();
@@ -569,6 +562,7 @@ public class SaleController {
         setCustomerIfProvided(order, req.getClienteId());
 
         saleOrderRepository.save(order);
+        saleDailyRollup.onSaleCreated(order);
 
         return buildCreateSaleResponse(order, produto, req, metodo);
     }
@@ -620,6 +614,7 @@ public class SaleController {
     private void updateProductStock(Product produto, Integer quantidadeVendida) {
         produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - quantidadeVendida);
         productRepository.save(produto);
+        productCatalogCache.invalidate(produto.getId());
     }
 
     private SaleOrder createSaleOrderWithItems(CreateSaleRequest req, Product produto, String metodo) {
@@ -747,6 +742,15 @@ public class SaleController {
         return saleReportService.getResumoTotal();
     }
 
+    /** Reconstrói venda_resumo_dia a partir das vendas (após correções manuais no banco). */
+    @PostMapping("/relatorios/rebuild")
+    @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> rebuildRelatorios() {
+        int dias = saleDailyRollup.rebuild();
+        log.info("ADMIN_TOOL action=rebuild_resumo_dia dias={}", dias);
+        return Map.of("message", "Resumo diário reconstruído", "dias", dias);
+    }
+
     @Data
     public static class CreateSaleRequest {
         @JsonProperty("produto_id")
@@ -0,0 +1,153 @@
+package com.example.backendspring.sale;
+
+import com.example.backendspring.utils.DateTimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Mantém de forma incremental venda_resumo_dia ({@link SaleResumoDia}): cada
+ * alteração de venda soma ao dia a diferença entre a contribuição da venda
+ * antes e depois, na mesma transação. Os incrementos são comutativos (upsert
+ * com soma), então checkouts concorrentes no mesmo dia não perdem valores.
+ *
+ * Uso: {@link #contribuicao} antes de alterar a venda e
+ * {@link #onSaleChanged} depois; para vendas novas {@link #onSaleCreated} e
+ * para exclusões {@link #onSaleRemoved} com a contribuição lida antes do delete.
+ *
+ * Pagamentos têm colunas fixas para os quatro métodos aceitos pelo checkout e
+ * pela venda avulsa (dinheiro, cartao_credito, cartao_debito, pix); qualquer
+ * outro valor só entra por restauração de auditoria ou por dados gravados
+ * fora da aplicação e é somado em pag_outros, que os resumos de mês e total
+ * expõem como "outros".
+ */
+@Service
+public class SaleDailyRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(SaleDailyRollup.class);
+
+    private final SaleResumoDiaRepository resumoDiaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean forcarRebuild;
+
+    public SaleDailyRollup(SaleResumoDiaRepository resumoDiaRepository, TransactionTemplate transactionTemplate,
+            @Value("${app.sales-rollup.rebuild-on-startup:false}") boolean forcarRebuild) {
+        this.resumoDiaRepository = resumoDiaRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.forcarRebuild = forcarRebuild;
+    }
+
+    /**
+     * Monta a tabela na inicialização (depois da correção de
+     * quantidade_devolvida) quando os totais dela não batem com os das vendas:
+     * primeira subida com a tabela vazia, ou base restaurada com um resumo de
+     * outra época. Com app.sales-rollup.rebuild-on-startup=true reconstrói
+     * sempre; divergências por dia com totais iguais só são corrigidas pelo
+     * POST /api/vendas/relatorios/rebuild. Roda em transação própria; uma
+     * falha é logada sem impedir a subida.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void rebuildOnStartup() {
+        try {
+            if (!forcarRebuild && !resumoDiaRepository.divergeDasVendas())
+                return;
+            Integer dias = transactionTemplate.execute(tx -> rebuild());
+            log.info("Resumo diário de vendas reconstruído: {} dias", dias);
+        } catch (Exception e) {
+            log.warn("Falha ao reconstruir resumo diário de vendas: {}", e.getMessage());
+        }
+    }
+
+    /** Recalcula todos os dias a partir das vendas; retorna o número de dias. */
+    @Transactional
+    public int rebuild() {
+        resumoDiaRepository.deleteAllRows();
+        return resumoDiaRepository.insertFromSales();
+    }
+
+    public void onSaleCreated(SaleOrder venda) {
+        aplicar(contribuicao(venda));
+    }
+
+    public void onSaleRemoved(Contribuicao antes) {
+        aplicar(antes.negada());
+    }
+
+    public void onSaleChanged(Contribuicao antes, SaleOrder depois) {
+        Contribuicao nova = contribuicao(depois);
+        if (antes.dia() != null && antes.dia().equals(nova.dia())) {
+            aplicar(nova.menos(antes));
+        } else {
+            aplicar(antes.negada());
+            aplicar(nova);
+        }
+    }
+
+    /** O que a venda soma no resumo do seu dia, pelas regras do SaleReportService. */
+    public Contribuicao contribuicao(SaleOrder venda) {
+        LocalDate dia = DateTimeUtils.businessDay(venda.getDataVenda());
+        if (dia == null || "DEVOLVIDA".equals(venda.getStatus()))
+            return new Contribuicao(dia, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        long quantidade = 0;
+        double receita = 0;
+        for (SaleItem it : venda.getItens()) {
+            int eff = Math.max(0, SaleReturnLedger.quantidade(it) - SaleReturnLedger.devolvida(it));
+            quantidade += eff;
+            receita += eff * (it.getPrecoUnitario() == null ? 0.0 : it.getPrecoUnitario());
+        }
+        double dinheiro = 0;
+        double credito = 0;
+        double debito = 0;
+        double pix = 0;
+        double outros = 0;
+        for (SalePayment p : venda.getPagamentos()) {
+            double valor = p.getValor() == null ? 0.0 : p.getValor();
+            String metodo = p.getMetodo() == null ? "" : p.getMetodo();
+            switch (metodo) {
+                case "dinheiro" -> dinheiro += valor;
+                case "cartao_credito" -> credito += valor;
+                case "cartao_debito" -> debito += valor;
+                case "pix" -> pix += valor;
+                default -> outros += valor;
+            }
+        }
+        long multiplo = venda.getPagamentos().size() > 1 ? 1 : 0;
+        return new Contribuicao(dia, 1, quantidade, receita, dinheiro, credito, debito, pix, outros, multiplo);
+    }
+
+    private void aplicar(Contribuicao c) {
+        if (c.dia() == null || c.vazia())
+            return;
+        resumoDiaRepository.addToDia(c.dia(), c.vendas(), c.quantidade(), c.receita(), c.dinheiro(), c.credito(),
+                c.debito(), c.pix(), c.outros(), c.multiplo());
+    }
+
+    public record Contribuicao(LocalDate dia, long vendas, long quantidade, double receita, double dinheiro,
+            double credito, double debito, double pix, double outros, long multiplo) {
+
+        Contribuicao negada() {
+            return new Contribuicao(dia, -vendas, -quantidade, -receita, -dinheiro, -credito, -debito, -pix,
+                    -outros, -multiplo);
+        }
+
+        Contribuicao menos(Contribuicao o) {
+            return new Contribuicao(dia, vendas - o.vendas, quantidade - o.quantidade, receita - o.receita,
+                    dinheiro - o.dinheiro, credito - o.credito, debito - o.debito, pix - o.pix, outros - o.outros,
+                    multiplo - o.multiplo);
+        }
+
+        boolean vazia() {
+            return vendas == 0 && quantidade == 0 && multiplo == 0 && receita == 0 && dinheiro == 0
+                    && credito == 0 && debito == 0 && pix == 0 && outros == 0;
+        }
+    }
+}
@@ -10,7 +10,7 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "venda_itens")
+@Table(name = "venda_itens", indexes = @Index(name = "idx_venda_itens_venda", columnList = "venda_id"))
 public class SaleItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,4 +32,12 @@ public class SaleItem {
 
     @Column(name = "preco_total", nullable = false)
     private Double precoTotal;
+
+    /**
+     * Soma das devoluções (ajustes type = 'return') deste item, mantida pelo
+     * SaleAdjustmentController na mesma transação do ajuste.
+     */
+    @Column(name = "quantidade_devolvida", nullable = false, columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer quantidadeDevolvida = 0;
 }
@@ -4,4 +4,19 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface SaleItemRepository extends JpaRepository<SaleItem, Long> {
 
+    @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+    @org.springframework.data.jpa.repository.Query("select vi from SaleItem vi where vi.id = :id")
+    java.util.Optional<SaleItem> findByIdForUpdate(@org.springframework.data.repository.query.Param("id") Long id);
+
+    /**
+     * Recalcula quantidade_devolvida a partir de sale_adjustments, apenas nas
+     * linhas divergentes (ajustes gravados antes da coluna existir ou por fora
+     * da API).
+     */
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query(value = "UPDATE venda_itens vi SET quantidade_devolvida = COALESCE(r.qtd, 0) "
+            + "FROM venda_itens v LEFT JOIN (SELECT sale_item_id, SUM(quantity) qtd FROM sale_adjustments "
+            + "WHERE type = 'return' GROUP BY sale_item_id) r ON r.sale_item_id = v.id "
+            + "WHERE v.id = vi.id AND vi.quantidade_devolvida IS DISTINCT FROM COALESCE(r.qtd, 0)", nativeQuery = true)
+    int reconcileQuantidadeDevolvida();
 }
@@ -13,7 +13,10 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "venda_cabecalho")
+@Table(name = "venda_cabecalho", indexes = {
+        @Index(name = "idx_venda_cabecalho_data_venda", columnList = "data_venda"),
+        @Index(name = "idx_venda_cabecalho_caixa_status", columnList = "caixa_status_id")
+})
 public class SaleOrder {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -74,4 +77,12 @@ public class SaleOrder {
     // optional status to indicate adjustments: e.g. 'DEVOLVIDA', 'TROCADA'
     @Column(name = "status")
     private String status;
+
+    // Ajustes (devoluções/trocas) da venda, somente leitura: nas listagens são
+    // carregados em lote para todas as vendas da página
+    // (hibernate.default_batch_fetch_size). Gravação continua via
+    // SaleAdjustmentRepository.
+    @OneToMany(mappedBy = "saleOrder")
+    @Builder.Default
+    private List<SaleAdjustment> ajustes = new ArrayList<>();
 }
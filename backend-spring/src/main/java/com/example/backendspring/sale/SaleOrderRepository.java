@@ -1,5 +1,6 @@
 package com.example.backendspring.sale;
 
+import com.example.backendspring.utils.DateTimeUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.Modifying;
@@ -8,15 +9,23 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 public interface SaleOrderRepository extends JpaRepository<SaleOrder, Long> {
 
-        @Query(value = "SELECT * FROM venda_cabecalho WHERE (data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date = :dia ORDER BY data_venda DESC", nativeQuery = true)
-        List<SaleOrder> findByDia(@Param("dia") LocalDate dia);
+        // Dia/período de negócio (America/Sao_Paulo) como intervalo [inicio, fim) em
+        // data_venda, servido pelo índice idx_venda_cabecalho_data_venda
+        default List<SaleOrder> findByDia(LocalDate dia) {
+                return findByIntervalo(DateTimeUtils.startOfDay(dia), DateTimeUtils.startOfNextDay(dia));
+        }
 
-        @Query(value = "SELECT * FROM venda_cabecalho WHERE (data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN :inicio AND :fim ORDER BY data_venda DESC", nativeQuery = true)
-        List<SaleOrder> findByPeriodo(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+        default List<SaleOrder> findByPeriodo(LocalDate inicio, LocalDate fim) {
+                return findByIntervalo(DateTimeUtils.startOfDay(inicio), DateTimeUtils.startOfNextDay(fim));
+        }
+
+        @Query(value = "SELECT * FROM venda_cabecalho WHERE data_venda >= :inicio AND data_venda < :fim ORDER BY data_venda DESC", nativeQuery = true)
+        List<SaleOrder> findByIntervalo(@Param("inicio") OffsetDateTime inicio, @Param("fim") OffsetDateTime fim);
 
         // New: filter by timestamp range (expects UTC timestamps)
         @Query(value = "SELECT * FROM venda_cabecalho WHERE data_venda BETWEEN :from AND :to ORDER BY data_venda DESC", nativeQuery = true)
@@ -27,16 +36,68 @@ public interface SaleOrderRepository extends JpaRepository<SaleOrder, Long> {
         List<SaleOrder> findByPeriodoTimestampsRaw(@Param("from") java.time.OffsetDateTime from,
                         @Param("to") java.time.OffsetDateTime to);
 
+        // Vendas vinculadas a uma sessão de caixa (reconciliação/contadores)
+        @Query(value = "SELECT * FROM venda_cabecalho WHERE caixa_status_id = :caixaStatusId ORDER BY data_venda DESC", nativeQuery = true)
+        List<SaleOrder> findByCaixaStatusId(@Param("caixaStatusId") Long caixaStatusId);
+
+        @Query(value = "SELECT COUNT(*) FROM venda_cabecalho WHERE caixa_status_id = :caixaStatusId", nativeQuery = true)
+        long countByCaixaStatusId(@Param("caixaStatusId") Long caixaStatusId);
+
         // pageable variants (no fetch-join to avoid MultipleBagFetchException)
         List<SaleOrder> findByClienteIdOrderByDataVendaDesc(Long clienteId, Pageable pageable);
 
-        @Query("select so from SaleOrder so where so.cliente.id = :clienteId and function('date', so.dataVenda) between :inicio and :fim order by so.dataVenda desc")
-        List<SaleOrder> findByClienteIdAndPeriodo(@Param("clienteId") Long clienteId, @Param("inicio") LocalDate inicio,
-                        @Param("fim") LocalDate fim, Pageable pageable);
+        default List<SaleOrder> findByClienteIdAndPeriodo(Long clienteId, LocalDate inicio, LocalDate fim,
+                        Pageable pageable) {
+                return findByClienteIdAndIntervalo(clienteId, DateTimeUtils.startOfDay(inicio),
+                                DateTimeUtils.startOfNextDay(fim), pageable);
+        }
+
+        @Query("select so from SaleOrder so where so.cliente.id = :clienteId and so.dataVenda >= :inicio and so.dataVenda < :fim order by so.dataVenda desc")
+        List<SaleOrder> findByClienteIdAndIntervalo(@Param("clienteId") Long clienteId,
+                        @Param("inicio") OffsetDateTime inicio, @Param("fim") OffsetDateTime fim, Pageable pageable);
 
         @Query("select so from SaleOrder so order by so.dataVenda desc")
         List<SaleOrder> findAllOrderByData();
 
+        // Página de /api/vendas/detalhadas ordenada por (data_venda, id) desc. A
+        // variante "Antes" continua a partir do cursor (keyset); semPagamentos
+        // restringe às vendas sem pagamentos (listagem sem filtro de data).
+        @Query("select so from SaleOrder so where so.dataVenda >= :inicio and so.dataVenda < :fim "
+                        + "and (:semPagamentos = false or so.pagamentos is empty) "
+                        + "order by so.dataVenda desc, so.id desc")
+        List<SaleOrder> findPaginaNoIntervalo(@Param("inicio") OffsetDateTime inicio,
+                        @Param("fim") OffsetDateTime fim, @Param("semPagamentos") boolean semPagamentos,
+                        Pageable pageable);
+
+        @Query("select so from SaleOrder so where so.dataVenda >= :inicio and so.dataVenda < :fim "
+                        + "and (:semPagamentos = false or so.pagamentos is empty) "
+                        + "and (so.dataVenda < :cursorData or (so.dataVenda = :cursorData and so.id < :cursorId)) "
+                        + "order by so.dataVenda desc, so.id desc")
+        List<SaleOrder> findPaginaNoIntervaloAntes(@Param("inicio") OffsetDateTime inicio,
+                        @Param("fim") OffsetDateTime fim, @Param("semPagamentos") boolean semPagamentos,
+                        @Param("cursorData") OffsetDateTime cursorData, @Param("cursorId") Long cursorId,
+                        Pageable pageable);
+
+        @Query("select count(so) from SaleOrder so where so.dataVenda >= :inicio and so.dataVenda < :fim "
+                        + "and (:semPagamentos = false or so.pagamentos is empty)")
+        long countNoIntervalo(@Param("inicio") OffsetDateTime inicio, @Param("fim") OffsetDateTime fim,
+                        @Param("semPagamentos") boolean semPagamentos);
+
+        // Página de GET /api/checkout ordenada por (data_venda, id) desc. status
+        // compara em maiúsculas; semStatus seleciona vendas sem status de ajuste
+        @Query("select so from SaleOrder so where so.dataVenda >= :inicio and so.dataVenda < :fim "
+                        + "and (:status is null or upper(so.status) = :status) "
+                        + "and (:semStatus = false or so.status is null) "
+                        + "order by so.dataVenda desc, so.id desc")
+        List<SaleOrder> findCheckoutPage(@Param("inicio") OffsetDateTime inicio, @Param("fim") OffsetDateTime fim,
+                        @Param("status") String status, @Param("semStatus") boolean semStatus, Pageable pageable);
+
+        @Query("select count(so) from SaleOrder so where so.dataVenda >= :inicio and so.dataVenda < :fim "
+                        + "and (:status is null or upper(so.status) = :status) "
+                        + "and (:semStatus = false or so.status is null)")
+        long countCheckoutPage(@Param("inicio") OffsetDateTime inicio, @Param("fim") OffsetDateTime fim,
+                        @Param("status") String status, @Param("semStatus") boolean semStatus);
+
         @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
         @org.springframework.data.jpa.repository.Query("select so from SaleOrder so where so.id = :id")
         java.util.Optional<SaleOrder> findByIdForUpdate(@org.springframework.data.repository.query.Param("id") Long id);
@@ -9,7 +9,7 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "venda_pagamentos")
+@Table(name = "venda_pagamentos", indexes = @Index(name = "idx_venda_pagamentos_venda", columnList = "venda_id"))
 public class SalePayment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
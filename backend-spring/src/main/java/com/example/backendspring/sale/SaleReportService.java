@@ -4,9 +4,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import com.example.backendspring.utils.DateTimeUtils;
+
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,69 +24,22 @@ public class SaleReportService {
         private static final String ALIAS_VALOR = "valor";
         private static final Logger log = LoggerFactory.getLogger(SaleReportService.class);
 
+        // tabela legada "vendas" existe? null = ainda não verificado
+        private volatile Boolean legacyVendas;
+
         public Map<String, Object> getResumoDia(LocalDate dia) {
                 Map<String, Object> result = new HashMap<>();
 
-                // Totais usando o modelo unificado (venda_cabecalho + venda_itens +
-                // venda_pagamentos)
-                // Normalize data_venda to America/Sao_Paulo when extracting date
-                Long totalVendas = jdbcTemplate.queryForObject(
-                                "SELECT COUNT(*) FROM venda_cabecalho vc WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date = ?",
-                                Long.class,
-                                dia);
-                Long qtdItens = jdbcTemplate.queryForObject(
-                                "SELECT COALESCE(SUM(GREATEST(vi.quantidade - COALESCE(ret.ret_qty,0),0)),0) " +
-                                                "FROM venda_itens vi " +
-                                                "JOIN venda_cabecalho vc ON vc.id = vi.venda_id " +
-                                                "LEFT JOIN (SELECT sale_item_id, SUM(quantity) ret_qty FROM sale_adjustments WHERE type = 'return' GROUP BY sale_item_id) ret ON ret.sale_item_id = vi.id "
-                                                +
-                                                "WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date = ?",
-                                Long.class, dia);
-                // prefer adjusted_total quando não nulo; fallback total_final. Exclui DEVOLVIDA
-                // Receita líquida calculada a partir dos itens menos devoluções (ignora
-                // adjusted_total para evitar inconsistências)
-                Double receitaTotal = jdbcTemplate.queryForObject(
-                                "SELECT COALESCE(SUM(GREATEST(vi.quantidade - COALESCE(ret.ret_qty,0),0) * vi.preco_unitario),0) "
-                                                +
-                                                "FROM venda_itens vi " +
-                                                "JOIN venda_cabecalho vc ON vc.id = vi.venda_id " +
-                                                "LEFT JOIN (SELECT sale_item_id, SUM(quantity) ret_qty FROM sale_adjustments WHERE type = 'return' GROUP BY sale_item_id) ret ON ret.sale_item_id = vi.id "
-                                                +
-                                                "WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date = ?",
-                                Double.class, dia);
-
-                totalVendas = totalVendas != null ? totalVendas : 0L;
-                long quantidadeVendida = qtdItens != null ? qtdItens : 0L;
-                receitaTotal = receitaTotal != null ? receitaTotal : 0.0;
-
-                Map<String, Double> porPagamento = new HashMap<>();
-                porPagamento.put("dinheiro", 0.0);
-                porPagamento.put("cartao_credito", 0.0);
-                porPagamento.put("cartao_debito", 0.0);
-                porPagamento.put("pix", 0.0);
-
-                // breakdown por método usando venda_pagamentos
-                jdbcTemplate.query(
-                                ("SELECT vp.metodo, COALESCE(SUM(vp.valor),0) as " + ALIAS_VALOR
-                                                + " FROM venda_pagamentos vp JOIN venda_cabecalho vc ON vc.id = vp.venda_id WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date = ? GROUP BY vp.metodo"),
-                                rs -> {
-                                        String metodo = rs.getString("metodo");
-                                        double valor = rs.getDouble(ALIAS_VALOR);
-                                        porPagamento.merge(metodo, valor, Double::sum);
-                                }, dia);
-
-                Long vendasComMultiploPagamentoObj = jdbcTemplate.queryForObject(
-                                "SELECT COUNT(*) FROM (SELECT vp.venda_id FROM venda_pagamentos vp JOIN venda_cabecalho vc ON vc.id = vp.venda_id WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date = ? GROUP BY vp.venda_id HAVING COUNT(*) > 1) t",
-                                Long.class, dia);
-                long vendasComMultiploPagamento = vendasComMultiploPagamentoObj != null ? vendasComMultiploPagamentoObj
-                                : 0L;
+                // Dia de negócio em America/Sao_Paulo como intervalo [inicio, fim) sobre
+                // data_venda, para que o índice em venda_cabecalho(data_venda) seja usado
+                Resumo resumo = resumoAoVivo(DateTimeUtils.startOfDay(dia), DateTimeUtils.startOfNextDay(dia));
 
                 result.put("data", dia.toString());
-                result.put("total_vendas", totalVendas);
-                result.put("quantidade_vendida", quantidadeVendida);
-                result.put("receita_total", receitaTotal);
-                result.put("por_pagamento", porPagamento);
-                result.put("vendas_com_multiplo_pagamento", vendasComMultiploPagamento);
+                result.put("total_vendas", resumo.totalVendas);
+                result.put("quantidade_vendida", resumo.quantidadeVendida);
+                result.put("receita_total", resumo.receitaTotal);
+                result.put("por_pagamento", resumo.porPagamento);
+                result.put("vendas_com_multiplo_pagamento", resumo.vendasComMultiploPagamento);
                 return result;
         }
 
@@ -89,92 +47,23 @@ public class SaleReportService {
                 YearMonth ym = YearMonth.of(ano, mes);
                 LocalDate inicio = ym.atDay(1);
                 LocalDate fim = ym.atEndOfMonth();
+                OffsetDateTime inicioTs = DateTimeUtils.startOfDay(inicio);
+                OffsetDateTime fimTs = DateTimeUtils.startOfNextDay(fim);
 
                 Map<String, Object> result = new HashMap<>();
 
-                Long totalVendasLegado = 0L;
-                Long qtdLegado = 0L;
-                Double receitaLegado = 0.0;
-                try {
-                        totalVendasLegado = jdbcTemplate.queryForObject(
-                                        "SELECT COUNT(*) FROM vendas v WHERE (v.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN ? AND ?",
-                                        Long.class,
-                                        inicio, fim);
-                        qtdLegado = jdbcTemplate.queryForObject(
-                                        "SELECT COALESCE(SUM(v.quantidade_vendida),0) FROM vendas v WHERE (v.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN ? AND ?",
-                                        Long.class, inicio, fim);
-                        receitaLegado = jdbcTemplate.queryForObject(
-                                        "SELECT COALESCE(SUM(v.preco_total),0) FROM vendas v WHERE (v.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN ? AND ?",
-                                        Double.class, inicio, fim);
-                } catch (Exception e) {
-                        // legacy table may have been removed; treat as zero
-                        log.warn("Legacy vendas queries failed (table may not exist): {}", e.getMessage());
-                        totalVendasLegado = 0L;
-                        qtdLegado = 0L;
-                        receitaLegado = 0.0;
-                }
+                Resumo legado = resumoLegado(inicioTs, fimTs);
 
-                Long totalVendasNovo = jdbcTemplate.queryForObject(
-                                "SELECT COUNT(*) FROM venda_cabecalho vc WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN ? AND ?",
-                                Long.class, inicio, fim);
-                Double receitaNovo = jdbcTemplate.queryForObject(
-                                "SELECT COALESCE(SUM(GREATEST(vi.quantidade - COALESCE(ret.ret_qty,0),0) * vi.preco_unitario),0) "
-                                                +
-                                                "FROM venda_itens vi " +
-                                                "JOIN venda_cabecalho vc ON vc.id = vi.venda_id " +
-                                                "LEFT JOIN (SELECT sale_item_id, SUM(quantity) ret_qty FROM sale_adjustments WHERE type = 'return' GROUP BY sale_item_id) ret ON ret.sale_item_id = vi.id "
-                                                +
-                                                "WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN ? AND ?",
-                                Double.class, inicio, fim);
-                Long qtdNovo = jdbcTemplate.queryForObject(
-                                "SELECT COALESCE(SUM(GREATEST(vi.quantidade - COALESCE(ret.ret_qty,0),0)),0) " +
-                                                "FROM venda_itens vi " +
-                                                "JOIN venda_cabecalho vc ON vc.id = vi.venda_id " +
-                                                "LEFT JOIN (SELECT sale_item_id, SUM(quantity) ret_qty FROM sale_adjustments WHERE type = 'return' GROUP BY sale_item_id) ret ON ret.sale_item_id = vi.id "
-                                                +
-                                                "WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN ? AND ?",
-                                Long.class, inicio, fim);
-
-                long totalVendas = (totalVendasLegado != null ? totalVendasLegado : 0L)
-                                + (totalVendasNovo != null ? totalVendasNovo : 0L);
-                long quantidadeVendida = (qtdLegado != null ? qtdLegado : 0L) + (qtdNovo != null ? qtdNovo : 0L);
-                double receitaTotal = (receitaLegado != null ? receitaLegado : 0.0)
-                                + (receitaNovo != null ? receitaNovo : 0.0);
-
-                Map<String, Double> porPagamento = new HashMap<>();
-                porPagamento.put("dinheiro", 0.0);
-                porPagamento.put("cartao_credito", 0.0);
-                porPagamento.put("cartao_debito", 0.0);
-                porPagamento.put("pix", 0.0);
+                // venda_cabecalho: soma os dias do mês em venda_resumo_dia
+                Resumo novo = somarResumoDiario(inicio, fim);
 
-                try {
-                        jdbcTemplate.query(
-                                        ("SELECT metodo_pagamento, COALESCE(SUM(preco_total),0) as " + ALIAS_VALOR
-                                                        + " FROM vendas WHERE (data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN ? AND ? GROUP BY metodo_pagamento"),
-                                        rs -> {
-                                                String metodo = rs.getString("metodo_pagamento");
-                                                double valor = rs.getDouble(ALIAS_VALOR);
-                                                porPagamento.merge(metodo, valor, Double::sum);
-                                        }, inicio, fim);
-                } catch (Exception e) {
-                        log.debug("Legacy vendas por-pagamento query skipped: {}", e.getMessage());
-                }
+                long totalVendas = legado.totalVendas + novo.totalVendas;
+                long quantidadeVendida = legado.quantidadeVendida + novo.quantidadeVendida;
+                double receitaTotal = legado.receitaTotal + novo.receitaTotal;
 
-                jdbcTemplate.query(
-                                ("SELECT vp.metodo, COALESCE(SUM(vp.valor),0) as " + ALIAS_VALOR
-                                                + " FROM venda_pagamentos vp JOIN venda_cabecalho vc ON vc.id = vp.venda_id WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN ? AND ? GROUP BY vp.metodo"),
-                                rs -> {
-                                        String metodo = rs.getString("metodo");
-                                        double valor = rs.getDouble(ALIAS_VALOR);
-                                        porPagamento.merge(metodo, valor, Double::sum);
-                                }, inicio, fim);
-
-                Long vendasComMultiploPagamentoObj2 = jdbcTemplate.queryForObject(
-                                "SELECT COUNT(*) FROM (SELECT vp.venda_id FROM venda_pagamentos vp JOIN venda_cabecalho vc ON vc.id = vp.venda_id WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) AND (vc.data_venda AT TIME ZONE 'UTC' AT TIME ZONE 'America/Sao_Paulo')::date BETWEEN ? AND ? GROUP BY vp.venda_id HAVING COUNT(*) > 1) t",
-                                Long.class, inicio, fim);
-                long vendasComMultiploPagamento = vendasComMultiploPagamentoObj2 != null
-                                ? vendasComMultiploPagamentoObj2
-                                : 0L;
+                Map<String, Double> porPagamento = new HashMap<>(novo.porPagamento);
+                legado.porPagamento.forEach((metodo, valor) -> porPagamento.merge(metodo, valor, Double::sum));
+                long vendasComMultiploPagamento = novo.vendasComMultiploPagamento;
 
                 result.put("periodo", inicio + " a " + fim);
                 result.put("total_vendas", totalVendas);
@@ -188,62 +77,143 @@ public class SaleReportService {
         public Map<String, Object> getResumoTotal() {
                 Map<String, Object> result = new HashMap<>();
 
-                // Totais usando o modelo unificado (venda_cabecalho + venda_itens +
-                // venda_pagamentos)
-                // Sem filtro de data - TODAS as vendas
-                Long totalVendas = jdbcTemplate.queryForObject(
-                                "SELECT COUNT(*) FROM venda_cabecalho vc WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL)",
-                                Long.class);
-                Long qtdItens = jdbcTemplate.queryForObject(
-                                "SELECT COALESCE(SUM(GREATEST(vi.quantidade - COALESCE(ret.ret_qty,0),0)),0) " +
-                                                "FROM venda_itens vi " +
-                                                "JOIN venda_cabecalho vc ON vc.id = vi.venda_id " +
-                                                "LEFT JOIN (SELECT sale_item_id, SUM(quantity) ret_qty FROM sale_adjustments WHERE type = 'return' GROUP BY sale_item_id) ret ON ret.sale_item_id = vi.id "
-                                                +
-                                                "WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL)",
-                                Long.class);
-                Double receitaTotal = jdbcTemplate.queryForObject(
-                                "SELECT COALESCE(SUM(GREATEST(vi.quantidade - COALESCE(ret.ret_qty,0),0) * vi.preco_unitario),0) "
-                                                +
-                                                "FROM venda_itens vi " +
-                                                "JOIN venda_cabecalho vc ON vc.id = vi.venda_id " +
-                                                "LEFT JOIN (SELECT sale_item_id, SUM(quantity) ret_qty FROM sale_adjustments WHERE type = 'return' GROUP BY sale_item_id) ret ON ret.sale_item_id = vi.id "
-                                                +
-                                                "WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL)",
-                                Double.class);
-
-                totalVendas = totalVendas != null ? totalVendas : 0L;
-                long quantidadeVendida = qtdItens != null ? qtdItens : 0L;
-                receitaTotal = receitaTotal != null ? receitaTotal : 0.0;
-
-                Map<String, Double> porPagamento = new HashMap<>();
-                porPagamento.put("dinheiro", 0.0);
-                porPagamento.put("cartao_credito", 0.0);
-                porPagamento.put("cartao_debito", 0.0);
-                porPagamento.put("pix", 0.0);
-
-                // breakdown por método usando venda_pagamentos (todas as vendas)
+                // Todas as vendas do modelo unificado, somando venda_resumo_dia (uma linha
+                // por dia) em vez de percorrer o histórico inteiro
+                Resumo total = somarResumoDiario(null, null);
+
+                result.put("periodo", "Total acumulado");
+                result.put("total_vendas", total.totalVendas);
+                result.put("quantidade_vendida", total.quantidadeVendida);
+                result.put("receita_total", total.receitaTotal);
+                result.put("por_pagamento", total.porPagamento);
+                result.put("vendas_com_multiplo_pagamento", total.vendasComMultiploPagamento);
+                return result;
+        }
+
+        /**
+         * Todas as métricas de venda_cabecalho no intervalo [inicio, fim) em uma
+         * única ida ao banco: o CTE filtra as vendas do período uma vez e as
+         * métricas saem de uma linha 'resumo' mais uma linha 'pagamento' por método.
+         */
+        private Resumo resumoAoVivo(OffsetDateTime inicio, OffsetDateTime fim) {
+                Resumo r = new Resumo();
+                r.porPagamento.put("dinheiro", 0.0);
+                r.porPagamento.put("cartao_credito", 0.0);
+                r.porPagamento.put("cartao_debito", 0.0);
+                r.porPagamento.put("pix", 0.0);
                 jdbcTemplate.query(
-                                ("SELECT vp.metodo, COALESCE(SUM(vp.valor),0) as " + ALIAS_VALOR
-                                                + " FROM venda_pagamentos vp JOIN venda_cabecalho vc ON vc.id = vp.venda_id WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) GROUP BY vp.metodo"),
+                                "WITH v AS (SELECT vc.id FROM venda_cabecalho vc WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) "
+                                                + "AND vc.data_venda >= ? AND vc.data_venda < ?), "
+                                                + "pg AS (SELECT vp.venda_id, vp.metodo, vp.valor FROM venda_pagamentos vp JOIN v ON v.id = vp.venda_id) "
+                                                + "SELECT 'resumo' AS tipo, NULL AS metodo, (SELECT COUNT(*) FROM v) AS vendas, it.quantidade, it."
+                                                + ALIAS_VALOR + ", "
+                                                + "(SELECT COUNT(*) FROM (SELECT venda_id FROM pg GROUP BY venda_id HAVING COUNT(*) > 1) t) AS multiplo "
+                                                + "FROM (SELECT COALESCE(SUM(GREATEST(vi.quantidade - vi.quantidade_devolvida,0)),0) AS quantidade, "
+                                                + "COALESCE(SUM(GREATEST(vi.quantidade - vi.quantidade_devolvida,0) * vi.preco_unitario),0) AS "
+                                                + ALIAS_VALOR + " FROM venda_itens vi JOIN v ON v.id = vi.venda_id) it "
+                                                + "UNION ALL "
+                                                + "SELECT 'pagamento', metodo, NULL, NULL, COALESCE(SUM(valor),0), NULL FROM pg GROUP BY metodo",
                                 rs -> {
-                                        String metodo = rs.getString("metodo");
-                                        double valor = rs.getDouble(ALIAS_VALOR);
-                                        porPagamento.merge(metodo, valor, Double::sum);
-                                });
+                                        if ("resumo".equals(rs.getString("tipo"))) {
+                                                r.totalVendas = rs.getLong("vendas");
+                                                r.quantidadeVendida = rs.getLong("quantidade");
+                                                r.receitaTotal = rs.getDouble(ALIAS_VALOR);
+                                                r.vendasComMultiploPagamento = rs.getLong("multiplo");
+                                        } else {
+                                                r.porPagamento.merge(rs.getString("metodo"), rs.getDouble(ALIAS_VALOR),
+                                                                Double::sum);
+                                        }
+                                }, inicio, fim);
+                return r;
+        }
 
-                Long vendasComMultiploPagamentoObj = jdbcTemplate.queryForObject(
-                                "SELECT COUNT(*) FROM (SELECT vp.venda_id FROM venda_pagamentos vp JOIN venda_cabecalho vc ON vc.id = vp.venda_id WHERE (vc.status <> 'DEVOLVIDA' OR vc.status IS NULL) GROUP BY vp.venda_id HAVING COUNT(*) > 1) t",
-                                Long.class);
-                long vendasComMultiploPagamento = vendasComMultiploPagamentoObj != null ? vendasComMultiploPagamentoObj
-                                : 0L;
+        /**
+         * Vendas da tabela legada "vendas" no intervalo, em uma consulta agrupada
+         * por método. A tabela foi removida na maioria das bases; a existência é
+         * verificada uma vez e, sem ela, o resumo é vazio sem consultar o banco.
+         */
+        private Resumo resumoLegado(OffsetDateTime inicio, OffsetDateTime fim) {
+                Resumo r = new Resumo();
+                if (!legacyVendasPresente())
+                        return r;
+                try {
+                        jdbcTemplate.query(
+                                        "SELECT metodo_pagamento, COUNT(*) AS vendas, COALESCE(SUM(quantidade_vendida),0) AS quantidade, "
+                                                        + "COALESCE(SUM(preco_total),0) AS " + ALIAS_VALOR
+                                                        + " FROM vendas WHERE data_venda >= ? AND data_venda < ? GROUP BY metodo_pagamento",
+                                        rs -> {
+                                                double valor = rs.getDouble(ALIAS_VALOR);
+                                                r.totalVendas += rs.getLong("vendas");
+                                                r.quantidadeVendida += rs.getLong("quantidade");
+                                                r.receitaTotal += valor;
+                                                r.porPagamento.merge(rs.getString("metodo_pagamento"), valor, Double::sum);
+                                        }, inicio, fim);
+                } catch (Exception e) {
+                        log.warn("Legacy vendas query failed: {}", e.getMessage());
+                        legacyVendas = null;
+                        return new Resumo();
+                }
+                return r;
+        }
 
-                result.put("periodo", "Total acumulado");
-                result.put("total_vendas", totalVendas);
-                result.put("quantidade_vendida", quantidadeVendida);
-                result.put("receita_total", receitaTotal);
-                result.put("por_pagamento", porPagamento);
-                result.put("vendas_com_multiplo_pagamento", vendasComMultiploPagamento);
-                return result;
+        private boolean legacyVendasPresente() {
+                Boolean presente = legacyVendas;
+                if (presente == null) {
+                        try {
+                                presente = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                                                "SELECT to_regclass('vendas') IS NOT NULL", Boolean.class));
+                        } catch (Exception e) {
+                                log.debug("Legacy vendas check failed: {}", e.getMessage());
+                                presente = false;
+                        }
+                        legacyVendas = presente;
+                }
+                return presente;
+        }
+
+        /**
+         * Soma venda_resumo_dia no intervalo de dias [inicio, fim] (ambos
+         * inclusivos; null = sem limite).
+         */
+        private Resumo somarResumoDiario(LocalDate inicio, LocalDate fim) {
+                StringBuilder sql = new StringBuilder(
+                                "SELECT COALESCE(SUM(total_vendas),0) AS total_vendas, COALESCE(SUM(quantidade_vendida),0) AS quantidade_vendida, "
+                                                + "COALESCE(SUM(receita_total),0) AS receita_total, COALESCE(SUM(pag_dinheiro),0) AS dinheiro, "
+                                                + "COALESCE(SUM(pag_cartao_credito),0) AS cartao_credito, COALESCE(SUM(pag_cartao_debito),0) AS cartao_debito, "
+                                                + "COALESCE(SUM(pag_pix),0) AS pix, COALESCE(SUM(pag_outros),0) AS outros, "
+                                                + "COALESCE(SUM(vendas_multiplo_pagamento),0) AS multiplo FROM venda_resumo_dia WHERE 1=1");
+                List<Object> args = new ArrayList<>();
+                if (inicio != null) {
+                        sql.append(" AND dia >= ?");
+                        args.add(inicio);
+                }
+                if (fim != null) {
+                        sql.append(" AND dia <= ?");
+                        args.add(fim);
+                }
+                return jdbcTemplate.queryForObject(sql.toString(), (rs, i) -> {
+                        Resumo r = new Resumo();
+                        r.totalVendas = rs.getLong("total_vendas");
+                        r.quantidadeVendida = rs.getLong("quantidade_vendida");
+                        r.receitaTotal = rs.getDouble("receita_total");
+                        r.porPagamento.put("dinheiro", rs.getDouble("dinheiro"));
+                        r.porPagamento.put("cartao_credito", rs.getDouble("cartao_credito"));
+                        r.porPagamento.put("cartao_debito", rs.getDouble("cartao_debito"));
+                        r.porPagamento.put("pix", rs.getDouble("pix"));
+                        // métodos fora dos quatro aceitos no checkout (ver SaleDailyRollup)
+                        double outros = rs.getDouble("outros");
+                        if (Math.abs(outros) > 0.0001)
+                                r.porPagamento.put("outros", outros);
+                        r.vendasComMultiploPagamento = rs.getLong("multiplo");
+                        return r;
+                }, args.toArray());
+        }
+
+        private static final class Resumo {
+                long totalVendas;
+                long quantidadeVendida;
+                double receitaTotal;
+                final Map<String, Double> porPagamento = new HashMap<>();
+                long vendasComMultiploPagamento;
         }
 }
@@ -0,0 +1,66 @@
+package com.example.backendspring.sale;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * Totais de vendas por dia de negócio (America/Sao_Paulo), mantidos pelo
+ * {@link SaleDailyRollup} no checkout, exclusão, restauração e ajustes.
+ * Mesmas regras do {@link SaleReportService}: vendas DEVOLVIDA não entram e
+ * itens contam pela quantidade líquida de devoluções.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "venda_resumo_dia")
+public class SaleResumoDia {
+    @Id
+    @Column(name = "dia")
+    private LocalDate dia;
+
+    @Column(name = "total_vendas", nullable = false)
+    @Builder.Default
+    private Long totalVendas = 0L;
+
+    @Column(name = "quantidade_vendida", nullable = false)
+    @Builder.Default
+    private Long quantidadeVendida = 0L;
+
+    @Column(name = "receita_total", nullable = false)
+    @Builder.Default
+    private Double receitaTotal = 0.0;
+
+    @Column(name = "pag_dinheiro", nullable = false)
+    @Builder.Default
+    private Double pagDinheiro = 0.0;
+
+    @Column(name = "pag_cartao_credito", nullable = false)
+    @Builder.Default
+    private Double pagCartaoCredito = 0.0;
+
+    @Column(name = "pag_cartao_debito", nullable = false)
+    @Builder.Default
+    private Double pagCartaoDebito = 0.0;
+
+    @Column(name = "pag_pix", nullable = false)
+    @Builder.Default
+    private Double pagPix = 0.0;
+
+    // Métodos fora dos quatro acima (vendas restauradas com método livre)
+    @Column(name = "pag_outros", nullable = false)
+    @Builder.Default
+    private Double pagOutros = 0.0;
+
+    @Column(name = "vendas_multiplo_pagamento", nullable = false)
+    @Builder.Default
+    private Long vendasMultiploPagamento = 0L;
+
+    @Column(name = "atualizado_em")
+    private OffsetDateTime atualizadoEm;
+}
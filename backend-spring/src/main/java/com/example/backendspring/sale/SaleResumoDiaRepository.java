@@ -0,0 +1,70 @@
+package com.example.backendspring.sale;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface SaleResumoDiaRepository extends JpaRepository<SaleResumoDia, LocalDate> {
+
+    @Modifying
+    @Query(value = "INSERT INTO venda_resumo_dia (dia, total_vendas, quantidade_vendida, receita_total, pag_dinheiro, "
+            + "pag_cartao_credito, pag_cartao_debito, pag_pix, pag_outros, vendas_multiplo_pagamento, atualizado_em) "
+            + "VALUES (:dia, :vendas, :quantidade, :receita, :dinheiro, :credito, :debito, :pix, :outros, :multiplo, now()) "
+            + "ON CONFLICT (dia) DO UPDATE SET total_vendas = venda_resumo_dia.total_vendas + EXCLUDED.total_vendas, "
+            + "quantidade_vendida = venda_resumo_dia.quantidade_vendida + EXCLUDED.quantidade_vendida, "
+            + "receita_total = venda_resumo_dia.receita_total + EXCLUDED.receita_total, "
+            + "pag_dinheiro = venda_resumo_dia.pag_dinheiro + EXCLUDED.pag_dinheiro, "
+            + "pag_cartao_credito = venda_resumo_dia.pag_cartao_credito + EXCLUDED.pag_cartao_credito, "
+            + "pag_cartao_debito = venda_resumo_dia.pag_cartao_debito + EXCLUDED.pag_cartao_debito, "
+            + "pag_pix = venda_resumo_dia.pag_pix + EXCLUDED.pag_pix, "
+            + "pag_outros = venda_resumo_dia.pag_outros + EXCLUDED.pag_outros, "
+            + "vendas_multiplo_pagamento = venda_resumo_dia.vendas_multiplo_pagamento + EXCLUDED.vendas_multiplo_pagamento, "
+            + "atualizado_em = now()", nativeQuery = true)
+    int addToDia(@Param("dia") LocalDate dia, @Param("vendas") long vendas, @Param("quantidade") long quantidade,
+            @Param("receita") double receita, @Param("dinheiro") double dinheiro, @Param("credito") double credito,
+            @Param("debito") double debito, @Param("pix") double pix, @Param("outros") double outros,
+            @Param("multiplo") long multiplo);
+
+    @Modifying
+    @Query(value = "DELETE FROM venda_resumo_dia", nativeQuery = true)
+    int deleteAllRows();
+
+    // Recalcula todos os dias a partir de venda_cabecalho/venda_itens/
+    // venda_pagamentos (usado apenas na reconstrução)
+    @Modifying
+    @Query(value = "WITH v AS (SELECT id, (data_venda AT TIME ZONE 'America/Sao_Paulo')::date AS dia FROM venda_cabecalho "
+            + "WHERE (status <> 'DEVOLVIDA' OR status IS NULL) AND data_venda IS NOT NULL), "
+            + "it AS (SELECT venda_id, SUM(GREATEST(quantidade - quantidade_devolvida, 0)) AS qtd, "
+            + "SUM(GREATEST(quantidade - quantidade_devolvida, 0) * preco_unitario) AS receita FROM venda_itens GROUP BY venda_id), "
+            + "pg AS (SELECT venda_id, COUNT(*) AS n, "
+            + "SUM(CASE WHEN metodo = 'dinheiro' THEN COALESCE(valor, 0) ELSE 0 END) AS dinheiro, "
+            + "SUM(CASE WHEN metodo = 'cartao_credito' THEN COALESCE(valor, 0) ELSE 0 END) AS credito, "
+            + "SUM(CASE WHEN metodo = 'cartao_debito' THEN COALESCE(valor, 0) ELSE 0 END) AS debito, "
+            + "SUM(CASE WHEN metodo = 'pix' THEN COALESCE(valor, 0) ELSE 0 END) AS pix, "
+            + "SUM(CASE WHEN metodo IN ('dinheiro', 'cartao_credito', 'cartao_debito', 'pix') THEN 0 ELSE COALESCE(valor, 0) END) AS outros "
+            + "FROM venda_pagamentos GROUP BY venda_id) "
+            + "INSERT INTO venda_resumo_dia (dia, total_vendas, quantidade_vendida, receita_total, pag_dinheiro, "
+            + "pag_cartao_credito, pag_cartao_debito, pag_pix, pag_outros, vendas_multiplo_pagamento, atualizado_em) "
+            + "SELECT v.dia, COUNT(*), COALESCE(SUM(it.qtd), 0), COALESCE(SUM(it.receita), 0), COALESCE(SUM(pg.dinheiro), 0), "
+            + "COALESCE(SUM(pg.credito), 0), COALESCE(SUM(pg.debito), 0), COALESCE(SUM(pg.pix), 0), COALESCE(SUM(pg.outros), 0), "
+            + "COUNT(*) FILTER (WHERE pg.n > 1), now() "
+            + "FROM v LEFT JOIN it ON it.venda_id = v.id LEFT JOIN pg ON pg.venda_id = v.id GROUP BY v.dia", nativeQuery = true)
+    int insertFromSales();
+
+    // Compara os totais do resumo com os das vendas (mesmos filtros de
+    // insertFromSales): acusa um resumo que não corresponde à base, como o
+    // que sobra de antes de restaurar um backup
+    @Query(value = "WITH v AS (SELECT id FROM venda_cabecalho "
+            + "WHERE (status <> 'DEVOLVIDA' OR status IS NULL) AND data_venda IS NOT NULL), "
+            + "it AS (SELECT COALESCE(SUM(GREATEST(i.quantidade - i.quantidade_devolvida, 0)), 0) AS qtd, "
+            + "COALESCE(SUM(GREATEST(i.quantidade - i.quantidade_devolvida, 0) * i.preco_unitario), 0) AS receita "
+            + "FROM venda_itens i JOIN v ON v.id = i.venda_id), "
+            + "r AS (SELECT COALESCE(SUM(total_vendas), 0) AS vendas, COALESCE(SUM(quantidade_vendida), 0) AS qtd, "
+            + "COALESCE(SUM(receita_total), 0) AS receita FROM venda_resumo_dia) "
+            + "SELECT r.vendas <> (SELECT COUNT(*) FROM v) OR r.qtd <> it.qtd OR ABS(r.receita - it.receita) > 0.01 "
+            + "FROM r, it", nativeQuery = true)
+    boolean divergeDasVendas();
+}
@@ -0,0 +1,61 @@
+package com.example.backendspring.sale;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Mantém venda_itens.quantidade_devolvida (soma das devoluções de cada item),
+ * para que o limite de devolução e os relatórios não precisem agregar
+ * sale_adjustments a cada consulta.
+ */
+@Service
+@RequiredArgsConstructor
+public class SaleReturnLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(SaleReturnLedger.class);
+
+    private final SaleItemRepository saleItemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Corrige na inicialização os itens cuja coluna diverge dos ajustes
+     * gravados (bases antigas e alterações feitas fora da aplicação). Roda em
+     * transação própria; uma falha é logada sem impedir a subida.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void rebuildOnStartup() {
+        try {
+            Integer itens = transactionTemplate.execute(tx -> saleItemRepository.reconcileQuantidadeDevolvida());
+            if (itens != null && itens > 0)
+                log.info("quantidade_devolvida recalculada em {} itens de venda", itens);
+        } catch (Exception e) {
+            log.warn("Falha ao recalcular quantidade_devolvida: {}", e.getMessage());
+        }
+    }
+
+    /** Quantidade ainda devolvível; o item deve estar travado (findByIdForUpdate). */
+    public static int restante(SaleItem item) {
+        return Math.max(0, quantidade(item) - devolvida(item));
+    }
+
+    /** Soma a devolução ao item; chamar na mesma transação que grava o ajuste. */
+    public void onReturn(SaleItem item, int quantity) {
+        item.setQuantidadeDevolvida(devolvida(item) + quantity);
+        saleItemRepository.save(item);
+    }
+
+    static int quantidade(SaleItem item) {
+        return item.getQuantidade() == null ? 0 : item.getQuantidade();
+    }
+
+    static int devolvida(SaleItem item) {
+        return item.getQuantidadeDevolvida() == null ? 0 : item.getQuantidadeDevolvida();
+    }
+}
@@ -1,36 +1,96 @@
 package com.example.backendspring.security;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import jakarta.servlet.ServletRequest;
-import jakarta.servlet.ServletRequestWrapper;
-import java.util.HashSet;
-import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Autentica a requisição pelo JWT do header Authorization e publica o id do
+ * usuário no atributo "userId" (lido pelos controllers com
+ * {@code @RequestAttribute}). A verificação do token passa pelo cache do
+ * {@link JwtService}.
+ *
+ * O diagnóstico da cadeia de wrappers da requisição fica desligado por
+ * padrão; com app.security.request-diagnostics.sample-every = N (> 0) roda
+ * em uma a cada N requisições.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
+    static final String USER_ID_ATTRIBUTE = "userId";
+
     private static final Logger log = LoggerFactory.getLogger(JwtAuthFilter.class);
+    private static final String BEARER = "Bearer ";
+    private static final int MAX_WRAPPER_DEPTH = 50;
+
+    private final JwtService jwtService;
+    private final int diagnosticsSampleEvery;
+    private final AtomicLong requests = new AtomicLong();
+
+    public JwtAuthFilter(JwtService jwtService,
+            @Value("${app.security.request-diagnostics.sample-every:0}") int diagnosticsSampleEvery) {
+        this.jwtService = jwtService;
+        this.diagnosticsSampleEvery = Math.max(0, diagnosticsSampleEvery);
+    }
+
+    @Override
+    @SuppressWarnings("squid:S2139")
+    // Suppress Sonar S2139: we intentionally catch StackOverflowError to wrap it
+    // with ServletException
+    // providing contextual information for higher layers and logs.
+    protected void doFilterInternal(@org.springframework.lang.NonNull HttpServletRequest request,
+            @org.springframework.lang.NonNull HttpServletResponse response,
+            @org.springframework.lang.NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        if (diagnosticsSampleEvery > 0 && requests.incrementAndGet() % diagnosticsSampleEvery == 0)
+            logRequestWrapperChain(request);
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            try {
+                JwtService.Verified jwt = jwtService.verify(header.substring(BEARER.length()));
+                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                        jwt.username(), null, jwt.authorities());
+                auth.setDetails(jwt.userId());
+                SecurityContextHolder.getContext().setAuthentication(auth);
+                request.setAttribute(USER_ID_ATTRIBUTE, jwt.userId());
+            } catch (Exception e) {
+                // Token inválido -> segue sem autenticação
+                SecurityContextHolder.clearContext();
+                log.warn("Invalid JWT token for {}: {}", request.getRequestURI(), e.getMessage());
+                log.debug("Invalid JWT token details", e);
+            }
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } catch (StackOverflowError soe) {
+            log.error("StackOverflowError in JwtAuthFilter while processing {}", request.getRequestURI(), soe);
+            throw new ServletException("StackOverflowError while processing " + request.getRequestURI(), soe);
+        }
+    }
 
+    /**
+     * Loga as classes da cadeia de wrappers da requisição, parando em ciclos,
+     * auto-referências ou cadeias longas demais.
+     */
     private void logRequestWrapperChain(HttpServletRequest request) {
         try {
+            StringBuilder chain = new StringBuilder();
             ServletRequest cur = request;
             Set<ServletRequest> seen = new HashSet<>();
             int depth = 0;
@@ -39,7 +99,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                     log.warn("Detected request wrapper cycle at depth {}: class={}", depth, cur.getClass().getName());
                     return;
                 }
-                log.debug("wrapper[{}]={}", depth, cur.getClass().getName());
+                chain.append(cur.getClass().getName()).append(" -> ");
                 ServletRequest inner = getInnerSafely(wrapper, depth);
                 if (inner == null)
                     return;
@@ -48,21 +108,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                     return;
                 }
                 cur = inner;
-                depth++;
-                if (depth > 50) {
-                    log.warn("Wrapper chain too deep (>{}) - stopping log", 50);
+                if (++depth > MAX_WRAPPER_DEPTH) {
+                    log.warn("Wrapper chain too deep (>{}) - stopping log", MAX_WRAPPER_DEPTH);
                     return;
                 }
             }
-            log.debug("final request class={}", cur.getClass().getName());
-        } catch (Exception t) {
-            // Log and handle: warn-level to surface unexpected errors during request
-            // wrapper inspection
-            log.warn("error while logging wrapper chain", t);
+            chain.append(cur.getClass().getName());
+            log.info("request {} wrapper chain (depth {}): {}", request.getRequestURI(), depth, chain);
+        } catch (Exception e) {
+            log.warn("error while logging wrapper chain", e);
         }
     }
 
-    // Extracted helper to avoid catching Throwable and nested try/catch in the loop
     private ServletRequest getInnerSafely(ServletRequestWrapper wrapper, int depth) {
         try {
             return wrapper.getRequest();
@@ -71,52 +128,4 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return null;
         }
     }
-
-    @Override
-    @SuppressWarnings("squid:S2139")
-    // Suppress Sonar S2139: we intentionally catch StackOverflowError to wrap it
-    // with ServletException
-    // providing contextual information for higher layers and logs.
-    protected void doFilterInternal(@org.springframework.lang.NonNull HttpServletRequest request,
-            @org.springframework.lang.NonNull HttpServletResponse response,
-            @org.springframework.lang.NonNull FilterChain filterChain)
-            throws ServletException, IOException {
-        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
-        log.debug("enter JwtAuthFilter for {}", request.getRequestURI());
-        if (log.isDebugEnabled()) {
-            // Only inspect wrapper chain when debug logging is enabled to avoid
-            // interacting with request wrappers in production (can trigger edge-case
-            // recursion).
-            logRequestWrapperChain(request);
-        }
-        if (header != null && header.startsWith("Bearer ")) {
-            log.debug("Authorization header present for request {} (len={})", request.getRequestURI(), header.length());
-            try {
-                String token = header.substring(7);
-                Claims claims = jwtService.parseToken(token);
-                Long id = ((Number) claims.get("id")).longValue();
-                log.debug("JWT parsed for request {} -> userId={}", request.getRequestURI(), id);
-                String username = (String) claims.get("username");
-                String role = (String) claims.get("role");
-                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                        username,
-                        null,
-                        List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
-                auth.setDetails(id);
-                SecurityContextHolder.getContext().setAuthentication(auth);
-            } catch (Exception e) {
-                // Token inválido -> segue sem autenticação. Clear any partial context and log
-                // for debug.
-                SecurityContextHolder.clearContext();
-                // Token parsing failed; warn so it's visible in logs and considered handled
-                log.warn("Invalid JWT token while parsing", e);
-            }
-        }
-        try {
-            filterChain.doFilter(request, response);
-        } catch (StackOverflowError soe) {
-            log.error("StackOverflowError in JwtAuthFilter while processing {}", request.getRequestURI(), soe);
-            throw new ServletException("StackOverflowError while processing " + request.getRequestURI(), soe);
-        }
-    }
 }
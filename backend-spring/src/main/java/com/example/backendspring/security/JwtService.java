@@ -2,29 +2,54 @@ package com.example.backendspring.security;
 
 import com.example.backendspring.config.props.JwtProperties;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class JwtService {
 
     private final JwtProperties props;
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    /*
+     * Tokens já verificados, para que requisições repetidas (polling de
+     * /api/caixa/status etc.) não refaçam parse e HMAC. Cada entrada vale até o
+     * exp do próprio token; tokens inválidos nunca entram.
+     */
+    private final Map<String, Verified> verified = new ConcurrentHashMap<>();
+    private final Map<String, List<GrantedAuthority>> authoritiesByRole = new ConcurrentHashMap<>();
+    private final int cacheSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
 
     public JwtService(JwtProperties props) {
         this.props = props;
-    }
-
-    private Key getSigningKey() {
         String secret = props.getSecret();
         byte[] keyBytes = secret.length() % 4 == 0 ? Decoders.BASE64.decode(secret) : secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.cacheSize = Math.max(1, props.getCacheSize());
     }
 
     public String generateToken(Map<String, Object> claims) {
@@ -34,15 +59,76 @@ public class JwtService {
                 .setClaims(claims)
                 .setIssuedAt(now)
                 .setExpiration(exp)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Token verificado com os dados usados na autenticação. Consulta o cache
+     * antes de verificar a assinatura; lança {@link JwtException} se o token
+     * for inválido ou estiver expirado.
+     */
+    public Verified verify(String token) {
+        Verified v = verified.get(token);
+        if (v != null) {
+            if (System.currentTimeMillis() < v.expiresAt()) {
+                hits.increment();
+                return v;
+            }
+            verified.remove(token, v);
+            expired.increment();
+            throw new ExpiredJwtException(null, null, "JWT expirado");
+        }
+        misses.increment();
+        Claims claims = parseToken(token);
+        Long id = ((Number) claims.get("id")).longValue();
+        String username = (String) claims.get("username");
+        String role = (String) claims.get("role");
+        Date exp = claims.getExpiration();
+        v = new Verified(id, username, authorities(role), exp == null ? Long.MAX_VALUE : exp.getTime());
+        if (exp != null) {
+            if (verified.size() >= cacheSize)
+                evict();
+            verified.put(token, v);
+        }
+        return v;
+    }
+
+    public Map<String, Object> cacheStats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("tokens", verified.size());
+        body.put("max", cacheSize);
+        body.put("hits", h);
+        body.put("misses", m);
+        body.put("hit_ratio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        body.put("expired", expired.sum());
+        body.put("evictions", evictions.sum());
+        return body;
+    }
+
+    /** Remove os expirados; se ainda estiver cheio, esvazia (tokens voltam a ser verificados). */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        int antes = verified.size();
+        verified.values().removeIf(e -> now >= e.expiresAt());
+        if (verified.size() >= cacheSize)
+            verified.clear();
+        evictions.add(Math.max(0, antes - verified.size()));
+    }
+
+    private List<GrantedAuthority> authorities(String role) {
+        if (role == null)
+            throw new JwtException("JWT sem role");
+        return authoritiesByRole.computeIfAbsent(role.toUpperCase(Locale.ROOT),
+                r -> List.of(new SimpleGrantedAuthority("ROLE_" + r)));
+    }
+
+    public record Verified(Long userId, String username, List<GrantedAuthority> authorities, long expiresAt) {
     }
 }
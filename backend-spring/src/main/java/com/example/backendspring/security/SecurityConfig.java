@@ -20,8 +20,7 @@ public class SecurityConfig {
         private static final String PRODUTOS_ALL = "/api/produtos/**";
 
         @Bean
-        public SecurityFilterChain filterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter,
-                        AuthAttributesFilter authAttributesFilter) throws Exception {
+        public SecurityFilterChain filterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter) throws Exception {
                 // Apply security filters only to /api/** to avoid interfering with SPA/static
                 // resources
                 http.securityMatcher("/api/**")
@@ -43,6 +42,8 @@ public class SecurityConfig {
                                                 .requestMatchers(HttpMethod.DELETE, "/api/auth/users/**")
                                                 .hasRole(ROLE_ADMIN)
                                                 .requestMatchers(HttpMethod.POST, "/api/produtos").hasRole(ROLE_ADMIN)
+                                                .requestMatchers(HttpMethod.POST, "/api/produtos/*/imagem")
+                                                .hasRole(ROLE_ADMIN)
                                                 .requestMatchers(HttpMethod.PUT, PRODUTOS_ALL).hasRole(ROLE_ADMIN)
                                                 .requestMatchers(HttpMethod.DELETE, PRODUTOS_ALL).hasRole(ROLE_ADMIN)
                                                 .requestMatchers(HttpMethod.DELETE, "/api/vendas/**")
@@ -68,7 +69,6 @@ public class SecurityConfig {
                 http.headers(headers -> headers.frameOptions(frame -> frame.sameOrigin()));
 
                 http.addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
-                http.addFilterAfter(authAttributesFilter, JwtAuthFilter.class);
                 return http.build();
         }
 
@@ -49,4 +49,30 @@ public final class DateTimeUtils {
         return null;
     }
 
+    /**
+     * Start of the given business day (midnight in America/Sao_Paulo) as an
+     * instant. Use together with {@link #startOfNextDay(LocalDate)} to build a
+     * half-open range {@code [inicio, fim)} that plain btree indexes on
+     * timestamptz columns can serve.
+     */
+    public static OffsetDateTime startOfDay(LocalDate dia) {
+        return dia.atStartOfDay(DEFAULT_ZONE).toOffsetDateTime();
+    }
+
+    /**
+     * Exclusive upper bound for a business day: midnight of the following day in
+     * America/Sao_Paulo.
+     */
+    public static OffsetDateTime startOfNextDay(LocalDate dia) {
+        return dia.plusDays(1).atStartOfDay(DEFAULT_ZONE).toOffsetDateTime();
+    }
+
+    /**
+     * Business day (America/Sao_Paulo) an instant belongs to; the inverse of
+     * {@link #startOfDay(LocalDate)}. Returns null for null input.
+     */
+    public static LocalDate businessDay(OffsetDateTime instant) {
+        return instant == null ? null : instant.atZoneSameInstant(DEFAULT_ZONE).toLocalDate();
+    }
+
 }
@@ -0,0 +1,63 @@
+package com.example.backendspring.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginação por chave (keyset) ordenada por data desc + ids.
+ * Codifica o timestamp da última linha da página e os ids de desempate em um
+ * token base64 url-safe; o cliente apenas o devolve em {@code cursor}.
+ */
+public final class KeysetCursor {
+
+    private final OffsetDateTime data;
+    private final long[] ids;
+
+    private KeysetCursor(OffsetDateTime data, long[] ids) {
+        this.data = data;
+        this.ids = ids;
+    }
+
+    public static KeysetCursor of(OffsetDateTime data, long... ids) {
+        return new KeysetCursor(data.withOffsetSameInstant(ZoneOffset.UTC), ids.clone());
+    }
+
+    public OffsetDateTime getData() {
+        return data;
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    public String encode() {
+        StringBuilder sb = new StringBuilder(data.toString());
+        for (long id : ids)
+            sb.append('|').append(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um token gerado por {@link #encode()}. Retorna null para token
+     * vazio; lança IllegalArgumentException para token inválido ou com número
+     * de ids diferente do esperado.
+     */
+    public static KeysetCursor decode(String token, int expectedIds) {
+        if (token == null || token.isBlank())
+            return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != expectedIds + 1)
+                throw new IllegalArgumentException("cursor inválido");
+            long[] ids = new long[expectedIds];
+            for (int i = 0; i < expectedIds; i++)
+                ids[i] = Long.parseLong(parts[i + 1]);
+            return new KeysetCursor(OffsetDateTime.parse(parts[0]), ids);
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw new IllegalArgumentException("cursor inválido", e);
+        }
+    }
+}
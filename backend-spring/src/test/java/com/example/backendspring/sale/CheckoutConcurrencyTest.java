@@ -0,0 +1,204 @@
+package com.example.backendspring.sale;
+
+import com.example.backendspring.caixa.CaixaStatus;
+import com.example.backendspring.caixa.CaixaStatusRepository;
+import com.example.backendspring.product.Product;
+import com.example.backendspring.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkouts simultâneos disputando o mesmo estoque, cada um na sua transação
+ * (chamadas ao bean do controller a partir de threads próprias).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CheckoutConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private CheckoutController checkoutController;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CaixaStatusRepository caixaStatusRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    private final List<Long> produtos = new ArrayList<>();
+    private final List<Long> vendas = new ArrayList<>();
+    private CaixaStatus caixa;
+
+    @BeforeEach
+    void abrirCaixa() {
+        caixa = caixaStatusRepository.save(CaixaStatus.builder()
+                .aberto(true)
+                .dataAbertura(OffsetDateTime.now())
+                .saldoInicial(0.0)
+                .build());
+    }
+
+    @AfterEach
+    void cleanup() {
+        pool.shutdownNow();
+        for (Long id : vendas) {
+            checkoutController.deleteOrder(id, new MockHttpServletRequest());
+            jdbcTemplate.update("DELETE FROM sale_deletions WHERE sale_id = ?", id);
+        }
+        produtos.forEach(productRepository::deleteById);
+        caixaStatusRepository.deleteById(caixa.getId());
+    }
+
+    @Test
+    void ultimasUnidadesVendidasUmaVezSo() throws Exception {
+        int estoque = 5;
+        Product p = produto(estoque);
+
+        AtomicBoolean rodando = new AtomicBoolean(true);
+        AtomicInteger menorEstoque = new AtomicInteger(Integer.MAX_VALUE);
+        Thread monitor = new Thread(() -> {
+            while (rodando.get()) {
+                Integer q = jdbcTemplate.queryForObject("SELECT quantidade_estoque FROM produtos WHERE id = ?",
+                        Integer.class, p.getId());
+                menorEstoque.accumulateAndGet(q, Math::min);
+            }
+        });
+        monitor.start();
+
+        List<ResponseEntity<Object>> respostas;
+        try {
+            respostas = emParalelo(THREADS, i -> carrinho(p));
+        } finally {
+            rodando.set(false);
+            monitor.join();
+        }
+
+        List<ResponseEntity<Object>> vendidas = respostas.stream()
+                .filter(r -> r.getStatusCode().value() == 201).toList();
+        List<ResponseEntity<Object>> recusadas = respostas.stream()
+                .filter(r -> r.getStatusCode().value() != 201).toList();
+        assertThat(vendidas).hasSize(estoque);
+        assertThat(recusadas).hasSize(THREADS - estoque).allSatisfy(r -> {
+            assertThat(r.getStatusCode().value()).isEqualTo(400);
+            Map<?, ?> body = (Map<?, ?>) r.getBody();
+            assertThat((String) body.get("error")).startsWith("Estoque insuficiente para o produto: ");
+            assertThat((List<?>) body.get("faltas")).singleElement().isEqualTo(Map.of(
+                    "produto_id", p.getId(), "nome", p.getNome(), "solicitado", 1, "disponivel", 0));
+        });
+        assertThat(estoque(p)).isZero();
+        assertThat(menorEstoque.get()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void carrinhosCruzadosNaoEntramEmDeadlock() throws Exception {
+        int estoque = 1000;
+        Product a = produto(estoque);
+        Product b = produto(estoque);
+        Product c = produto(estoque);
+        // mesma combinação de produtos em ordens diferentes, com item repetido
+        List<List<Product>> carrinhos = List.of(
+                List.of(a, b, c), List.of(c, b, a), List.of(b, a), List.of(c, a, c), List.of(b, c, b, a));
+
+        List<ResponseEntity<Object>> respostas = emParalelo(THREADS * 4,
+                i -> carrinho(carrinhos.get(i % carrinhos.size()).toArray(new Product[0])));
+
+        assertThat(respostas).allSatisfy(r -> assertThat(r.getStatusCode().value())
+                .as("resposta %s", r.getBody()).isEqualTo(201));
+        for (Product p : List.of(a, b, c)) {
+            long vendidos = 0;
+            for (int i = 0; i < respostas.size(); i++) {
+                vendidos += carrinhos.get(i % carrinhos.size()).stream().filter(p::equals).count();
+            }
+            assertThat(estoque(p)).isEqualTo(estoque - vendidos);
+        }
+    }
+
+    private interface Carrinho {
+        CheckoutController.CheckoutRequest montar(int i);
+    }
+
+    /** Dispara os checkouts juntos (latch de largada) e registra as vendas criadas. */
+    private List<ResponseEntity<Object>> emParalelo(int n, Carrinho carrinho) throws Exception {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ResponseEntity<Object>>> futuros = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            CheckoutController.CheckoutRequest req = carrinho.montar(i);
+            futuros.add(pool.submit(() -> {
+                largada.await();
+                return checkoutController.create(null, req);
+            }));
+        }
+        largada.countDown();
+        List<ResponseEntity<Object>> respostas = new ArrayList<>();
+        for (var f : futuros) {
+            ResponseEntity<Object> r = f.get(60, TimeUnit.SECONDS);
+            respostas.add(r);
+            if (r.getStatusCode().value() == 201)
+                vendas.add(((Number) ((Map<?, ?>) r.getBody()).get("id")).longValue());
+        }
+        return respostas;
+    }
+
+    private Product produto(int estoque) {
+        Product p = productRepository.save(Product.builder()
+                .nome("Concorrência " + UUID.randomUUID())
+                .precoVenda(2.0)
+                .quantidadeEstoque(estoque)
+                .build());
+        produtos.add(p.getId());
+        return p;
+    }
+
+    /** Uma unidade de cada produto listado, pago em pix (sem movimentação de caixa). */
+    private static CheckoutController.CheckoutRequest carrinho(Product... itens) {
+        CheckoutController.CheckoutRequest req = new CheckoutController.CheckoutRequest();
+        List<CheckoutController.CheckoutItem> lista = new ArrayList<>();
+        for (Product p : itens) {
+            CheckoutController.CheckoutItem item = new CheckoutController.CheckoutItem();
+            item.setProdutoId(p.getId());
+            item.setQuantidade(1);
+            item.setPrecoUnitario(p.getPrecoVenda());
+            lista.add(item);
+        }
+        CheckoutController.CheckoutPayment pagamento = new CheckoutController.CheckoutPayment();
+        pagamento.setMetodo("pix");
+        pagamento.setValor(lista.size() * 2.0);
+        req.setItens(lista);
+        req.setPagamentos(List.of(pagamento));
+        return req;
+    }
+
+    private int estoque(Product p) {
+        return jdbcTemplate.queryForObject("SELECT quantidade_estoque FROM produtos WHERE id = ?", Integer.class,
+                p.getId());
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.backendspring.sale;
+
+import com.example.backendspring.client.ClientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Fila de emails com o EmailService substituído por um mock (sem SMTP).
+ * Polling desligado: os envios vêm do disparo após enqueue e de chamadas
+ * explícitas a dispatch(). Cada teste usa um destinatário próprio e apaga os
+ * registros que criou.
+ */
+@SpringBootTest(properties = {
+        "app.email-outbox.max-tentativas=3",
+        "app.email-outbox.backoff-inicial-segundos=60",
+        "app.email-outbox.poll-ms=3600000"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EmailOutboxServiceTest {
+
+    private static final byte[] PDF = "%PDF-teste".getBytes();
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxService outbox;
+
+    @Autowired
+    private NotaController notaController;
+
+    @Autowired
+    private SaleOrderRepository saleOrderRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> jobs = new ArrayList<>();
+    private final List<Long> vendas = new ArrayList<>();
+
+    @AfterEach
+    void cleanup() {
+        jobs.forEach(id -> jdbcTemplate.update("DELETE FROM email_outbox WHERE id = ?", id));
+        for (Long id : vendas) {
+            jdbcTemplate.update("DELETE FROM email_outbox WHERE venda_id = ?", id);
+            Long cliente = jdbcTemplate.queryForObject("SELECT cliente_id FROM venda_cabecalho WHERE id = ?",
+                    Long.class, id);
+            saleOrderRepository.deleteById(id);
+            if (cliente != null)
+                clientRepository.deleteById(cliente);
+        }
+    }
+
+    @Test
+    void jobEnfileiradoEEnviadoEmSegundoPlano() throws Exception {
+        String to = destinatario();
+        Long id = enqueue(to);
+
+        var enviado = aguardar(id, s -> EmailOutbox.STATUS_ENVIADO.equals(s.getStatus()));
+        assertThat(enviado.getTentativas()).isEqualTo(1);
+        assertThat(enviado.getSentAt()).isNotNull();
+        assertThat(enviado.getUltimoErro()).isNull();
+        verify(emailService).sendEmailWithAttachment(eq(to), eq("Nota"), eq("corpo"), eq(PDF), eq("nota.pdf"));
+    }
+
+    @Test
+    void falhaTransitoriaVoltaParaFilaComBackoff() throws Exception {
+        String to = destinatario();
+        doThrow(new IllegalStateException("SMTP indisponível")).doNothing()
+                .when(emailService).sendEmailWithAttachment(eq(to), anyString(), anyString(), any(), anyString());
+        Long id = enqueue(to);
+
+        var pendente = aguardar(id, s -> s.getTentativas() == 1);
+        assertThat(pendente.getStatus()).isEqualTo(EmailOutbox.STATUS_PENDENTE);
+        assertThat(pendente.getUltimoErro()).isEqualTo("SMTP indisponível");
+        // backoff inicial (60 s) na primeira falha
+        assertThat(pendente.getProximaTentativa())
+                .isCloseTo(OffsetDateTime.now().plusSeconds(60), within(Duration.ofSeconds(10)));
+
+        // antes do backoff o job não é reservado
+        outbox.dispatch();
+        Thread.sleep(300);
+        assertThat(outbox.findStatus(id).getTentativas()).isEqualTo(1);
+
+        vencer(id);
+        outbox.dispatch();
+        var enviado = aguardar(id, s -> EmailOutbox.STATUS_ENVIADO.equals(s.getStatus()));
+        assertThat(enviado.getTentativas()).isEqualTo(2);
+        assertThat(enviado.getUltimoErro()).isNull();
+    }
+
+    @Test
+    void falhaDefinitivaAposMaxTentativas() throws Exception {
+        String to = destinatario();
+        doThrow(new IllegalStateException("caixa inexistente"))
+                .when(emailService).sendEmailWithAttachment(eq(to), anyString(), anyString(), any(), anyString());
+        Long id = enqueue(to);
+
+        var primeira = aguardar(id, s -> s.getTentativas() == 1);
+        vencer(id);
+        outbox.dispatch();
+        var segunda = aguardar(id, s -> s.getTentativas() == 2);
+        // backoff dobra a cada falha: 60 s, 120 s
+        assertThat(Duration.between(OffsetDateTime.now(), segunda.getProximaTentativa()).getSeconds())
+                .isBetween(110L, 120L);
+        assertThat(primeira.getStatus()).isEqualTo(EmailOutbox.STATUS_PENDENTE);
+
+        vencer(id);
+        outbox.dispatch();
+        var falhou = aguardar(id, s -> s.getTentativas() == 3);
+        assertThat(falhou.getStatus()).isEqualTo(EmailOutbox.STATUS_FALHOU);
+        assertThat(falhou.getUltimoErro()).isEqualTo("caixa inexistente");
+
+        // estado terminal: não é mais reservado
+        vencer(id);
+        outbox.dispatch();
+        Thread.sleep(300);
+        assertThat(outbox.findStatus(id).getTentativas()).isEqualTo(3);
+        verify(emailService, times(3)).sendEmailWithAttachment(eq(to), anyString(), anyString(), any(),
+                anyString());
+    }
+
+    @Test
+    void clienteVinculadoAVendaAoEnfileirar() throws Exception {
+        String to = destinatario();
+        SaleOrder venda = saleOrderRepository.save(SaleOrder.builder()
+                .dataVenda(OffsetDateTime.now())
+                .subtotal(10.0).desconto(0.0).acrescimo(0.0).totalFinal(10.0)
+                .customerName("Cliente Outbox")
+                .customerEmail(to)
+                .build());
+        vendas.add(venda.getId());
+        // no momento do envio a venda já deve estar vinculada ao cliente
+        AtomicReference<Long> clienteNoEnvio = new AtomicReference<>();
+        doAnswer(inv -> {
+            clienteNoEnvio.set(jdbcTemplate.queryForObject("SELECT cliente_id FROM venda_cabecalho WHERE id = ?",
+                    Long.class, venda.getId()));
+            throw new IllegalStateException("SMTP indisponível");
+        }).when(emailService).sendEmailWithAttachment(eq(to), anyString(), anyString(), any(), anyString());
+
+        NotaController.SendEmailRequest req = new NotaController.SendEmailRequest();
+        req.setTo(to);
+        ResponseEntity<Object> resp = notaController.sendNotaEmail(venda.getId(), req);
+
+        assertThat(resp.getStatusCode().value()).isEqualTo(202);
+        Long jobId = ((Number) ((Map<?, ?>) resp.getBody()).get("jobId")).longValue();
+        jobs.add(jobId);
+        Long cliente = jdbcTemplate.queryForObject("SELECT cliente_id FROM venda_cabecalho WHERE id = ?",
+                Long.class, venda.getId());
+        assertThat(cliente).isNotNull();
+        assertThat(clientRepository.findById(cliente)).get()
+                .satisfies(c -> assertThat(c.getEmail()).isEqualTo(to));
+
+        // o vínculo não depende do envio, que falhou
+        var job = aguardar(jobId, s -> s.getTentativas() == 1);
+        assertThat(job.getStatus()).isEqualTo(EmailOutbox.STATUS_PENDENTE);
+        assertThat(clienteNoEnvio.get()).isEqualTo(cliente);
+    }
+
+    private Long enqueue(String to) {
+        Long id = outbox.enqueue(null, to, "Nota", "corpo", PDF, "nota.pdf").getId();
+        jobs.add(id);
+        return id;
+    }
+
+    private void vencer(Long id) {
+        jdbcTemplate.update("UPDATE email_outbox SET proxima_tentativa = now() WHERE id = ?", id);
+    }
+
+    private EmailOutboxRepository.Status aguardar(Long id, Predicate<EmailOutboxRepository.Status> cond) {
+        AtomicReference<EmailOutboxRepository.Status> last = new AtomicReference<>();
+        await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(50)).until(() -> {
+            var s = outbox.findStatus(id);
+            last.set(s);
+            return s != null && !EmailOutbox.STATUS_ENVIANDO.equals(s.getStatus()) && cond.test(s);
+        });
+        return last.get();
+    }
+
+    private static String destinatario() {
+        return "outbox-" + UUID.randomUUID() + "@teste.local";
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.backendspring.sale;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Pool de workers com um processo Java falso no lugar de node + Chromium,
+ * falando o mesmo protocolo (uma linha JSON por mensagem).
+ */
+class PuppeteerRenderPoolTest {
+
+    private static final long JOB_TIMEOUT_MS = 20_000;
+
+    @TempDir
+    Path tmp;
+
+    private PuppeteerRenderPool pool;
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (pool != null)
+            pool.shutdown();
+    }
+
+    @Test
+    void workerMortoComPedidoNaFilaESubstituido() throws Exception {
+        pool = new FakeWorkerPool(1, tmp);
+        assertThat(pool.render("a")).isEqualTo(pdf("a"));
+
+        Future<byte[]> lento = callers.submit(() -> pool.render("lento"));
+        waitFor(tmp.resolve("lento"));
+        // pool de 1: este pedido espera o worker ocupado
+        Future<byte[]> esperando = callers.submit(() -> pool.render("b"));
+
+        killWorkers();
+
+        assertThatThrownBy(() -> lento.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(java.io.IOException.class);
+        // bem antes do timeout de espera por worker (JOB_TIMEOUT_MS)
+        assertThat(esperando.get(10, TimeUnit.SECONDS)).isEqualTo(pdf("b"));
+    }
+
+    @Test
+    void quedasSeguidasNaoEsvaziamOPool() throws Exception {
+        pool = new FakeWorkerPool(2, tmp);
+        for (int i = 0; i < 3; i++) {
+            assertThat(pool.render("r" + i)).isEqualTo(pdf("r" + i));
+            killWorkers();
+        }
+        assertThat(pool.render("fim")).isEqualTo(pdf("fim"));
+    }
+
+    private static byte[] pdf(String html) {
+        return ("PDF:" + html).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Mata os workers e espera os processos saírem (destroyForcibly é assíncrono). */
+    private static void killWorkers() throws Exception {
+        for (ProcessHandle p : ProcessHandle.current().children().toList()) {
+            p.destroyForcibly();
+            p.onExit().get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void waitFor(Path marker) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Files.exists(marker)) {
+            if (System.currentTimeMillis() > deadline)
+                throw new AssertionError("worker não recebeu o job: " + marker);
+            Thread.sleep(20);
+        }
+    }
+
+    /** Pool que sobe {@link FakeWorker} em vez do script node. */
+    static final class FakeWorkerPool extends PuppeteerRenderPool {
+        private final Path markers;
+
+        FakeWorkerPool(int size, Path markers) {
+            super(new ObjectMapper(), size, 4, JOB_TIMEOUT_MS, 3600);
+            this.markers = markers;
+        }
+
+        @Override
+        ProcessBuilder newWorkerProcess() {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    FakeWorker.class.getName(), markers.toString());
+        }
+    }
+
+    /**
+     * Responde ping e devolve "PDF:" + html em base64; o html "lento" cria um
+     * marcador e não responde (simula um Chromium travado).
+     */
+    static final class FakeWorker {
+        public static void main(String[] args) throws Exception {
+            ObjectMapper mapper = new ObjectMapper();
+            PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                JsonNode req = mapper.readTree(line);
+                ObjectNode resp = mapper.createObjectNode().put("id", req.path("id").asLong()).put("ok", true);
+                String html = req.path("html").asText(null);
+                if ("lento".equals(html)) {
+                    Files.createFile(Paths.get(args[0], "lento"));
+                    Thread.sleep(Long.MAX_VALUE);
+                }
+                if (html != null)
+                    resp.put("pdf", Base64.getEncoder().encodeToString(pdf(html)));
+                out.println(mapper.writeValueAsString(resp));
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.backendspring.sale;
+
+import com.example.backendspring.caixa.CaixaStatus;
+import com.example.backendspring.caixa.CaixaStatusRepository;
+import com.example.backendspring.product.Product;
+import com.example.backendspring.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Falha no meio de uma devolução (aqui, ao aplicar o delta do resumo diário)
+ * não pode deixar gravados o ajuste, a quantidade devolvida nem o estoque
+ * reposto: o 500 desfaz a transação inteira.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SaleAdjustmentRollbackTest {
+
+    @MockitoBean
+    private SaleDailyRollup saleDailyRollup;
+
+    @Autowired
+    private CheckoutController checkoutController;
+
+    @Autowired
+    private SaleAdjustmentController saleAdjustmentController;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CaixaStatusRepository caixaStatusRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CaixaStatus caixa;
+    private Product produto;
+    private Long venda;
+
+    @BeforeEach
+    void setUp() {
+        caixa = caixaStatusRepository.save(CaixaStatus.builder()
+                .aberto(true)
+                .dataAbertura(OffsetDateTime.now())
+                .saldoInicial(0.0)
+                .build());
+        produto = productRepository.save(Product.builder()
+                .nome("Ajuste " + UUID.randomUUID())
+                .precoVenda(4.0)
+                .quantidadeEstoque(10)
+                .build());
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (venda != null) {
+            checkoutController.deleteOrder(venda, new MockHttpServletRequest());
+            jdbcTemplate.update("DELETE FROM sale_deletions WHERE sale_id = ?", venda);
+        }
+        productRepository.deleteById(produto.getId());
+        jdbcTemplate.update("DELETE FROM caixa_movimentacoes WHERE caixa_status_id = ?", caixa.getId());
+        caixaStatusRepository.deleteById(caixa.getId());
+    }
+
+    @Test
+    void falhaAposGravarDevolucaoDesfazTudo() {
+        CheckoutController.CheckoutItem item = new CheckoutController.CheckoutItem();
+        item.setProdutoId(produto.getId());
+        item.setQuantidade(3);
+        item.setPrecoUnitario(4.0);
+        CheckoutController.CheckoutPayment pagamento = new CheckoutController.CheckoutPayment();
+        pagamento.setMetodo("pix");
+        pagamento.setValor(12.0);
+        CheckoutController.CheckoutRequest req = new CheckoutController.CheckoutRequest();
+        req.setItens(List.of(item));
+        req.setPagamentos(List.of(pagamento));
+        ResponseEntity<Object> resp = checkoutController.create(null, req);
+        assertThat(resp.getStatusCode().value()).as("resposta %s", resp.getBody()).isEqualTo(201);
+        venda = ((Number) ((Map<?, ?>) resp.getBody()).get("id")).longValue();
+        Long itemId = jdbcTemplate.queryForObject("SELECT id FROM venda_itens WHERE venda_id = ?", Long.class, venda);
+
+        doThrow(new IllegalStateException("falha simulada")).when(saleDailyRollup).onSaleChanged(any(), any());
+        SaleAdjustmentController.AdjustmentRequest devolucao = new SaleAdjustmentController.AdjustmentRequest();
+        devolucao.setType("return");
+        devolucao.setSaleItemId(itemId);
+        devolucao.setQuantity(2);
+        ResponseEntity<?> falha = saleAdjustmentController.createAdjustment(venda, devolucao);
+
+        assertThat(falha.getStatusCode().value()).isEqualTo(500);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM sale_adjustments WHERE sale_order_id = ?",
+                Integer.class, venda)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT quantidade_devolvida FROM venda_itens WHERE id = ?",
+                Integer.class, itemId)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT quantidade_estoque FROM produtos WHERE id = ?",
+                Integer.class, produto.getId())).isEqualTo(7);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM caixa_movimentacoes WHERE caixa_status_id = ?",
+                Integer.class, caixa.getId())).isZero();
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.backendspring.sale;
+
+import com.example.backendspring.caixa.CaixaStatus;
+import com.example.backendspring.caixa.CaixaStatusRepository;
+import com.example.backendspring.product.Product;
+import com.example.backendspring.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Os deltas aplicados por venda, devolução e cancelamento devem deixar
+ * venda_resumo_dia igual ao recálculo completo (insertFromSales). O recálculo
+ * de comparação roda numa transação desfeita ao final, sem tocar no resumo
+ * incremental.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SaleDailyRollupTest {
+
+    /** Colunas comparadas; valores monetários arredondados em centavos (somas de double). */
+    private static final String RESUMO = "SELECT dia, total_vendas, quantidade_vendida,"
+            + " round(receita_total::numeric, 2) AS receita_total,"
+            + " round(pag_dinheiro::numeric, 2) AS pag_dinheiro,"
+            + " round(pag_cartao_credito::numeric, 2) AS pag_cartao_credito,"
+            + " round(pag_cartao_debito::numeric, 2) AS pag_cartao_debito,"
+            + " round(pag_pix::numeric, 2) AS pag_pix,"
+            + " round(pag_outros::numeric, 2) AS pag_outros,"
+            + " vendas_multiplo_pagamento"
+            + " FROM venda_resumo_dia"
+            // dias que ficaram zerados após cancelamentos não existem no recálculo
+            + " WHERE total_vendas <> 0 OR quantidade_vendida <> 0 OR round(receita_total::numeric, 2) <> 0"
+            + " ORDER BY dia";
+
+    @Autowired
+    private SaleDailyRollup saleDailyRollup;
+
+    @Autowired
+    private SaleResumoDiaRepository resumoDiaRepository;
+
+    @Autowired
+    private CheckoutController checkoutController;
+
+    @Autowired
+    private SaleAdjustmentController saleAdjustmentController;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CaixaStatusRepository caixaStatusRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> produtos = new ArrayList<>();
+    private final List<Long> vendas = new ArrayList<>();
+    private CaixaStatus caixa;
+
+    @BeforeEach
+    void setUp() {
+        caixa = caixaStatusRepository.save(CaixaStatus.builder()
+                .aberto(true)
+                .dataAbertura(OffsetDateTime.now())
+                .saldoInicial(0.0)
+                .build());
+        // parte de um resumo consistente com o que já houver no banco de teste
+        saleDailyRollup.rebuild();
+    }
+
+    @AfterEach
+    void cleanup() {
+        for (Long id : vendas) {
+            if (jdbcTemplate.queryForObject("SELECT count(*) FROM venda_cabecalho WHERE id = ?", Integer.class,
+                    id) > 0)
+                checkoutController.deleteOrder(id, new MockHttpServletRequest());
+            jdbcTemplate.update("DELETE FROM sale_deletions WHERE sale_id = ?", id);
+        }
+        produtos.forEach(productRepository::deleteById);
+        jdbcTemplate.update("DELETE FROM caixa_movimentacoes WHERE caixa_status_id = ?", caixa.getId());
+        caixaStatusRepository.deleteById(caixa.getId());
+        saleDailyRollup.rebuild();
+    }
+
+    @Test
+    void deltasDeVendaDevolucaoECancelamentoBatemComRecalculo() {
+        Product a = produto(3.5);
+        Product b = produto(1.25);
+
+        // pagamento dividido conta em vendas_multiplo_pagamento
+        Long venda1 = checkout(List.of(item(a, 2), item(b, 1)),
+                List.of(pagamento("cartao_credito", 5.0), pagamento("pix", 3.25)));
+        assertResumoIgualAoRecalculo();
+
+        Long venda2 = checkout(List.of(item(b, 3)), List.of(pagamento("cartao_debito", 3.75)));
+        assertResumoIgualAoRecalculo();
+
+        // devolução parcial
+        devolver(venda1, a, 1);
+        assertResumoIgualAoRecalculo();
+
+        // devolução total: venda passa a DEVOLVIDA
+        devolver(venda2, b, 3);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM venda_cabecalho WHERE id = ?", String.class,
+                venda2)).isEqualTo("DEVOLVIDA");
+        assertResumoIgualAoRecalculo();
+
+        // cancelamento (exclusão) de venda com devolução parcial
+        checkoutController.deleteOrder(venda1, new MockHttpServletRequest());
+        assertResumoIgualAoRecalculo();
+    }
+
+    @Test
+    void startupSoReconstroiResumoVazioOuDivergente() {
+        Product a = produto(2.0);
+        checkout(List.of(item(a, 1)), List.of(pagamento("pix", 2.0)));
+        List<Map<String, Object>> esperado = jdbcTemplate.queryForList(RESUMO);
+
+        // com linhas no resumo o boot não recalcula (nem apaga) nada
+        jdbcTemplate.update("UPDATE venda_resumo_dia SET atualizado_em = '2000-01-01T00:00:00Z'");
+        saleDailyRollup.rebuildOnStartup();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM venda_resumo_dia WHERE atualizado_em > '2000-01-01T00:00:00Z'",
+                Integer.class)).isZero();
+
+        // tabela vazia (primeira subida): reconstrói a partir das vendas
+        jdbcTemplate.update("DELETE FROM venda_resumo_dia");
+        saleDailyRollup.rebuildOnStartup();
+        assertThat(jdbcTemplate.queryForList(RESUMO)).isEqualTo(esperado);
+
+        // resumo que não corresponde às vendas (sobra de antes de um restore)
+        jdbcTemplate.update("INSERT INTO venda_resumo_dia (dia, total_vendas, quantidade_vendida, receita_total,"
+                + " pag_dinheiro, pag_cartao_credito, pag_cartao_debito, pag_pix, pag_outros,"
+                + " vendas_multiplo_pagamento, atualizado_em)"
+                + " VALUES ('2001-01-01', 7, 9, 99.0, 99.0, 0, 0, 0, 0, 0, now())");
+        saleDailyRollup.rebuildOnStartup();
+        assertThat(jdbcTemplate.queryForList(RESUMO)).isEqualTo(esperado);
+    }
+
+    private void assertResumoIgualAoRecalculo() {
+        List<Map<String, Object>> incremental = jdbcTemplate.queryForList(RESUMO);
+        List<Map<String, Object>> recalculado = transactionTemplate.execute(tx -> {
+            resumoDiaRepository.deleteAllRows();
+            resumoDiaRepository.insertFromSales();
+            List<Map<String, Object>> linhas = jdbcTemplate.queryForList(RESUMO);
+            tx.setRollbackOnly();
+            return linhas;
+        });
+        assertThat(incremental).isEqualTo(recalculado);
+    }
+
+    private Long checkout(List<CheckoutController.CheckoutItem> itens,
+            List<CheckoutController.CheckoutPayment> pagamentos) {
+        CheckoutController.CheckoutRequest req = new CheckoutController.CheckoutRequest();
+        req.setItens(itens);
+        req.setPagamentos(pagamentos);
+        ResponseEntity<Object> resp = checkoutController.create(null, req);
+        assertThat(resp.getStatusCode().value()).as("resposta %s", resp.getBody()).isEqualTo(201);
+        Long id = ((Number) ((Map<?, ?>) resp.getBody()).get("id")).longValue();
+        vendas.add(id);
+        return id;
+    }
+
+    private void devolver(Long vendaId, Product p, int quantidade) {
+        Long itemId = jdbcTemplate.queryForObject(
+                "SELECT id FROM venda_itens WHERE venda_id = ? AND produto_id = ?", Long.class, vendaId, p.getId());
+        SaleAdjustmentController.AdjustmentRequest req = new SaleAdjustmentController.AdjustmentRequest();
+        req.setType("return");
+        req.setSaleItemId(itemId);
+        req.setQuantity(quantidade);
+        ResponseEntity<?> resp = saleAdjustmentController.createAdjustment(vendaId, req);
+        assertThat(resp.getStatusCode().value()).as("resposta %s", resp.getBody()).isEqualTo(200);
+    }
+
+    private Product produto(double preco) {
+        Product p = productRepository.save(Product.builder()
+                .nome("Resumo " + UUID.randomUUID())
+                .precoVenda(preco)
+                .quantidadeEstoque(100)
+                .build());
+        produtos.add(p.getId());
+        return p;
+    }
+
+    private static CheckoutController.CheckoutItem item(Product p, int quantidade) {
+        CheckoutController.CheckoutItem item = new CheckoutController.CheckoutItem();
+        item.setProdutoId(p.getId());
+        item.setQuantidade(quantidade);
+        item.setPrecoUnitario(p.getPrecoVenda());
+        return item;
+    }
+
+    /** Só métodos sem movimentação de caixa (dinheiro geraria entrada no caixa). */
+    private static CheckoutController.CheckoutPayment pagamento(String metodo, double valor) {
+        CheckoutController.CheckoutPayment pagamento = new CheckoutController.CheckoutPayment();
+        pagamento.setMetodo(metodo);
+        pagamento.setValor(valor);
+        return pagamento;
+    }
+}
@@ -56,7 +56,7 @@ import { CurrencyBrPipe } from '../../pipes/currency-br.pipe';
                 <p class="preco">Preço: {{ produto.preco_venda | currencyBR }}</p>
               </div>
               <div class="produto-imagem" style="width:80px; height:80px; display:flex; align-items:center; justify-content:center;">
-                <img [src]="getImageUrl(produto.imagem)" [alt]="produto.nome" class="produto-card-thumb" (error)="onImageError($event)" />
+                <img [src]="getThumbnailUrl(produto.imagem)" [alt]="produto.nome" class="produto-card-thumb" (error)="onImageError($event)" />
               </div>
             </div>
 
@@ -677,8 +677,8 @@ export class GerenciarEstoqueComponent implements OnInit {
     this.router.navigate(['/dashboard']);
   }
 
-  getImageUrl(imageName: string | null | undefined): string {
-    return this.imageService.getImageUrl(imageName);
+  getThumbnailUrl(imageName: string | null | undefined): string {
+    return this.imageService.getThumbnailUrl(imageName);
   }
 
   onImageError(event: any): void {
@@ -216,8 +216,8 @@ export class HistoricoDeletadosComponent implements OnInit {
         return partes.join(' + ');
     }
 
-    getImageUrl(imageName: string | null | undefined): string {
-        return this.imageService.getImageUrl(imageName);
+    getThumbnailUrl(imageName: string | null | undefined): string {
+        return this.imageService.getThumbnailUrl(imageName);
     }
 
     onImageError(event: any): void {
@@ -24,7 +24,8 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
   private readonly vendasLegado: Venda[] = [];
   private readonly vendasCheckout: Venda[] = [];
   vendasFiltradas: any[] = [];
-  // when we fetch all pages for aggregates we store them here
+  // rows of the loaded server page (both sources merged), before client-side filters;
+  // source for filters, metrics and delete rollback
   vendasFiltradasAll: any[] | null = null;
   expandedRows = new Set<string>();
   dataFiltro = '';
@@ -94,9 +95,14 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
   jumpPage: number | null = null;
   // when using server pagination we keep totalCount from server; fallback to local length
   totalCount = 0;
+  // each server page merges page N of both sources, so the page count is the larger
+  // of the two and rows before the current page are counted per source
+  private serverPages = 0;
+  private rowsBeforePage = 0;
   get total(): number { return Number(this.totalCount || this.vendasFiltradas.length); }
   get totalPages(): number {
-    const totalItems = Number(this.total || 0);
+    if (this.serverPages > 0) return this.serverPages;
+    const totalItems = Number(this.vendasFiltradas.length || 0);
     const perPage = Number(this.pageSize || 1);
     const pages = Math.ceil(totalItems / perPage);
     return Math.max(1, pages || 1);
@@ -121,23 +127,23 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
   goToPage(targetPage: number): void {
     const page = Math.max(1, Math.min(this.totalPages, Math.floor(Number(targetPage) || 1)));
     if (page === this.page) return;
-    // If any client-side filters are active or we have fetched the full dataset,
-    // paginate locally instead of refetching from the server which would reset
-    // filters. Otherwise request the server page.
-    const clientSideFilteringActive = Boolean(this.dataFiltro || this.horaInicioFiltro || this.horaFimFiltro || this.produtoFiltro || this.metodoPagamentoFiltro || this.vendasFiltradasAll);
-    if (clientSideFilteringActive) {
-      this.page = page;
+    // Server-paged: fetch the requested page (client-side filters are re-applied
+    // to it after loading). Otherwise paginate the local list.
+    if (this.serverPages > 0) {
+      this.loadPage(page);
       return;
     }
-    // fetch the requested page from server
-    this.loadPage(page);
+    this.page = page;
   }
   nextPage() { if (this.page < this.totalPages) this.goToPage(this.page + 1); }
   prevPage() { if (this.page > 1) this.goToPage(this.page - 1); }
   goBy(delta: number): void { this.goToPage(this.page + delta); }
   goToFirstPage(): void { this.goToPage(1); }
   goToLastPage(): void { this.goToPage(this.totalPages); }
-  setPageSize(n: 20 | 50 | 100) { this.pageSize = n; this.page = 1; }
+  setPageSize(n: 20 | 50 | 100) {
+    this.pageSize = n;
+    if (this.serverPages > 0) this.loadPage(1); else this.page = 1;
+  }
 
   onJumpToPage(): void {
     if (this.jumpPage == null) return;
@@ -149,9 +155,8 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
   }
 
   get vendasPagina(): any[] {
-    // If backend is providing paged results (totalCount > vendasFiltradas.length)
-    // then vendasFiltradas already contains only the current page items.
-    if (this.totalCount && this.totalCount > (this.vendasFiltradas?.length || 0)) {
+    // Server-paged: vendasFiltradas already contains only the current page items.
+    if (this.serverPages > 0) {
       return this.vendasFiltradas || [];
     }
     const start = (this.page - 1) * Number(this.pageSize || 1);
@@ -159,6 +164,13 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
   }
 
   getRowNumber(venda: any, indexOnPage: number): number {
+    // Server-paged: position within the unfiltered page plus rows of previous pages
+    if (this.serverPages > 0) {
+      const source = Array.isArray(this.vendasFiltradasAll) ? this.vendasFiltradasAll : [];
+      const idx = source.findIndex((s: any) => (s && venda) ? (s.id === venda.id) : false);
+      const globalIndex = this.rowsBeforePage + (idx >= 0 ? idx : indexOnPage);
+      return Math.max(1, Number(this.totalCount || 0) - globalIndex);
+    }
     // Prefer using the full cached dataset to compute stable global index
     let source: any[] = [];
     if (Array.isArray(this.vendasFiltradasAll)) source = this.vendasFiltradasAll; else if (Array.isArray(this.vendasFiltradas)) source = this.vendasFiltradas;
@@ -183,17 +195,29 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
     this.loading = true;
     this.error = '';
     this.page = pageNum;
-    // Fetch both detailed vendas and checkout (complete) vendas and merge, avoiding duplicates.
+    // Fetch the same page of detailed vendas and checkout (complete) vendas and merge, avoiding duplicates.
     forkJoin({
       detalhadas: this.apiService.getVendasDetalhadas(pageNum - 1, this.pageSize).pipe(catchError(() => of(null))),
-      completas: this.apiService.getVendasCompletas().pipe(catchError(() => of([])))
+      completas: this.apiService.getVendasCompletasPagina(pageNum - 1, this.pageSize, { fields: 'all' }).pipe(catchError(() => of(null)))
     }).subscribe({
       next: ({ detalhadas, completas }: any) => {
         const resp = detalhadas || {};
-        if (resp && typeof resp.total === 'number') this.totalCount = resp.total; else this.totalCount = 0;
+        const totalDetalhadas = typeof resp?.total === 'number' ? resp.total : 0;
+        const totalCompletas = typeof completas?.total === 'number' ? completas.total : 0;
+        this.totalCount = totalDetalhadas + totalCompletas;
+        const perPage = Number(this.pageSize || 1);
+        const pages = Math.max(Math.ceil(totalDetalhadas / perPage), Math.ceil(totalCompletas / perPage));
+        this.serverPages = Math.max(1, pages);
+        // a deletion can leave the last page empty: go to the new last page
+        if (pageNum > this.serverPages) {
+          this.loadPage(this.serverPages);
+          return;
+        }
+        const skipped = (pageNum - 1) * perPage;
+        this.rowsBeforePage = Math.min(totalDetalhadas, skipped) + Math.min(totalCompletas, skipped);
 
         const detalhadasItems = Array.isArray(resp?.items) ? resp.items : [];
-        const completasItems = Array.isArray(completas) ? completas : [];
+        const completasItems = Array.isArray(completas?.items) ? completas.items : [];
 
         // normalize completa items to the same shape and mark as checkout
         const completasMapped = completasItems.map((v: any, idx: number) => {
@@ -563,8 +587,8 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
           const bd = new Date(b.data_hora || b.dataHora || 0).getTime();
           return bd - ad;
         });
-        this.vendasFiltradas = sorted;
         this.vendasFiltradasAll = sorted;
+        this.applyClientFilters();
         // Log resumo agregado após carga
         try {
           const totalBruto = sorted.reduce((a: number, v: any) => a + (Number(v.preco_total) || 0), 0);
@@ -635,21 +659,25 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
     this.loading = true;
     this.error = '';
     // Optimistically remove the item from the list
+    const previous = this.vendasFiltradas;
     this.vendasFiltradas = this.vendasFiltradas.filter((v: any) => v.id !== id);
     // Use métodos existentes na ApiService
     const deleteObs = isCheckout ? this.apiService.deleteCheckoutOrder(id) : this.apiService.deleteVenda(id);
+    let failed = false;
     deleteObs.pipe(catchError((err) => {
+      failed = true;
       this.loading = false;
       this.error = err?.message || err?.error?.message || 'Erro desconhecido ao excluir venda';
       logger.error('HISTORICO_VENDAS', 'DELETE_ERROR', this.error);
-      // Rollback optimistic removal
-      this.vendasFiltradas = [...this.vendasFiltradas, ...(this.vendasFiltradasAll?.filter((v: any) => v.id === id) || [])];
+      // Rollback optimistic removal (restores the row in its original position)
+      this.vendasFiltradas = previous;
       return of(null);
     })).subscribe({
       next: () => {
+        if (failed) return;
         this.loading = false;
         // Refresh page if using server-side pagination, otherwise just remove from local array
-        if (this.totalCount > this.vendasFiltradas.length) {
+        if (this.serverPages > 0) {
           this.loadPage(this.page);
         } else {
           this.vendasFiltradas = this.vendasFiltradas.filter((v: any) => v.id !== id);
@@ -679,8 +707,8 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
 
   limparFiltros(): void { this.onFilterReset(); }
 
-  getImageUrl(path?: string): string {
-    return this.imageService.getImageUrl(path);
+  getThumbnailUrl(path?: string): string {
+    return this.imageService.getThumbnailUrl(path);
   }
 
   onImageError(ev: Event): void {
@@ -787,6 +815,12 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
   absValue(n: number): number { return Math.abs(Number(n) || 0); }
 
   filterVendas(): void {
+    this.applyClientFilters();
+    // server-paged filters apply to the loaded page only, so stay on it
+    if (this.serverPages === 0) this.page = 1;
+  }
+
+  private applyClientFilters(): void {
     const src = this.vendasFiltradasAll || this.vendasFiltradas || [];
     let list = [...src];
     if (this.produtoFiltro?.trim()) {
@@ -801,7 +835,6 @@ export class HistoricoVendasComponent implements OnInit, OnDestroy {
       });
     }
     this.vendasFiltradas = list;
-    this.page = 1;
   }
 
   voltarAoDashboard(): void {
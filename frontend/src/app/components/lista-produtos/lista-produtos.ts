@@ -195,8 +195,8 @@ export class ListaProdutosComponent implements OnInit {
     return this.produtos.filter(p => p.quantidade_estoque < 10).length;
   }
 
-  getImageUrl(imageName: string | null | undefined): string {
-    return this.imageService.getImageUrl(imageName);
+  getThumbnailUrl(imageName: string | null | undefined): string {
+    return this.imageService.getThumbnailUrl(imageName);
   }
 
   onImageError(event: any): void {
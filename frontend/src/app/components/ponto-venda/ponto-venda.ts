@@ -833,8 +833,8 @@ export class PontoVendaComponent implements OnInit, OnDestroy {
     this.modernNotificationMessage = '';
   }
 
-  getImageUrl(imageName: string | null | undefined): string {
-    return this.imageService.getImageUrl(imageName);
+  getThumbnailUrl(imageName: string | null | undefined): string {
+    return this.imageService.getThumbnailUrl(imageName);
   }
 
   onImageError(event: any): void {
@@ -1724,8 +1724,8 @@ export class RelatorioVendasComponent implements OnInit, OnDestroy {
     } catch { return null; }
   }
 
-  getImageUrl(imageName: string | null | undefined): string {
-    return this.imageService.getImageUrl(imageName);
+  getThumbnailUrl(imageName: string | null | undefined): string {
+    return this.imageService.getThumbnailUrl(imageName);
   }
 
   onImageError(event: any): void {
@@ -273,14 +273,26 @@ export class ApiService {
     );
   }
 
-  // Vendas completas (novo modelo com itens e pagamentos)
+  // Vendas completas (novo modelo com itens e pagamentos): todas as vendas, para
+  // telas que agregam no navegador (relatórios, gráficos). Telas paginadas devem
+  // usar getVendasCompletasPagina.
   getVendasCompletas(): Observable<any[]> {
     return this.makeRequest(
-      () => this.http.get<any[]>(`${this.baseUrl}/checkout`),
+      () => this.http.get<any[]>(`${this.baseUrl}/checkout?all=true`),
       'GET_VENDAS_COMPLETAS'
     );
   }
 
+  // Página de vendas do checkout ({items, total, hasNext, page, size}), mais recentes
+  // primeiro. fields=itens,pagamentos,adjustments (ou all) inclui o detalhe de cada venda.
+  getVendasCompletasPagina(page: number = 0, size: number = 20, opts: { from?: string; to?: string; fields?: string } = {}): Observable<any> {
+    let url = `${this.baseUrl}/checkout?page=${page}&size=${size}`;
+    if (opts.from) url += `&from=${encodeURIComponent(opts.from)}`;
+    if (opts.to) url += `&to=${encodeURIComponent(opts.to)}`;
+    if (opts.fields) url += `&fields=${encodeURIComponent(opts.fields)}`;
+    return this.makeRequest(() => this.http.get<any>(url), 'GET_VENDAS_COMPLETAS_PAGINA');
+  }
+
   getVendasDetalhadas(page: number = 0, size: number = 20, from?: string, to?: string): Observable<any> {
     let url = `${this.baseUrl}/vendas/detalhadas?page=${page}&size=${size}`;
     if (from) url += `&from=${encodeURIComponent(from)}`;
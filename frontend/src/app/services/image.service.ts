@@ -36,6 +36,18 @@ export class ImageService {
     return `${this.baseUrl}/imagem/${imageName}`;
   }
 
+  /**
+   * URL da miniatura (96px) para listagens; o backend devolve a foto de
+   * detalhe enquanto a miniatura não existir
+   */
+  getThumbnailUrl(imageName: string | null | undefined): string {
+    const match = imageName ? /^produto_(\d+)\.png$/.exec(imageName) : null;
+    if (!match) {
+      return this.getImageUrl(imageName);
+    }
+    return `${this.baseUrl}/imagem/produto_${match[1]}_thumb.jpg`;
+  }
+
   /**
    * Obtém a URL base atual (útil para debug)
    */
@@ -1,33 +1,38 @@
 #!/usr/bin/env node
 // Usage: node render-nota-pdf.js input.html output.pdf
+//        node render-nota-pdf.js --worker
+//
+// Em modo --worker o Chromium fica aberto e o processo atende pedidos em
+// stdin/stdout, uma linha JSON por mensagem (usado pelo pool do backend):
+//   -> {"id":1,"html":"..."}     <- {"id":1,"ok":true,"pdf":"<base64>"}
+//   -> {"id":2,"ping":true}      <- {"id":2,"ok":true}
+// Erros respondem {"id":n,"ok":false,"error":"..."}. Logs vão para stderr.
 const fs = require('fs');
 const path = require('path');
-(async () => {
-  try {
-    const inPath = process.argv[2];
-    const outPath = process.argv[3];
-    if (!inPath || !outPath) {
-      console.error('Usage: node render-nota-pdf.js input.html output.pdf');
-      process.exit(2);
-    }
+const readline = require('readline');
 
-    const html = fs.readFileSync(inPath, 'utf8');
-    const puppeteer = require('puppeteer');
+const WORKER = process.argv[2] === '--worker';
+// stdout é o canal do protocolo no modo worker
+const log = WORKER ? (...a) => console.error(...a) : (...a) => console.log(...a);
 
-    const browser = await puppeteer.launch({ 
-      args: [
-        '--no-sandbox', 
-        '--disable-setuid-sandbox',
-        '--disable-dev-shm-usage',
-        '--force-color-emoji',
-        '--enable-font-antialiasing',
-        '--disable-font-subpixel-positioning',
-        '--enable-oop-rasterization'
-      ] 
-    });
-    
-    const page = await browser.newPage();
-    
+function launchBrowser() {
+  const puppeteer = require('puppeteer');
+  return puppeteer.launch({ 
+    args: [
+      '--no-sandbox', 
+      '--disable-setuid-sandbox',
+      '--disable-dev-shm-usage',
+      '--force-color-emoji',
+      '--enable-font-antialiasing',
+      '--disable-font-subpixel-positioning',
+      '--enable-oop-rasterization'
+    ] 
+  });
+}
+
+async function renderPdf(browser, html) {
+  const page = await browser.newPage();
+  try {
     // Viewport otimizado 
     await page.setViewport({ 
       width: 800, 
@@ -66,17 +71,17 @@ const path = require('path');
         }
       `
     });
-    
+  
     await page.setContent(html, { waitUntil: 'domcontentloaded' });
 
     // Debug melhorado: verificar emojis e entidades
     const emojiCheck = await page.evaluate(() => {
       const paymentCell = document.querySelector('tfoot td');
       if (!paymentCell) return { error: 'Payment cell not found' };
-      
+    
       const paymentText = paymentCell.textContent || '';
       const paymentHTML = paymentCell.innerHTML || '';
-      
+    
       // Verificar vários tipos de emoji/símbolos
       return {
         paymentText: paymentText.substring(0, 100),
@@ -88,11 +93,11 @@ const path = require('path');
         cellExists: !!paymentCell
       };
     });
-    console.log('=== EMOJI DEBUG COMPLETO ===');
-    console.log(JSON.stringify(emojiCheck, null, 2));
+    log('=== EMOJI DEBUG COMPLETO ===');
+    log(JSON.stringify(emojiCheck, null, 2));
 
-    // Aguardar um pouco mais para fonts e emojis carregarem
-    await page.waitForTimeout(1000);
+    // Aguardar fontes e emojis carregarem
+    await page.evaluate(() => document.fonts.ready);
     
     // Medir as dimensões do conteúdo da nota
     const contentDimensions = await page.evaluate(() => {
@@ -108,8 +113,7 @@ const path = require('path');
     });
 
     // PDF com tamanho do conteúdo
-    await page.pdf({ 
-      path: outPath, 
+    return await page.pdf({ 
       width: `${contentDimensions.width}px`,
       height: `${contentDimensions.height}px`,
       margin: {
@@ -127,10 +131,68 @@ const path = require('path');
       outline: false,
       timeout: 15000
     });
+  } finally {
+    await page.close();
+  }
+}
+
+async function runWorker() {
+  const browser = await launchBrowser();
+  const send = (msg) => process.stdout.write(JSON.stringify(msg) + '\n');
+  const rl = readline.createInterface({ input: process.stdin, crlfDelay: Infinity });
+  // um pedido por vez: o pool do backend só envia o próximo após a resposta
+  for await (const line of rl) {
+    if (!line.trim()) continue;
+    let req;
+    try {
+      req = JSON.parse(line);
+    } catch (e) {
+      send({ id: null, ok: false, error: 'invalid json' });
+      continue;
+    }
+    try {
+      if (req.ping) {
+        if (!browser.isConnected()) throw new Error('browser disconnected');
+        send({ id: req.id, ok: true });
+      } else {
+        const pdf = await renderPdf(browser, req.html || '');
+        send({ id: req.id, ok: true, pdf: Buffer.from(pdf).toString('base64') });
+      }
+    } catch (err) {
+      log(err && err.stack ? err.stack : err);
+      send({ id: req.id, ok: false, error: String(err && err.message ? err.message : err) });
+    }
+  }
+  await browser.close();
+  process.exit(0);
+}
+
+(async () => {
+  if (WORKER) {
+    try {
+      await runWorker();
+    } catch (err) {
+      console.error(err && err.stack ? err.stack : err);
+      process.exit(1);
+    }
+    return;
+  }
+  try {
+    const inPath = process.argv[2];
+    const outPath = process.argv[3];
+    if (!inPath || !outPath) {
+      console.error('Usage: node render-nota-pdf.js input.html output.pdf');
+      process.exit(2);
+    }
+
+    const html = fs.readFileSync(inPath, 'utf8');
+    const browser = await launchBrowser();
+    const pdf = await renderPdf(browser, html);
+    fs.writeFileSync(outPath, pdf);
     await browser.close();
     process.exit(0);
   } catch (err) {
     console.error(err && err.stack ? err.stack : err);
     process.exit(1);
   }
-})();
\ No newline at end of file
+})();